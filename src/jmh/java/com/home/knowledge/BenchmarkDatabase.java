@@ -0,0 +1,76 @@
+package com.home.knowledge;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Embedded H2 database migrated with the application's Flyway scripts and seeded with a realistic mix of
+ * posts, comments, likes and reads for the benchmarks.
+ */
+public final class BenchmarkDatabase {
+    public static final String LOGIN_USER = "yuhei";
+    private static final String[] USERS = {"yuhei", "shiho", "aki", "ken", "mio", "ren", "sora", "yui", "haru", "nao"};
+
+    private BenchmarkDatabase() {
+    }
+
+    public static JdbcTemplate create(int posts) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        seed(jdbcTemplate, posts);
+        return jdbcTemplate;
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, int posts) {
+        SplittableRandom random = new SplittableRandom(42);
+        Instant start = Instant.now().minusSeconds(posts * 600L);
+        List<Object[]> postRows = new ArrayList<>();
+        for (int i = 1; i <= posts; i++) {
+            postRows.add(new Object[]{
+                    (long) i,
+                    USERS[random.nextInt(USERS.length)],
+                    "記事タイトル " + i,
+                    BenchmarkTexts.markdown(random, 6),
+                    "https://example.com/articles/" + i,
+                    BenchmarkTexts.sentences(random, 3),
+                    Timestamp.from(start.plusSeconds(i * 600L))
+            });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO posts (id, username, title, content, link_url, summary, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)", postRows);
+
+        List<Object[]> comments = new ArrayList<>();
+        List<Object[]> likes = new ArrayList<>();
+        List<Object[]> reads = new ArrayList<>();
+        for (int i = 1; i <= posts; i++) {
+            int commentCount = random.nextInt(6);
+            for (int c = 0; c < commentCount; c++) {
+                comments.add(new Object[]{(long) i, USERS[random.nextInt(USERS.length)],
+                        BenchmarkTexts.sentences(random, 1), Timestamp.from(start.plusSeconds(i * 600L + c * 30L))});
+            }
+            for (String user : USERS) {
+                if (random.nextInt(4) == 0) {
+                    likes.add(new Object[]{(long) i, user});
+                }
+                if (random.nextInt(2) == 0) {
+                    reads.add(new Object[]{(long) i, user});
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO comments (post_id, username, content, created_at) VALUES (?, ?, ?, ?)", comments);
+        jdbcTemplate.batchUpdate("INSERT INTO likes (post_id, username) VALUES (?, ?)", likes);
+        jdbcTemplate.batchUpdate("INSERT INTO reads (post_id, username) VALUES (?, ?)", reads);
+        // Last visit half-way through the posts, so the notification queries have unread items to return.
+        jdbcTemplate.update("INSERT INTO user_last_seen (username, last_seen) VALUES (?, ?)",
+                LOGIN_USER, Timestamp.from(start.plusSeconds(posts * 300L)));
+    }
+}
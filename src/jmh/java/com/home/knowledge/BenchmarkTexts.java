@@ -0,0 +1,54 @@
+package com.home.knowledge;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic Japanese-looking article text for the benchmarks.
+ */
+public final class BenchmarkTexts {
+    private static final String[] SENTENCES = {
+            "補聴器の調整は子供の成長に合わせて定期的に見直すことが大切です。",
+            "図1に示すように、言語発達の時期には聞こえの環境が大きく影響します。",
+            "専門家によると、早期の療育は3歳までに始めると効果が高いとされています。",
+            "学校との連携では、座席の位置やFMシステムの活用が話し合われました。",
+            "保護者の会では、日常生活で使える工夫がいくつも紹介されています。",
+            "人工内耳の手術後は、リハビリテーションに数か月から数年かかることがあります。",
+            "最新の調査では、約60%の家庭が情報不足を課題として挙げていました。",
+            "ホーム | ニュース | 子育て | ログイン",
+            "手話と音声言語を併用する家庭も増えてきています。",
+            "自治体の助成制度は地域によって対象年齢や金額が異なります。"
+    };
+
+    private BenchmarkTexts() {
+    }
+
+    public static String sentences(SplittableRandom random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(SENTENCES[random.nextInt(SENTENCES.length)]);
+        }
+        return text.toString();
+    }
+
+    public static String markdown(SplittableRandom random, int sections) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= sections; i++) {
+            text.append("## 見出し").append(i).append("\n\n");
+            text.append(sentences(random, 3)).append("\n\n");
+            text.append("- **ポイント**: ").append(sentences(random, 1)).append('\n');
+            text.append("- [参考リンク](https://example.com/").append(i).append(")\n\n");
+        }
+        return text.toString();
+    }
+
+    public static String article(SplittableRandom random, int sentences) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < sentences; i++) {
+            text.append(SENTENCES[random.nextInt(SENTENCES.length)]);
+            if (i % 7 == 6) {
+                text.append("\n\n");
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,43 @@
+package com.home.knowledge.markdown;
+
+import com.home.knowledge.BenchmarkTexts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkdownServiceBenchmark {
+
+    @Param({"2", "60"})
+    int sections;
+
+    private MarkdownService markdownService;
+    private String markdown;
+
+    @Setup
+    public void setUp() {
+        markdownService = new MarkdownService();
+        markdown = BenchmarkTexts.markdown(new SplittableRandom(7), sections);
+    }
+
+    @Benchmark
+    public String render() {
+        return markdownService.render(markdown);
+    }
+}
@@ -0,0 +1,113 @@
+package com.home.knowledge.post;
+
+import com.home.knowledge.BenchmarkDatabase;
+import com.home.knowledge.cache.ContentVersions;
+import com.home.knowledge.comment.CommentRepository;
+import com.home.knowledge.dedup.SignatureRepository;
+import com.home.knowledge.dedup.SimilarityIndex;
+import com.home.knowledge.event.DomainEventBus;
+import com.home.knowledge.like.LikeRepository;
+import com.home.knowledge.markdown.MarkdownService;
+import com.home.knowledge.notify.NotificationRepository;
+import com.home.knowledge.read.ReadRepository;
+import com.home.knowledge.related.RelatedPostIndex;
+import com.home.knowledge.summary.ArticleAiService;
+import com.home.knowledge.summary.DraftMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.ui.ExtendedModelMap;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Model assembly of the timeline and search pages against an embedded H2 database, including the post
+ * cards but not the page template.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostControllerBenchmark {
+
+    @Param({"200", "2000"})
+    int posts;
+
+    // 0 disables the card cache, so every card is rendered from the template.
+    @Param({"0", "16777216"})
+    long cardCacheBytes;
+
+    private PostController controller;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        JdbcTemplate jdbcTemplate = BenchmarkDatabase.create(posts);
+        ContentVersions versions = new ContentVersions();
+        PostRepository postRepository = new PostRepository(jdbcTemplate, versions);
+        CommentRepository commentRepository = new CommentRepository(jdbcTemplate, versions);
+        ReadRepository readRepository = new ReadRepository(jdbcTemplate, versions);
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+        controller = new PostController(
+                postRepository,
+                commentRepository,
+                new LikeRepository(jdbcTemplate, versions),
+                readRepository,
+                new NotificationRepository(jdbcTemplate, versions, 10000),
+                new ArticleAiService("", 1, new DraftMetrics(new SimpleMeterRegistry(), Long.MAX_VALUE)),
+                new MarkdownService(),
+                new SimilarityIndex(new SignatureRepository(jdbcTemplate), versions, 0.8),
+                new RelatedPostIndex(postRepository, versions),
+                versions,
+                new PostCardCache(templateEngine, commentRepository, readRepository, versions,
+                        new SimpleMeterRegistry(), cardCacheBytes),
+                new DomainEventBus(List.of(), new SimpleMeterRegistry(), 10000, 100, Duration.ofSeconds(1)));
+        request = new MockHttpServletRequest();
+        request.setAttribute("loginUser", BenchmarkDatabase.LOGIN_USER);
+    }
+
+    @Benchmark
+    public ExtendedModelMap timeline() {
+        ExtendedModelMap model = new ExtendedModelMap();
+        // No If-None-Match header, so every call builds the full model.
+        controller.timeline(null, request, new ServletWebRequest(request, new MockHttpServletResponse()), model);
+        return model;
+    }
+
+    @Benchmark
+    public ExtendedModelMap searchByQuery() {
+        ExtendedModelMap model = new ExtendedModelMap();
+        controller.search(null, "補聴器", null, null, request, model);
+        return model;
+    }
+
+    @Benchmark
+    public ExtendedModelMap searchUnread() {
+        ExtendedModelMap model = new ExtendedModelMap();
+        controller.search(null, null, null, "0", request, model);
+        return model;
+    }
+}
@@ -0,0 +1,75 @@
+package com.home.knowledge.post;
+
+import com.home.knowledge.BenchmarkDatabase;
+import com.home.knowledge.cache.ContentVersions;
+import com.home.knowledge.comment.Comment;
+import com.home.knowledge.comment.CommentRepository;
+import com.home.knowledge.read.ReadRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Query plus row mapping cost of the repository methods used by the list pages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    @Param({"200", "2000"})
+    int posts;
+
+    private PostRepository postRepository;
+    private CommentRepository commentRepository;
+    private ReadRepository readRepository;
+    private Set<Long> firstPageIds;
+
+    @Setup
+    public void setUp() {
+        JdbcTemplate jdbcTemplate = BenchmarkDatabase.create(posts);
+        ContentVersions versions = new ContentVersions();
+        postRepository = new PostRepository(jdbcTemplate, versions);
+        commentRepository = new CommentRepository(jdbcTemplate, versions);
+        readRepository = new ReadRepository(jdbcTemplate, versions);
+        firstPageIds = postRepository.findAll().stream().limit(50).map(Post::getId).collect(Collectors.toSet());
+    }
+
+    @Benchmark
+    public List<Post> postsFindAll() {
+        return postRepository.findAll();
+    }
+
+    @Benchmark
+    public Map<Long, List<Comment>> commentsFindByPostIds() {
+        return commentRepository.findByPostIds(firstPageIds);
+    }
+
+    @Benchmark
+    public Map<Long, Integer> commentsCountByPostIds() {
+        return commentRepository.countByPostIds(firstPageIds, false);
+    }
+
+    @Benchmark
+    public Set<Long> readsFindReadPostIds() {
+        return readRepository.findReadPostIds(BenchmarkDatabase.LOGIN_USER);
+    }
+}
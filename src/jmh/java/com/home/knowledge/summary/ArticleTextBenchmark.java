@@ -0,0 +1,63 @@
+package com.home.knowledge.summary;
+
+import com.home.knowledge.BenchmarkTexts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArticleTextBenchmark {
+
+    @Param({"20", "400"})
+    int sentences;
+
+    private ArticleAiService service;
+    private String raw;
+    private String normalized;
+
+    @Setup
+    public void setUp() {
+        service = new ArticleAiService("", 1, new DraftMetrics(new SimpleMeterRegistry(), Long.MAX_VALUE));
+        raw = BenchmarkTexts.article(new SplittableRandom(11), sentences);
+        normalized = service.normalizeBody(raw);
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Benchmark
+    public String normalizeBody() {
+        return service.normalizeBody(raw);
+    }
+
+    @Benchmark
+    public List<String> splitIntoSentences() {
+        return service.splitIntoSentences(normalized);
+    }
+
+    @Benchmark
+    public String craftCalmSummary() {
+        return service.craftCalmSummary(raw);
+    }
+}
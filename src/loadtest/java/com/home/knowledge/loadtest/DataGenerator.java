@@ -0,0 +1,214 @@
+package com.home.knowledge.loadtest;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.SplittableRandom;
+
+/**
+ * Migrates a database with the application's Flyway scripts and bulk-loads a synthetic data set:
+ * load-test users, posts, and reads / likes / comments skewed towards popular posts.
+ * <p>
+ * Defaults to the same {@code SPRING_DATASOURCE_*} variables as the application. Generated users are
+ * {@code load-user-0001 ...} with the user id as password, which is what {@link LoadDriver} logs in with.
+ * Posts get ids after the current maximum, so the generator can be run against a non-empty database.
+ */
+public final class DataGenerator {
+    static final String USER_PREFIX = "load-user-";
+
+    private final Connection connection;
+    private final SplittableRandom random;
+    private final int users;
+    private final Instant now = Instant.now();
+    private final Duration span = Duration.ofDays(365);
+
+    private DataGenerator(Connection connection, long seed, int users) {
+        this.connection = connection;
+        this.random = new SplittableRandom(seed);
+        this.users = users;
+    }
+
+    public static void main(String[] args) throws SQLException {
+        Options options = new Options(args);
+        String url = options.string("url", System.getenv("SPRING_DATASOURCE_URL"));
+        if (url == null) {
+            throw new IllegalArgumentException("--url (or SPRING_DATASOURCE_URL) is required");
+        }
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url,
+                options.string("username", System.getenv("SPRING_DATASOURCE_USERNAME")),
+                options.string("password", System.getenv("SPRING_DATASOURCE_PASSWORD")));
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        int users = options.integer("users", 500);
+        int posts = options.integer("posts", 50_000);
+        long reads = options.longValue("reads", 1_000_000);
+        long likes = options.longValue("likes", 500_000);
+        long comments = options.longValue("comments", 200_000);
+        if (reads > (long) posts * users || likes > (long) posts * users) {
+            throw new IllegalArgumentException("reads and likes cannot exceed posts * users");
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            DataGenerator generator = new DataGenerator(connection, options.longValue("seed", 42), users);
+            long started = System.nanoTime();
+            generator.insertUsers();
+            long firstPostId = generator.insertPosts(posts);
+            generator.insertPerPostPairs("reads", "read_at", firstPostId, posts, reads);
+            generator.insertPerPostPairs("likes", "created_at", firstPostId, posts, likes);
+            generator.insertComments(firstPostId, posts, comments);
+            generator.analyze();
+            System.out.printf("Generated %,d posts, %,d reads, %,d likes, %,d comments for %,d users in %,d ms%n",
+                    posts, reads, likes, comments, users, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    static String userName(int index) {
+        return USER_PREFIX + String.format("%04d", index + 1);
+    }
+
+    private void insertUsers() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM app_users WHERE id LIKE '" + USER_PREFIX + "%'");
+            statement.executeUpdate("DELETE FROM user_last_seen WHERE username LIKE '" + USER_PREFIX + "%'");
+        }
+        try (RowSink appUsers = RowSink.open(connection, "app_users", "id", "password")) {
+            for (int i = 0; i < users; i++) {
+                appUsers.add(userName(i), userName(i));
+            }
+        }
+        // Keeps the first timeline request of each user from upserting user_last_seen.
+        try (RowSink lastSeen = RowSink.open(connection, "user_last_seen", "username", "last_seen")) {
+            for (int i = 0; i < users; i++) {
+                lastSeen.add(userName(i), Timestamp.from(now.minus(Duration.ofDays(1))));
+            }
+        }
+        log("app_users", users);
+    }
+
+    private long insertPosts(int count) throws SQLException {
+        long firstId = maxId("posts") + 1;
+        try (RowSink posts = RowSink.open(connection, "posts",
+                "id", "username", "title", "content", "link_url", "summary", "created_at")) {
+            for (int i = 0; i < count; i++) {
+                long id = firstId + i;
+                posts.add(id, randomUser(), SyntheticText.title(random, id),
+                        SyntheticText.markdown(random, 3 + random.nextInt(6)),
+                        "https://example.com/articles/" + id,
+                        SyntheticText.sentences(random, 3),
+                        postCreatedAt(i, count));
+            }
+        }
+        // Explicit ids bypass the identity column; move it past them for the application's inserts.
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE posts ALTER COLUMN id RESTART WITH " + (firstId + count));
+        }
+        connection.commit();
+        log("posts", count);
+        return firstId;
+    }
+
+    /**
+     * Inserts {@code total} distinct (post, user) pairs. Per-post counts follow a log-normal curve so a
+     * few posts are read by most users, then are topped up at random until the total is exact.
+     */
+    private void insertPerPostPairs(String table, String timeColumn, long firstPostId, int posts, long total)
+            throws SQLException {
+        int[] counts = perPostCounts(posts, total);
+        int[] userOrder = new int[users];
+        for (int i = 0; i < users; i++) {
+            userOrder[i] = i;
+        }
+        try (RowSink sink = RowSink.open(connection, table, "post_id", "username", timeColumn)) {
+            for (int p = 0; p < posts; p++) {
+                // Partial Fisher-Yates: the first counts[p] entries become a random distinct sample.
+                for (int k = 0; k < counts[p]; k++) {
+                    int j = k + random.nextInt(users - k);
+                    int swap = userOrder[k];
+                    userOrder[k] = userOrder[j];
+                    userOrder[j] = swap;
+                    sink.add(firstPostId + p, userName(userOrder[k]), afterPost(p, posts));
+                }
+            }
+        }
+        log(table, total);
+    }
+
+    private void insertComments(long firstPostId, int posts, long total) throws SQLException {
+        int[] counts = perPostCounts(posts, total);
+        try (RowSink comments = RowSink.open(connection, "comments", "post_id", "username", "content", "created_at")) {
+            for (int p = 0; p < posts; p++) {
+                for (int c = 0; c < counts[p]; c++) {
+                    comments.add(firstPostId + p, randomUser(), SyntheticText.sentences(random, 1 + random.nextInt(2)),
+                            afterPost(p, posts));
+                }
+            }
+        }
+        log("comments", total);
+    }
+
+    private int[] perPostCounts(int posts, long total) {
+        int[] counts = new int[posts];
+        if (posts == 0) {
+            return counts;
+        }
+        double mean = (double) total / posts;
+        long assigned = 0;
+        for (int p = 0; p < posts && assigned < total; p++) {
+            double factor = Math.exp(random.nextGaussian() * 1.0 - 0.5);
+            counts[p] = (int) Math.min(Math.min(users, total - assigned), Math.round(mean * factor));
+            assigned += counts[p];
+        }
+        while (assigned < total) {
+            int p = random.nextInt(posts);
+            if (counts[p] < users) {
+                counts[p]++;
+                assigned++;
+            }
+        }
+        return counts;
+    }
+
+    private Timestamp postCreatedAt(int index, int count) {
+        long offset = span.toSeconds() * (count - index) / Math.max(1, count);
+        return Timestamp.from(now.minusSeconds(offset));
+    }
+
+    private Timestamp afterPost(int index, int count) {
+        Instant created = postCreatedAt(index, count).toInstant();
+        long window = Math.max(1, Duration.between(created, now).toSeconds());
+        return Timestamp.from(created.plusSeconds(random.nextLong(window)));
+    }
+
+    private String randomUser() {
+        return userName(random.nextInt(users));
+    }
+
+    private long maxId(String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private void analyze() throws SQLException {
+        if (!connection.getMetaData().getDatabaseProductName().equals("PostgreSQL")) {
+            return;
+        }
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        }
+    }
+
+    private static void log(String table, long rows) {
+        System.out.printf("  %-16s %,12d rows%n", table, rows);
+    }
+}
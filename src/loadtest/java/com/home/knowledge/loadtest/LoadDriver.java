@@ -0,0 +1,290 @@
+package com.home.knowledge.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a weighted traffic mix against a running instance and reports throughput and latency
+ * percentiles per endpoint.
+ * <p>
+ * Every virtual user has its own cookie jar and logs in through {@code POST /login} as one of the
+ * users created by {@link DataGenerator}. Samples taken during the warm-up are discarded. Redirects are
+ * not followed, so a redirect to {@code /login} counts as an error rather than a fast page.
+ */
+public final class LoadDriver {
+    private static final String DEFAULT_MIX = "timeline=35,search=15,detail=35,feed=10,like=3,comment=2";
+
+    private final URI baseUrl;
+    private final Map<String, Integer> mix;
+    private final int totalWeight;
+    private final int users;
+    private final int posts;
+    private final long firstPostId;
+
+    private LoadDriver(URI baseUrl, Map<String, Integer> mix, int users, int posts, long firstPostId) {
+        this.baseUrl = baseUrl;
+        this.mix = mix;
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.users = users;
+        this.posts = posts;
+        this.firstPostId = firstPostId;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args);
+        Map<String, Integer> mix = parseMix(options.string("mix", DEFAULT_MIX));
+        LoadDriver driver = new LoadDriver(
+                URI.create(options.string("base-url", "http://localhost:8080")),
+                mix,
+                options.integer("users", 500),
+                options.integer("posts", 50_000),
+                options.longValue("first-post-id", 1));
+        int concurrency = options.integer("concurrency", 32);
+        Duration warmup = options.duration("warmup", Duration.ofSeconds(15));
+        Duration duration = options.duration("duration", Duration.ofSeconds(60));
+        long seed = options.longValue("seed", 42);
+
+        System.out.printf("Driving %s with %d virtual users for %s (warm-up %s), mix %s%n",
+                driver.baseUrl, concurrency, duration, warmup, mix);
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long stopAt = measureFrom + duration.toNanos();
+        List<Future<Map<String, Recorder>>> results = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            int worker = i;
+            results.add(executor.submit(() -> driver.run(worker, new SplittableRandom(seed + worker), measureFrom, stopAt)));
+        }
+        Map<String, Recorder> merged = new LinkedHashMap<>();
+        mix.keySet().forEach(name -> merged.put(name, new Recorder()));
+        for (Future<Map<String, Recorder>> result : results) {
+            result.get().forEach((name, recorder) -> merged.get(name).merge(recorder));
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        Map<String, Object> report = report(merged, duration);
+        String out = options.string("report", "target/loadtest-report.json");
+        Path path = Path.of(out);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+        System.out.println("Report written to " + path.toAbsolutePath());
+    }
+
+    private Map<String, Recorder> run(int worker, SplittableRandom random, long measureFrom, long stopAt)
+            throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        login(client, DataGenerator.userName(worker % users));
+        Map<String, Recorder> recorders = new LinkedHashMap<>();
+        mix.keySet().forEach(name -> recorders.put(name, new Recorder()));
+        while (System.nanoTime() < stopAt) {
+            String endpoint = pick(random);
+            HttpRequest request = request(endpoint, random);
+            long started = System.nanoTime();
+            boolean ok;
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                ok = isSuccess(response);
+            } catch (IOException e) {
+                ok = false;
+            }
+            long finished = System.nanoTime();
+            if (started >= measureFrom && finished <= stopAt) {
+                recorders.get(endpoint).record(finished - started, ok);
+            }
+        }
+        return recorders;
+    }
+
+    private void login(HttpClient client, String user) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(form("/login", Map.of("id", user, "password", user)),
+                HttpResponse.BodyHandlers.discarding());
+        // A successful login redirects to "/"; a failed one re-renders the form with 200.
+        if (response.statusCode() != 302) {
+            throw new IllegalStateException("Login failed for " + user + " (status " + response.statusCode()
+                    + "). Run DataGenerator first.");
+        }
+    }
+
+    private HttpRequest request(String endpoint, SplittableRandom random) {
+        long postId = randomPostId(random);
+        return switch (endpoint) {
+            case "timeline" -> get("/");
+            case "search" -> get("/search?query=" + encode(SyntheticText.searchTerm(random)));
+            case "detail" -> get("/posts/" + postId);
+            case "feed" -> get("/notifications/feed");
+            case "like" -> form("/posts/" + postId + (random.nextBoolean() ? "/like" : "/unlike"), Map.of());
+            case "comment" -> form("/comments", Map.of(
+                    "postId", Long.toString(postId),
+                    "content", SyntheticText.sentences(random, 1)));
+            default -> throw new IllegalArgumentException("Unknown endpoint in mix: " + endpoint);
+        };
+    }
+
+    /**
+     * Popular posts get most of the traffic: the id is drawn from the newest posts with a square-law skew.
+     */
+    private long randomPostId(SplittableRandom random) {
+        double u = random.nextDouble();
+        return firstPostId + posts - 1 - (long) (u * u * posts);
+    }
+
+    private String pick(SplittableRandom random) {
+        int roll = random.nextInt(totalWeight);
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private static boolean isSuccess(HttpResponse<?> response) {
+        int status = response.statusCode();
+        if (status >= 400) {
+            return false;
+        }
+        return response.headers().firstValue("Location").map(l -> !l.endsWith("/login")).orElse(true);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(baseUrl.resolve(path)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private HttpRequest form(String path, Map<String, String> fields) {
+        StringBuilder body = new StringBuilder();
+        fields.forEach((name, value) -> {
+            if (body.length() > 0) {
+                body.append('&');
+            }
+            body.append(encode(name)).append('=').append(encode(value));
+        });
+        return HttpRequest.newBuilder(baseUrl.resolve(path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split("=");
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight > 0) {
+                mix.put(kv[0].trim(), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("--mix needs at least one endpoint with a positive weight");
+        }
+        return mix;
+    }
+
+    private static Map<String, Object> report(Map<String, Recorder> recorders, Duration duration) {
+        double seconds = duration.toMillis() / 1000.0;
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        long total = 0;
+        long errors = 0;
+        System.out.printf("%n%-10s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+            Recorder r = entry.getValue();
+            long[] sorted = r.sorted();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("requests", sorted.length);
+            row.put("errors", r.errors);
+            row.put("throughput", sorted.length / seconds);
+            row.put("p50Ms", percentileMillis(sorted, 0.50));
+            row.put("p90Ms", percentileMillis(sorted, 0.90));
+            row.put("p99Ms", percentileMillis(sorted, 0.99));
+            row.put("maxMs", percentileMillis(sorted, 1.0));
+            endpoints.put(entry.getKey(), row);
+            total += sorted.length;
+            errors += r.errors;
+            System.out.printf("%-10s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n", entry.getKey(), sorted.length, r.errors,
+                    sorted.length / seconds, percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.90),
+                    percentileMillis(sorted, 0.99), percentileMillis(sorted, 1.0));
+        }
+        System.out.printf("%-10s %9d %7d %9.1f%n", "total", total, errors, total / seconds);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("durationSeconds", seconds);
+        report.put("requests", total);
+        report.put("errors", errors);
+        report.put("throughput", total / seconds);
+        report.put("endpoints", endpoints);
+        return report;
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    /**
+     * Raw latencies of one endpoint; per worker while running, merged once at the end.
+     */
+    private static final class Recorder {
+        private long[] nanos = new long[1024];
+        private int size;
+        private long errors;
+
+        void record(long latency, boolean ok) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = latency;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void merge(Recorder other) {
+            for (int i = 0; i < other.size; i++) {
+                record(other.nanos[i], true);
+            }
+            errors += other.errors;
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(nanos, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
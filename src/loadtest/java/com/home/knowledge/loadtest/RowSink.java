@@ -0,0 +1,141 @@
+package com.home.knowledge.loadtest;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collections;
+
+/**
+ * Bulk row writer for one table: {@code COPY ... FROM STDIN} on PostgreSQL, JDBC batches elsewhere.
+ */
+abstract class RowSink implements AutoCloseable {
+    private long rows;
+
+    static RowSink open(Connection connection, String table, String... columns) throws SQLException {
+        if (connection.isWrapperFor(PGConnection.class)) {
+            return new Copy(connection, table, columns);
+        }
+        return new Batch(connection, table, columns);
+    }
+
+    final void add(Object... values) throws SQLException {
+        write(values);
+        rows++;
+    }
+
+    final long rows() {
+        return rows;
+    }
+
+    abstract void write(Object[] values) throws SQLException;
+
+    @Override
+    public abstract void close() throws SQLException;
+
+    private static final class Batch extends RowSink {
+        private static final int BATCH_SIZE = 1000;
+        private final Connection connection;
+        private final PreparedStatement statement;
+        private int pending;
+
+        Batch(Connection connection, String table, String[] columns) throws SQLException {
+            this.connection = connection;
+            String placeholders = String.join(", ", Collections.nCopies(columns.length, "?"));
+            this.statement = connection.prepareStatement(
+                    "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES (" + placeholders + ")");
+        }
+
+        @Override
+        void write(Object[] values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            statement.addBatch();
+            if (++pending == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            statement.executeBatch();
+            connection.commit();
+            pending = 0;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (pending > 0) {
+                    flush();
+                }
+            } finally {
+                statement.close();
+            }
+        }
+    }
+
+    private static final class Copy extends RowSink {
+        private static final int BUFFER_CHARS = 64 * 1024;
+        private final Connection connection;
+        private final CopyIn copy;
+        private final StringBuilder buffer = new StringBuilder(BUFFER_CHARS + 4096);
+
+        Copy(Connection connection, String table, String[] columns) throws SQLException {
+            this.connection = connection;
+            this.copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(
+                    "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)");
+        }
+
+        @Override
+        void write(Object[] values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                appendCsv(values[i]);
+            }
+            buffer.append('\n');
+            if (buffer.length() >= BUFFER_CHARS) {
+                flush();
+            }
+        }
+
+        private void appendCsv(Object value) {
+            if (value == null) {
+                return;
+            }
+            if (value instanceof Number) {
+                buffer.append(value);
+                return;
+            }
+            String text = value instanceof Timestamp ts ? ts.toString() : value.toString();
+            buffer.append('"').append(text.replace("\"", "\"\"")).append('"');
+        }
+
+        private void flush() throws SQLException {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copy.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (buffer.length() > 0) {
+                    flush();
+                }
+                copy.endCopy();
+            } finally {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+            }
+            connection.commit();
+        }
+    }
+}
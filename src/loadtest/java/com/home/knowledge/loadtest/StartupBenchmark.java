@@ -0,0 +1,165 @@
+package com.home.knowledge.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the application repeatedly and records time-to-first-request and resident memory per launch
+ * variant, for comparing the plain jar with the {@code fast-startup} build (Spring AOT and CDS).
+ * <p>
+ * Time-to-first-request runs from spawning the JVM to the first successful {@code GET /login}, which
+ * renders a template and so goes through the whole web stack. Resident memory is read right after that
+ * request, from {@code /proc/<pid>/status} on Linux or {@code ps} elsewhere. Each launch gets its own
+ * in-memory H2 database unless {@code --datasource-url} is given.
+ */
+public final class StartupBenchmark {
+    private static final Map<String, List<String>> VARIANTS = Map.of(
+            "plain", List.of(),
+            "aot", List.of("-Dspring.aot.enabled=true"),
+            "aot-cds", List.of("-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=application.jsa"));
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args);
+        Path dir = Path.of(options.string("dir", "target/fast-startup"));
+        String jar = options.string("jar", "knowledge-0.0.1-SNAPSHOT.jar");
+        List<String> variants = Arrays.asList(options.string("variants", "plain,aot,aot-cds").split(","));
+        int runs = options.integer("runs", 5);
+        int port = options.integer("port", 18080);
+        Duration timeout = options.duration("timeout", Duration.ofSeconds(120));
+        String datasourceUrl = options.string("datasource-url", null);
+        List<String> jvmArgs = Arrays.asList(options.string("jvm-args", "-Xmx512m").split(" "));
+        if (!Files.exists(dir.resolve(jar))) {
+            throw new IllegalArgumentException(dir.resolve(jar) + " not found. Build it with ./mvnw -Pfast-startup package");
+        }
+
+        System.out.printf("Starting %s %d times per variant %s%n", dir.resolve(jar), runs, variants);
+        Map<String, Object> report = new LinkedHashMap<>();
+        System.out.printf("%n%-8s %14s %14s %12s %12s%n", "variant", "p50 ttfr ms", "max ttfr ms", "p50 rss MB", "max rss MB");
+        for (String variant : variants) {
+            List<String> flags = VARIANTS.get(variant.trim());
+            if (flags == null) {
+                throw new IllegalArgumentException("Unknown variant: " + variant + " (plain, aot, aot-cds)");
+            }
+            long[] ttfr = new long[runs];
+            long[] rss = new long[runs];
+            for (int i = 0; i < runs; i++) {
+                List<String> command = new ArrayList<>();
+                command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+                command.addAll(jvmArgs);
+                command.addAll(flags);
+                command.add("-jar");
+                command.add(jar);
+                command.add("--server.port=" + port);
+                command.add("--spring.datasource.url=" + (datasourceUrl != null ? datasourceUrl
+                        : "jdbc:h2:mem:startup-" + i + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1"));
+                if (datasourceUrl == null) {
+                    command.add("--spring.datasource.username=sa");
+                    command.add("--spring.datasource.password=");
+                }
+                Launch launch = launch(command, dir, port, timeout);
+                ttfr[i] = launch.ttfrMillis();
+                rss[i] = launch.rssKb();
+            }
+            Arrays.sort(ttfr);
+            Arrays.sort(rss);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("runs", runs);
+            row.put("ttfrMs", ttfr);
+            row.put("rssKb", rss);
+            row.put("p50TtfrMs", ttfr[runs / 2]);
+            row.put("p50RssKb", rss[runs / 2]);
+            report.put(variant, row);
+            System.out.printf("%-8s %14d %14d %12.1f %12.1f%n", variant, ttfr[runs / 2], ttfr[runs - 1],
+                    rss[runs / 2] / 1024.0, rss[runs - 1] / 1024.0);
+        }
+
+        Path path = Path.of(options.string("report", "target/startup-report.json"));
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+        System.out.println("Report written to " + path.toAbsolutePath());
+    }
+
+    private static Launch launch(List<String> command, Path dir, int port, Duration timeout)
+            throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/login"))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        Path log = Files.createTempFile("startup-benchmark", ".log");
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(dir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            long deadline = started + timeout.toNanos();
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with " + process.exitValue() + ", see " + log);
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("No response within " + timeout + ", see " + log);
+                }
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 200) {
+                        break;
+                    }
+                } catch (ConnectException e) {
+                    // not listening yet
+                }
+                Thread.sleep(10);
+            }
+            long ttfrMillis = (System.nanoTime() - started) / 1_000_000;
+            return new Launch(ttfrMillis, rssKb(process.pid()));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+            Files.deleteIfExists(log);
+        }
+    }
+
+    private static long rssKb(long pid) throws IOException, InterruptedException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (Files.exists(status)) {
+            for (String line : Files.readAllLines(status, StandardCharsets.UTF_8)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        }
+        Process ps = new ProcessBuilder("ps", "-o", "rss=", "-p", Long.toString(pid)).start();
+        String out = new String(ps.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        ps.waitFor();
+        return out.isEmpty() ? -1 : Long.parseLong(out);
+    }
+
+    private record Launch(long ttfrMillis, long rssKb) {
+    }
+}
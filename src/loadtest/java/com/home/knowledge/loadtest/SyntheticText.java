@@ -0,0 +1,59 @@
+package com.home.knowledge.loadtest;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic Japanese-looking titles, summaries and Markdown bodies for the generated posts.
+ */
+final class SyntheticText {
+    private static final String[] SENTENCES = {
+            "補聴器の調整は子供の成長に合わせて定期的に見直すことが大切です。",
+            "図1に示すように、言語発達の時期には聞こえの環境が大きく影響します。",
+            "専門家によると、早期の療育は3歳までに始めると効果が高いとされています。",
+            "学校との連携では、座席の位置やFMシステムの活用が話し合われました。",
+            "保護者の会では、日常生活で使える工夫がいくつも紹介されています。",
+            "人工内耳の手術後は、リハビリテーションに数か月から数年かかることがあります。",
+            "最新の調査では、約60%の家庭が情報不足を課題として挙げていました。",
+            "手話と音声言語を併用する家庭も増えてきています。",
+            "自治体の助成制度は地域によって対象年齢や金額が異なります。",
+            "新しいデータベースの移行では、インデックスの設計が性能を大きく左右しました。",
+            "非同期処理を導入したことで、応答時間のばらつきが小さくなりました。",
+            "キャッシュの無効化は、更新の頻度と読み取りの比率を見て決める必要があります。"
+    };
+    private static final String[] TOPICS = {
+            "補聴器", "療育", "人工内耳", "学校生活", "助成制度", "手話", "データベース", "キャッシュ", "非同期処理", "性能測定"
+    };
+
+    private SyntheticText() {
+    }
+
+    static String title(SplittableRandom random, long id) {
+        return TOPICS[random.nextInt(TOPICS.length)] + "について考える " + id;
+    }
+
+    static String sentences(SplittableRandom random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(SENTENCES[random.nextInt(SENTENCES.length)]);
+        }
+        return text.toString();
+    }
+
+    static String markdown(SplittableRandom random, int sections) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= sections; i++) {
+            text.append("## 見出し").append(i).append("\n\n");
+            text.append(sentences(random, 2 + random.nextInt(4))).append("\n\n");
+            text.append("- **ポイント**: ").append(sentences(random, 1)).append('\n');
+            text.append("- [参考リンク](https://example.com/").append(i).append(")\n\n");
+        }
+        return text.toString();
+    }
+
+    /**
+     * A search term that matches a realistic share of the generated posts.
+     */
+    static String searchTerm(SplittableRandom random) {
+        return TOPICS[random.nextInt(TOPICS.length)];
+    }
+}
@@ -1,12 +1,19 @@
 package com.home.knowledge;
 
+import com.home.knowledge.export.ExportCli;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Arrays;
+
 @SpringBootApplication
 public class KnowledgeApplication {
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws Exception {
+		if (args.length > 0 && "export".equals(args[0])) {
+			ExportCli.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
 		SpringApplication.run(KnowledgeApplication.class, args);
 	}
 
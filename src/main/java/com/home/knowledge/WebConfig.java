@@ -1,6 +1,9 @@
 package com.home.knowledge;
 
+import com.home.knowledge.auth.AuthTokens;
 import com.home.knowledge.auth.LoginInterceptor;
+import com.home.knowledge.ratelimit.RateLimitInterceptor;
+import com.home.knowledge.ratelimit.RateLimiter;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
@@ -8,10 +11,17 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
+    private final AuthTokens authTokens;
+    private final RateLimiter rateLimiter;
+
+    public WebConfig(AuthTokens authTokens, RateLimiter rateLimiter) {
+        this.authTokens = authTokens;
+        this.rateLimiter = rateLimiter;
+    }
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(new LoginInterceptor())
+        registry.addInterceptor(new LoginInterceptor(authTokens))
                 .addPathPatterns("/**")
                 .excludePathPatterns(
                         "/login", "/logout",
@@ -19,6 +29,8 @@ public class WebConfig implements WebMvcConfigurer {
                         "/h2-console/**",
                         "/img/**", "/css/**", "/js/**", "/webjars/**"
                 );
+        registry.addInterceptor(new RateLimitInterceptor(rateLimiter))
+                .addPathPatterns(RateLimiter.Endpoint.PREVIEW.path(), RateLimiter.Endpoint.CREATE.path());
     }
 
     @Override
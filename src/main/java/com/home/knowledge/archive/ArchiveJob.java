@@ -0,0 +1,122 @@
+package com.home.knowledge.archive;
+
+import com.home.knowledge.dedup.SimilarityIndex;
+import com.home.knowledge.related.RelatedPostIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every {@code app.archive.interval}, moves posts older than {@code app.archive.older-than} (0, the
+ * default, disables archiving) with their comments, likes and reads into the archive tables. Works in
+ * transactions of {@code batch-size} posts with {@code batch-pause} in between, so locks on the hot
+ * tables stay short and replicas can keep up.
+ * <p>
+ * Archived posts leave the timeline and the notification queries but stay reachable from the detail
+ * page and search, read-only. Their {@code user_seen_items} rows are left for {@code SeenItemsCompactor}.
+ */
+@Component
+public class ArchiveJob {
+    private static final Logger log = LoggerFactory.getLogger(ArchiveJob.class);
+
+    private final ArchiveRepository archiveRepository;
+    private final SimilarityIndex similarityIndex;
+    private final RelatedPostIndex relatedPostIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration olderThan;
+    private final Duration interval;
+    private final int batchSize;
+    private final Duration batchPause;
+    private ScheduledExecutorService scheduler;
+
+    public ArchiveJob(ArchiveRepository archiveRepository,
+                      SimilarityIndex similarityIndex,
+                      RelatedPostIndex relatedPostIndex,
+                      TransactionTemplate transactionTemplate,
+                      @Value("${app.archive.older-than:0}") Duration olderThan,
+                      @Value("${app.archive.interval:1d}") Duration interval,
+                      @Value("${app.archive.batch-size:200}") int batchSize,
+                      @Value("${app.archive.batch-pause:500ms}") Duration batchPause) {
+        this.archiveRepository = archiveRepository;
+        this.similarityIndex = similarityIndex;
+        this.relatedPostIndex = relatedPostIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.olderThan = olderThan;
+        this.interval = interval;
+        this.batchSize = Math.max(1, batchSize);
+        this.batchPause = batchPause;
+    }
+
+    @PostConstruct
+    void start() {
+        if (olderThan.isZero() || olderThan.isNegative() || interval.isZero() || interval.isNegative()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "archive-job");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::runSafely, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Archives everything older than {@code olderThan}, one batch at a time.
+     *
+     * @return the number of posts archived
+     */
+    public int archive(Duration olderThan) throws InterruptedException {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(olderThan));
+        int archived = 0;
+        while (true) {
+            List<Long> ids = transactionTemplate.execute(status -> archiveRepository.archiveBatch(cutoff, batchSize));
+            if (ids == null || ids.isEmpty()) {
+                return archived;
+            }
+            for (long id : ids) {
+                similarityIndex.remove(id);
+                relatedPostIndex.postDeleted(id);
+            }
+            archived += ids.size();
+            if (ids.size() < batchSize) {
+                return archived;
+            }
+            Thread.sleep(batchPause.toMillis());
+        }
+    }
+
+    private void runSafely() {
+        try {
+            long started = System.nanoTime();
+            int archived = archive(olderThan);
+            if (archived > 0) {
+                log.info("Archived {} posts older than {} in {} ms", archived, olderThan,
+                        (System.nanoTime() - started) / 1_000_000);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Archiving failed; retrying in {}", interval, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
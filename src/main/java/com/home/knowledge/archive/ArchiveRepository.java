@@ -0,0 +1,65 @@
+package com.home.knowledge.archive;
+
+import com.home.knowledge.cache.ContentVersions;
+import com.home.knowledge.jdbc.BatchedLookup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Moves posts together with their comments, likes and reads into the {@code *_archive} tables.
+ * A post and its engagement rows always move in the same batch, so joins within the live tables
+ * (and within the archive) stay complete.
+ */
+@Repository
+public class ArchiveRepository {
+    private final JdbcTemplate jdbcTemplate;
+    private final ContentVersions contentVersions;
+    private final BatchedLookup batchedLookup;
+
+    public ArchiveRepository(JdbcTemplate jdbcTemplate, ContentVersions contentVersions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.contentVersions = contentVersions;
+        this.batchedLookup = new BatchedLookup(jdbcTemplate);
+    }
+
+    /**
+     * Archives up to {@code limit} of the oldest posts created before {@code cutoff}. Must run in a
+     * transaction: the selected posts stay locked until commit, which holds off comments, likes and
+     * reads that would otherwise be inserted between the copy and the delete.
+     *
+     * @return ids of the archived posts
+     */
+    public List<Long> archiveBatch(Timestamp cutoff, int limit) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM posts WHERE created_at < ? ORDER BY created_at, id LIMIT ? FOR UPDATE",
+                Long.class, cutoff, limit);
+        if (ids.isEmpty()) {
+            return ids;
+        }
+        // The primary key is each table's only unique constraint, so no conflict target is needed;
+        // H2, which the tests run on, only accepts ON CONFLICT DO NOTHING without one.
+        batchedLookup.update("INSERT INTO posts_archive (id, username, title, content, image_url, link_url, summary, created_at)"
+                + " SELECT id, username, title, content, image_url, link_url, summary, created_at FROM posts WHERE id = ANY(?)"
+                + " ON CONFLICT DO NOTHING", ids);
+        batchedLookup.update("INSERT INTO comments_archive (id, post_id, username, content, created_at)"
+                + " SELECT id, post_id, username, content, created_at FROM comments WHERE post_id = ANY(?)"
+                + " ON CONFLICT DO NOTHING", ids);
+        batchedLookup.update("INSERT INTO likes_archive (post_id, username, created_at)"
+                + " SELECT post_id, username, created_at FROM likes WHERE post_id = ANY(?)"
+                + " ON CONFLICT DO NOTHING", ids);
+        batchedLookup.update("INSERT INTO reads_archive (post_id, username, read_at)"
+                + " SELECT post_id, username, read_at FROM reads WHERE post_id = ANY(?)"
+                + " ON CONFLICT DO NOTHING", ids);
+        // Children first so the cascades on posts have nothing left to find.
+        batchedLookup.update("DELETE FROM comments WHERE post_id = ANY(?)", ids);
+        batchedLookup.update("DELETE FROM likes WHERE post_id = ANY(?)", ids);
+        batchedLookup.update("DELETE FROM reads WHERE post_id = ANY(?)", ids);
+        batchedLookup.update("DELETE FROM posts WHERE id = ANY(?)", ids);
+        ids.forEach(contentVersions::postContentChanged);
+        contentVersions.feedChanged();
+        return ids;
+    }
+}
@@ -0,0 +1,158 @@
+package com.home.knowledge.auth;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * HMAC-SHA256 signed values for stateless login: the {@code auth} cookie carries
+ * {@code base64url(user).expiresAtEpochSecond.signature} and is checked on every request without
+ * touching the servlet session.
+ * <p>
+ * All instances behind a balancer must share {@code app.auth.secret}. Without one a random key is
+ * generated, so logins are lost on restart and are only valid on this instance.
+ */
+@Component
+public class AuthTokens {
+    public static final String COOKIE = "auth";
+    public static final String LOGIN_USER = "loginUser";
+
+    private static final Logger log = LoggerFactory.getLogger(AuthTokens.class);
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final Clock clock;
+    private final ThreadLocal<Mac> macs;
+
+    @Autowired
+    public AuthTokens(@Value("${app.auth.secret:}") String secret,
+                      @Value("${app.auth.token-ttl:30d}") Duration ttl) {
+        this(secret, ttl, Clock.systemUTC());
+    }
+
+    AuthTokens(String secret, Duration ttl, Clock clock) {
+        byte[] keyBytes;
+        if (StringUtils.hasText(secret)) {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        } else {
+            log.warn("app.auth.secret is not set; using a random key, logins will not survive a restart");
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.ttl = ttl;
+        this.clock = clock;
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public Duration ttl() {
+        return ttl;
+    }
+
+    /**
+     * Returns a login token for {@code user} that expires after {@code app.auth.token-ttl}.
+     */
+    public String issue(String user) {
+        long expiresAt = clock.instant().plus(ttl).getEpochSecond();
+        return sign(ENCODER.encodeToString(user.getBytes(StandardCharsets.UTF_8)) + "." + expiresAt);
+    }
+
+    /**
+     * Returns the user of a valid, unexpired token, or null.
+     */
+    public String verify(String token) {
+        String payload = unsign(token);
+        if (payload == null) {
+            return null;
+        }
+        int dot = payload.indexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        try {
+            long expiresAt = Long.parseLong(payload.substring(dot + 1));
+            if (clock.instant().getEpochSecond() >= expiresAt) {
+                return null;
+            }
+            return new String(DECODER.decode(payload.substring(0, dot)), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the user of the request's {@code auth} cookie, or null.
+     */
+    public String currentUser(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName()) && StringUtils.hasText(cookie.getValue())) {
+                return verify(cookie.getValue());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Appends a signature to a cookie-safe value.
+     */
+    String sign(String payload) {
+        return payload + "." + ENCODER.encodeToString(mac(payload));
+    }
+
+    /**
+     * Returns the value signed by {@link #sign}, or null when the signature does not match.
+     */
+    String unsign(String signed) {
+        if (signed == null) {
+            return null;
+        }
+        int dot = signed.lastIndexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        String payload = signed.substring(0, dot);
+        byte[] signature;
+        try {
+            signature = DECODER.decode(signed.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return MessageDigest.isEqual(mac(payload), signature) ? payload : null;
+    }
+
+    private byte[] mac(String payload) {
+        return macs.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+}
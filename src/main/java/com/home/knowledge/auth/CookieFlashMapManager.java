@@ -0,0 +1,111 @@
+package com.home.knowledge.auth;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.web.servlet.FlashMap;
+import org.springframework.web.servlet.support.AbstractFlashMapManager;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps flash attributes ("error" messages after a redirect) in a signed cookie instead of the servlet
+ * session, so the redirect target can be served by any instance. Attributes must be JSON-friendly.
+ */
+public class CookieFlashMapManager extends AbstractFlashMapManager {
+    static final String COOKIE = "flash";
+    // The request cookie is stale once this request has updated the maps.
+    private static final String UPDATED_ATTRIBUTE = CookieFlashMapManager.class.getName() + ".UPDATED";
+    // Browsers drop cookies beyond about 4 KB.
+    private static final int MAX_COOKIE_LENGTH = 3800;
+
+    private final AuthTokens authTokens;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public CookieFlashMapManager(AuthTokens authTokens) {
+        this.authTokens = authTokens;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected List<FlashMap> retrieveFlashMaps(HttpServletRequest request) {
+        Object updated = request.getAttribute(UPDATED_ATTRIBUTE);
+        if (updated != null) {
+            return new ArrayList<>((List<FlashMap>) updated);
+        }
+        Cookie cookie = WebUtils.getCookie(request, COOKIE);
+        String json = cookie != null ? authTokens.unsign(cookie.getValue()) : null;
+        if (json == null) {
+            return null;
+        }
+        try {
+            List<StoredFlashMap> stored = objectMapper.readValue(Base64.getUrlDecoder().decode(json),
+                    new TypeReference<List<StoredFlashMap>>() {});
+            List<FlashMap> flashMaps = new ArrayList<>(stored.size());
+            for (StoredFlashMap s : stored) {
+                flashMaps.add(s.toFlashMap());
+            }
+            return flashMaps;
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Override
+    protected void updateFlashMaps(List<FlashMap> flashMaps, HttpServletRequest request, HttpServletResponse response) {
+        request.setAttribute(UPDATED_ATTRIBUTE, new ArrayList<>(flashMaps));
+        String value = "";
+        if (!flashMaps.isEmpty()) {
+            List<StoredFlashMap> stored = flashMaps.stream().map(StoredFlashMap::of).toList();
+            try {
+                value = authTokens.sign(Base64.getUrlEncoder().withoutPadding()
+                        .encodeToString(objectMapper.writeValueAsString(stored).getBytes(StandardCharsets.UTF_8)));
+            } catch (IOException e) {
+                throw new IllegalStateException("Flash attributes must be serializable to JSON", e);
+            }
+            if (value.length() > MAX_COOKIE_LENGTH) {
+                logger.warn("Dropping flash attributes that do not fit in a cookie: " + flashMaps);
+                value = "";
+            }
+        }
+        if (value.isEmpty() && WebUtils.getCookie(request, COOKIE) == null) {
+            return;
+        }
+        Cookie cookie = new Cookie(COOKIE, value);
+        cookie.setHttpOnly(true);
+        cookie.setPath("/");
+        cookie.setMaxAge(value.isEmpty() ? 0 : getFlashMapTimeout());
+        cookie.setAttribute("SameSite", "Lax");
+        response.addCookie(cookie);
+    }
+
+    record StoredFlashMap(String path, Map<String, List<String>> params, long expiresAt, Map<String, Object> attributes) {
+        static StoredFlashMap of(FlashMap flashMap) {
+            return new StoredFlashMap(flashMap.getTargetRequestPath(), flashMap.getTargetRequestParams(),
+                    flashMap.getExpirationTime(), new LinkedHashMap<>(flashMap));
+        }
+
+        FlashMap toFlashMap() {
+            FlashMap flashMap = new FlashMap();
+            flashMap.setTargetRequestPath(path);
+            if (params != null) {
+                flashMap.addTargetRequestParams(new LinkedMultiValueMap<>(params));
+            }
+            flashMap.setExpirationTime(expiresAt);
+            if (attributes != null) {
+                flashMap.putAll(attributes);
+            }
+            return flashMap;
+        }
+    }
+}
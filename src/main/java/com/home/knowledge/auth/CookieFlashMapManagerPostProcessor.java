@@ -0,0 +1,26 @@
+package com.home.knowledge.auth;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.FlashMapManager;
+
+/**
+ * Replaces the session-backed {@link FlashMapManager} that Spring MVC registers by default.
+ */
+@Component
+public class CookieFlashMapManagerPostProcessor implements BeanPostProcessor {
+    private final ObjectProvider<AuthTokens> authTokens;
+
+    public CookieFlashMapManagerPostProcessor(ObjectProvider<AuthTokens> authTokens) {
+        this.authTokens = authTokens;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof FlashMapManager && !(bean instanceof CookieFlashMapManager)) {
+            return new CookieFlashMapManager(authTokens.getObject());
+        }
+        return bean;
+    }
+}
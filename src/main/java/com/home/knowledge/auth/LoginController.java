@@ -2,15 +2,14 @@ package com.home.knowledge.auth;
 
 import com.home.knowledge.notify.NotificationRepository;
 import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.sql.Timestamp;
 import java.time.Instant;
@@ -20,16 +19,18 @@ public class LoginController {
 
     private final UserRepository userRepository;
     private final NotificationRepository notificationRepository;
+    private final AuthTokens authTokens;
 
-    public LoginController(UserRepository userRepository, NotificationRepository notificationRepository) {
+    public LoginController(UserRepository userRepository, NotificationRepository notificationRepository,
+                           AuthTokens authTokens) {
         this.userRepository = userRepository;
         this.notificationRepository = notificationRepository;
+        this.authTokens = authTokens;
     }
 
     @GetMapping("/login")
-    public String loginForm(jakarta.servlet.http.HttpSession session) {
-        Object user = session.getAttribute("loginUser");
-        if (user != null) {
+    public String loginForm(HttpServletRequest request) {
+        if (authTokens.currentUser(request) != null) {
             return "redirect:/";
         }
         return "login";
@@ -39,10 +40,8 @@ public class LoginController {
     public String doLogin(
             @RequestParam("id") String id,
             @RequestParam("password") String password,
-            HttpSession session,
             HttpServletResponse response,
-            Model model,
-            RedirectAttributes redirectAttributes
+            Model model
     ) {
         if (!StringUtils.hasText(id) || !StringUtils.hasText(password)) {
             model.addAttribute("error", "ID と パスワードを入力してください");
@@ -53,24 +52,23 @@ public class LoginController {
             return "login";
         }
         String uid = id.trim();
-        session.setAttribute("loginUser", uid);
-        Cookie cookie = new Cookie("isLogin", uid);
-        cookie.setHttpOnly(true);
-        cookie.setPath("/");
-        cookie.setMaxAge(60 * 60 * 24 * 30);
-        response.addCookie(cookie);
+        response.addCookie(authCookie(authTokens.issue(uid), (int) authTokens.ttl().toSeconds()));
         notificationRepository.upsertLastSeen(uid, Timestamp.from(Instant.now()));
-        redirectAttributes.addFlashAttribute("error", null);
         return "redirect:/";
     }
 
     @GetMapping("/logout")
-    public String logout(HttpSession session, HttpServletResponse response) {
-        session.removeAttribute("loginUser");
-        Cookie cookie = new Cookie("isLogin", "");
-        cookie.setPath("/");
-        cookie.setMaxAge(0);
-        response.addCookie(cookie);
+    public String logout(HttpServletResponse response) {
+        response.addCookie(authCookie("", 0));
         return "redirect:/";
     }
+
+    private Cookie authCookie(String value, int maxAge) {
+        Cookie cookie = new Cookie(AuthTokens.COOKIE, value);
+        cookie.setHttpOnly(true);
+        cookie.setPath("/");
+        cookie.setMaxAge(maxAge);
+        cookie.setAttribute("SameSite", "Lax");
+        return cookie;
+    }
 }
@@ -1,38 +1,28 @@
 package com.home.knowledge.auth;
 
-import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 import org.springframework.web.servlet.HandlerInterceptor;
 
+/**
+ * Requires a valid {@code auth} token cookie and exposes its user as the {@code loginUser} request
+ * attribute. No servlet session is created.
+ */
 public class LoginInterceptor implements HandlerInterceptor {
+    private final AuthTokens authTokens;
+
+    public LoginInterceptor(AuthTokens authTokens) {
+        this.authTokens = authTokens;
+    }
+
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        HttpSession session = request.getSession(false);
-        Object user = (session != null) ? session.getAttribute("loginUser") : null;
+        String user = authTokens.currentUser(request);
         if (user == null) {
-            String cookieUser = extractLoginCookie(request.getCookies());
-            if (cookieUser != null) {
-                HttpSession newSession = request.getSession(true);
-                newSession.setAttribute("loginUser", cookieUser);
-                return true;
-            }
             response.sendRedirect("/login");
             return false;
         }
+        request.setAttribute(AuthTokens.LOGIN_USER, user);
         return true;
     }
-
-    private String extractLoginCookie(Cookie[] cookies) {
-        if (cookies == null) {
-            return null;
-        }
-        for (Cookie cookie : cookies) {
-            if ("isLogin".equals(cookie.getName()) && cookie.getValue() != null && !cookie.getValue().isBlank()) {
-                return cookie.getValue();
-            }
-        }
-        return null;
-    }
 }
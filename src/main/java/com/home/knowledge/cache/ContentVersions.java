@@ -0,0 +1,272 @@
+package com.home.knowledge.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * In-memory version counters behind the ETags of the timeline and post detail pages. Repositories bump
+ * them after writes that changed rows; controllers turn them into tags.
+ * <ul>
+ *   <li>post version: edits, comments, likes and reads of one post</li>
+ *   <li>content version: the latest post version of any post (the timeline shows every post)</li>
+ *   <li>feed version: posts and comments created, edited or deleted (the notification header)</li>
+ *   <li>user version: the user's likes, reads, seen items and last-seen time</li>
+ * </ul>
+ * Counters start from zero on every start, so tags carry a boot id. Writes made through this instance are
+ * published on the {@link InvalidationBus}; writes of other instances arrive from it and bump the same
+ * counters; {@link #postContentChanged} additionally tells other instances to re-read the post for their
+ * in-memory indexes. A change reported inside a transaction is applied and published once it commits, so no page is
+ * rendered and tagged under the new version while the old rows are still visible, and nothing is bumped
+ * for a rollback.
+ * <p>
+ * With read replicas, a page read right after a write may still show replica data older than the new
+ * version. Callers check {@link #postSettled}, {@link #postPageSettled} or {@link #timelineSettled}
+ * before storing a tag or rendering under a version; each only waits for the counters its tag is made
+ * of, so a write holds back the pages it touched rather than every page.
+ */
+@Component
+public class ContentVersions {
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    private final String origin = UUID.randomUUID().toString();
+    private final InvalidationBus bus;
+    private volatile String tagPrefix = bootId;
+    private int resets;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong contentVersion = new AtomicLong();
+    private final AtomicLong feedVersion = new AtomicLong();
+    private final Map<Long, Long> postVersions = new ConcurrentHashMap<>();
+    private final Map<String, Long> userVersions = new ConcurrentHashMap<>();
+    private final List<LongConsumer> postListeners = new CopyOnWriteArrayList<>();
+    private final List<LongConsumer> remoteContentListeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> resetListeners = new CopyOnWriteArrayList<>();
+    private final Map<Long, Long> postChangedNanos = new ConcurrentHashMap<>();
+    private final Map<String, Long> userChangedNanos = new ConcurrentHashMap<>();
+    private final long settleNanos;
+    private volatile long contentChangedNanos;
+    private volatile long feedChangedNanos;
+    private volatile long resetNanos;
+
+    public ContentVersions() {
+        this(new InProcessInvalidationBus(), "", Duration.ZERO);
+    }
+
+    @Autowired
+    public ContentVersions(InvalidationBus bus,
+                           @Value("${app.datasource.replica.urls:}") String replicaUrls,
+                           @Value("${app.datasource.replica.max-lag:5s}") Duration maxLag) {
+        this.bus = bus;
+        this.settleNanos = replicaUrls.isBlank() ? 0 : maxLag.toNanos();
+        long settledAtStart = System.nanoTime() - settleNanos;
+        this.contentChangedNanos = settledAtStart;
+        this.feedChangedNanos = settledAtStart;
+        this.resetNanos = settledAtStart;
+        bus.subscribe(this::apply);
+    }
+
+    /**
+     * Registers a callback run after every post version bump, e.g. to drop cached renderings.
+     */
+    public void addPostListener(LongConsumer listener) {
+        postListeners.add(listener);
+    }
+
+    /**
+     * Registers a callback run for {@link #postContentChanged} on other instances; this instance's own
+     * changes reach its indexes as {@code DomainEvent}s. Runs on the bus's thread.
+     */
+    public void addRemoteContentListener(LongConsumer listener) {
+        remoteContentListeners.add(listener);
+    }
+
+    /**
+     * Registers a callback run when events from other instances were lost and everything is stale.
+     */
+    public void addResetListener(Runnable listener) {
+        resetListeners.add(listener);
+    }
+
+    public long postVersion(long postId) {
+        return postVersions.getOrDefault(postId, 0L);
+    }
+
+    public void postChanged(long postId) {
+        afterCommit(() -> {
+            bumpPost(postId);
+            bus.publish(Invalidation.post(origin, postId));
+        });
+    }
+
+    /**
+     * {@link #postChanged} for a post created, edited, archived or deleted, or whose stored derived data
+     * changed, so other instances also refresh their in-memory indexes of posts.
+     */
+    public void postContentChanged(long postId) {
+        afterCommit(() -> {
+            bumpPost(postId);
+            bus.publish(Invalidation.content(origin, postId));
+        });
+    }
+
+    public void feedChanged() {
+        afterCommit(() -> {
+            bumpFeed();
+            bus.publish(Invalidation.feed(origin));
+        });
+    }
+
+    public void userChanged(String username) {
+        if (username != null) {
+            afterCommit(() -> {
+                bumpUser(username);
+                bus.publish(Invalidation.user(origin, username));
+            });
+        }
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    private void apply(Invalidation invalidation) {
+        if (origin.equals(invalidation.origin())) {
+            return;
+        }
+        switch (invalidation.kind()) {
+            case POST -> bumpPost(invalidation.postId());
+            case CONTENT -> {
+                bumpPost(invalidation.postId());
+                remoteContentListeners.forEach(listener -> listener.accept(invalidation.postId()));
+            }
+            case FEED -> bumpFeed();
+            case USER -> bumpUser(invalidation.username());
+            case ALL -> reset();
+        }
+    }
+
+    private void bumpPost(long postId) {
+        long version = sequence.incrementAndGet();
+        postVersions.put(postId, version);
+        contentVersion.accumulateAndGet(version, Math::max);
+        if (settleNanos > 0) {
+            long now = System.nanoTime();
+            postChangedNanos.put(postId, now);
+            contentChangedNanos = now;
+        }
+        postListeners.forEach(listener -> listener.accept(postId));
+    }
+
+    private void bumpFeed() {
+        feedVersion.set(sequence.incrementAndGet());
+        feedChangedNanos = System.nanoTime();
+    }
+
+    private void bumpUser(String username) {
+        userVersions.put(username, sequence.incrementAndGet());
+        if (settleNanos > 0) {
+            userChangedNanos.put(username, System.nanoTime());
+        }
+    }
+
+    private synchronized void reset() {
+        resets++;
+        tagPrefix = bootId + "." + resets;
+        resetNanos = System.nanoTime();
+        resetListeners.forEach(Runnable::run);
+    }
+
+    /**
+     * True when the post's version has not moved for the replicas' maximum lag, so every replica shows
+     * the post as of {@link #postVersion}. Always true without replicas.
+     */
+    public boolean postSettled(long postId) {
+        if (settleNanos == 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        return settled(resetNanos, now) && settled(postChangedNanos, postId, now);
+    }
+
+    /**
+     * {@link #postSettled} for everything {@link #postTag} is made of.
+     */
+    public boolean postPageSettled(long postId, String username) {
+        if (settleNanos == 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        return postSettled(postId) && settled(feedChangedNanos, now) && userSettled(username, now);
+    }
+
+    /**
+     * {@link #postSettled} for everything {@link #timelineTag} is made of; any post counts, since the
+     * timeline shows every post.
+     */
+    public boolean timelineSettled(String username) {
+        if (settleNanos == 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        return settled(resetNanos, now) && settled(contentChangedNanos, now) && settled(feedChangedNanos, now)
+                && userSettled(username, now);
+    }
+
+    private boolean userSettled(String username, long now) {
+        return username == null || settled(userChangedNanos, username, now);
+    }
+
+    private boolean settled(long changedNanos, long now) {
+        return now - changedNanos >= settleNanos;
+    }
+
+    /**
+     * Drops the key once it has settled, so the maps only keep recent writes that nobody checked yet.
+     */
+    private <K> boolean settled(Map<K, Long> changedNanos, K key, long now) {
+        Long changed = changedNanos.get(key);
+        if (changed == null) {
+            return true;
+        }
+        if (!settled(changed, now)) {
+            return false;
+        }
+        changedNanos.remove(key, changed);
+        return true;
+    }
+
+    public String timelineTag(String username) {
+        return tagPrefix + "-t" + contentVersion.get() + "." + feedVersion.get() + userPart(username);
+    }
+
+    public String postTag(long postId, String username) {
+        return tagPrefix + "-p" + postId + "." + postVersion(postId) + "." + feedVersion.get()
+                + userPart(username);
+    }
+
+    private String userPart(String username) {
+        if (username == null) {
+            return "";
+        }
+        return "." + userVersions.getOrDefault(username, 0L) + "." + Integer.toHexString(username.hashCode());
+    }
+}
@@ -0,0 +1,23 @@
+package com.home.knowledge.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers events synchronously within the JVM. Enough for a single instance, and lets tests run
+ * several {@link ContentVersions} "instances" against one bus.
+ */
+public class InProcessInvalidationBus implements InvalidationBus {
+    private final List<Consumer<Invalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public synchronized void publish(Invalidation invalidation) {
+        subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+    }
+
+    @Override
+    public void subscribe(Consumer<Invalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+}
@@ -0,0 +1,48 @@
+package com.home.knowledge.cache;
+
+/**
+ * A write seen by one instance that other instances must reflect in their caches.
+ *
+ * @param origin   id of the publishing instance, which has already applied the event
+ * @param kind     what changed
+ * @param postId   the post for {@link Kind#POST} and {@link Kind#CONTENT}
+ * @param username the user for {@link Kind#USER}
+ */
+public record Invalidation(String origin, Kind kind, Long postId, String username) {
+
+    public enum Kind {
+        /** Edits, comments, likes and reads of one post. */
+        POST,
+        /**
+         * One post created, edited, archived or deleted, or its stored derived data (such as the article
+         * signature) saved; instances re-read the post for their in-memory indexes. Implies {@link #POST}.
+         */
+        CONTENT,
+        /** Posts or comments created, edited or deleted. */
+        FEED,
+        /** A user's likes, reads, seen items or last-seen time. */
+        USER,
+        /** Events were lost; drop everything. */
+        ALL
+    }
+
+    public static Invalidation post(String origin, long postId) {
+        return new Invalidation(origin, Kind.POST, postId, null);
+    }
+
+    public static Invalidation content(String origin, long postId) {
+        return new Invalidation(origin, Kind.CONTENT, postId, null);
+    }
+
+    public static Invalidation feed(String origin) {
+        return new Invalidation(origin, Kind.FEED, null, null);
+    }
+
+    public static Invalidation user(String origin, String username) {
+        return new Invalidation(origin, Kind.USER, null, username);
+    }
+
+    public static Invalidation all(String origin) {
+        return new Invalidation(origin, Kind.ALL, null, null);
+    }
+}
@@ -0,0 +1,14 @@
+package com.home.knowledge.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries {@link Invalidation}s between instances. Subscribers receive every event in publication
+ * order, including their own instance's, and skip those by {@link Invalidation#origin()}.
+ */
+public interface InvalidationBus {
+
+    void publish(Invalidation invalidation);
+
+    void subscribe(Consumer<Invalidation> subscriber);
+}
@@ -0,0 +1,39 @@
+package com.home.knowledge.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+/**
+ * Picks the {@link InvalidationBus} by {@code app.cache.invalidation.mode}: {@code in-process} (the
+ * default, one instance) or {@code postgres} (several instances on one PostgreSQL primary).
+ */
+@Configuration
+public class InvalidationBusConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.invalidation.mode", havingValue = "in-process", matchIfMissing = true)
+    public InvalidationBus inProcessInvalidationBus() {
+        return new InProcessInvalidationBus();
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(name = "app.cache.invalidation.mode", havingValue = "postgres")
+    public InvalidationBus postgresInvalidationBus(JdbcTemplate jdbcTemplate,
+                                                   PlatformTransactionManager transactionManager,
+                                                   DataSourceProperties properties,
+                                                   @Value("${app.cache.invalidation.poll-interval:5s}") Duration pollInterval,
+                                                   @Value("${app.cache.invalidation.gap-grace:10s}") Duration gapGrace,
+                                                   @Value("${app.cache.invalidation.retention:1h}") Duration retention) {
+        DriverManagerDataSource listener = new DriverManagerDataSource(properties.determineUrl(),
+                properties.determineUsername(), properties.determinePassword());
+        return new PostgresInvalidationBus(jdbcTemplate, transactionManager, listener, pollInterval, gapGrace, retention);
+    }
+}
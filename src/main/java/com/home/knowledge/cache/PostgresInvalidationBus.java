@@ -0,0 +1,203 @@
+package com.home.knowledge.cache;
+
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Shares invalidations between instances through the {@code cache_invalidations} table and
+ * PostgreSQL {@code LISTEN/NOTIFY}.
+ * <p>
+ * Publishing inserts the event and notifies {@value #CHANNEL} in one statement, in a transaction of its
+ * own, so a failed publish never aborts the caller's work. {@link ContentVersions} publishes only once the
+ * write has committed, so other instances never hear about rows they cannot read yet. The notification only
+ * wakes the listeners up: each instance reads the table from the last sequence number it applied, so
+ * events are applied in order and nothing is lost while the listener reconnects or a notification is
+ * dropped. The table is also polled every {@code poll-interval}. A gap in the sequence is first assumed
+ * to be a concurrent insert that has not committed yet; if it is still open after {@code gap-grace}
+ * (the event was pruned or never committed) subscribers get {@link Invalidation.Kind#ALL}.
+ */
+public class PostgresInvalidationBus implements InvalidationBus {
+    static final String CHANNEL = "cache_invalidation";
+    static final String GAP_ORIGIN = "gap";
+    private static final int BATCH = 500;
+    private static final Logger log = LoggerFactory.getLogger(PostgresInvalidationBus.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate publishTransaction;
+    private final DataSource listenerDataSource;
+    private final Duration pollInterval;
+    private final Duration gapGrace;
+    private final Duration retention;
+    private final List<Consumer<Invalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private Thread listener;
+    private long lastSeq;
+    private long gapSinceNanos = -1;
+    private long lastPruneNanos;
+
+    /**
+     * @param listenerDataSource unpooled; the listener keeps one connection open for {@code LISTEN}
+     */
+    public PostgresInvalidationBus(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                   DataSource listenerDataSource,
+                                   Duration pollInterval, Duration gapGrace, Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Called from afterCommit, which still runs on the finished transaction's connection.
+        this.publishTransaction = new TransactionTemplate(transactionManager);
+        this.publishTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.listenerDataSource = listenerDataSource;
+        this.pollInterval = pollInterval;
+        this.gapGrace = gapGrace;
+        this.retention = retention;
+    }
+
+    @Override
+    public void publish(Invalidation invalidation) {
+        try {
+            publishTransaction.executeWithoutResult(status -> jdbcTemplate.query("WITH e AS (INSERT INTO cache_invalidations (origin, kind, post_id, username) "
+                            + "VALUES (?, ?, ?, ?) RETURNING seq) SELECT pg_notify('" + CHANNEL + "', seq::text) FROM e",
+                    rs -> {
+                    },
+                    invalidation.origin(), invalidation.kind().name(), invalidation.postId(), invalidation.username()));
+        } catch (DataAccessException e) {
+            // The write itself is committed; other instances keep stale entries until the next change.
+            log.warn("Could not publish {}", invalidation, e);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<Invalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public synchronized void start() {
+        // Caches start empty, so older events do not matter.
+        lastSeq = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(seq), 0) FROM cache_invalidations", Long.class);
+        running = true;
+        listener = new Thread(this::listen, "cache-invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+            listener.join(pollInterval.toMillis() + 1000);
+        }
+    }
+
+    private void listen() {
+        long backoffMillis = 1000;
+        while (running) {
+            try (Connection connection = listenerDataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                backoffMillis = 1000;
+                while (running) {
+                    while (poll(connection) == BATCH) {
+                        // keep draining
+                    }
+                    pruneIfDue(connection);
+                    // Returns on the first notification or after the interval; either way the table is read.
+                    pg.getNotifications((int) pollInterval.toMillis());
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Invalidation listener lost its connection; retrying in {} ms", backoffMillis, e);
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoffMillis = Math.min(backoffMillis * 2, 30_000);
+            }
+        }
+    }
+
+    /**
+     * Applies the events after the last applied sequence number, in order, stopping at a gap until it
+     * closes or times out. Returns the number of events read.
+     */
+    int poll(Connection connection) throws SQLException {
+        int read = 0;
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT seq, origin, kind, post_id, username FROM cache_invalidations WHERE seq > ? ORDER BY seq LIMIT " + BATCH)) {
+            statement.setLong(1, lastSeq);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    long seq = rs.getLong("seq");
+                    if (seq != lastSeq + 1) {
+                        if (!gapExpired()) {
+                            return read;
+                        }
+                        log.warn("Invalidations {}..{} are missing; dropping all cached entries", lastSeq + 1, seq - 1);
+                        deliver(Invalidation.all(GAP_ORIGIN));
+                    }
+                    gapSinceNanos = -1;
+                    deliver(new Invalidation(rs.getString("origin"), Invalidation.Kind.valueOf(rs.getString("kind")),
+                            rs.getObject("post_id", Long.class), rs.getString("username")));
+                    lastSeq = seq;
+                    read++;
+                }
+            }
+        }
+        return read;
+    }
+
+    private boolean gapExpired() {
+        long now = System.nanoTime();
+        if (gapSinceNanos < 0) {
+            gapSinceNanos = now;
+        }
+        return now - gapSinceNanos >= gapGrace.toNanos();
+    }
+
+    private void deliver(Invalidation invalidation) {
+        for (Consumer<Invalidation> subscriber : subscribers) {
+            try {
+                subscriber.accept(invalidation);
+            } catch (RuntimeException e) {
+                log.warn("Invalidation subscriber failed on {}", invalidation, e);
+            }
+        }
+    }
+
+    private void pruneIfDue(Connection connection) throws SQLException {
+        long now = System.nanoTime();
+        if (lastPruneNanos != 0 && now - lastPruneNanos < Duration.ofMinutes(1).toNanos()) {
+            return;
+        }
+        lastPruneNanos = now;
+        try (PreparedStatement statement = connection.prepareStatement(
+                "DELETE FROM cache_invalidations WHERE created_at < ?")) {
+            statement.setTimestamp(1, Timestamp.from(Instant.now().minus(retention)));
+            statement.executeUpdate();
+        }
+    }
+}
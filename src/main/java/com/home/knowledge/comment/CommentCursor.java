@@ -0,0 +1,42 @@
+package com.home.knowledge.comment;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Position of a comment in a post's thread, ordered by {@code (created_at, id)}. Encoded for URLs as
+ * {@code <epoch microseconds>_<id>}; timestamps are stored with microsecond precision.
+ */
+public record CommentCursor(Instant createdAt, long id) {
+
+    /** Before the first comment of any thread. */
+    public static final CommentCursor START = new CommentCursor(Instant.EPOCH, 0);
+
+    public static CommentCursor of(Comment comment) {
+        return new CommentCursor(comment.getCreatedAt(), comment.getId());
+    }
+
+    /**
+     * Parses {@link #encode()} output; null for anything else.
+     */
+    public static CommentCursor parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        int sep = value.indexOf('_');
+        if (sep <= 0) {
+            return null;
+        }
+        try {
+            long micros = Long.parseLong(value.substring(0, sep));
+            long id = Long.parseLong(value.substring(sep + 1));
+            return new CommentCursor(Instant.EPOCH.plus(micros, ChronoUnit.MICROS), id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public String encode() {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, createdAt) + "_" + id;
+    }
+}
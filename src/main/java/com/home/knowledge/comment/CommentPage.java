@@ -0,0 +1,19 @@
+package com.home.knowledge.comment;
+
+import java.util.List;
+
+/**
+ * A slice of a post's comments, oldest first.
+ *
+ * @param hasMore whether further comments exist in the direction the slice was read
+ */
+public record CommentPage(List<Comment> comments, boolean hasMore) {
+
+    public CommentCursor oldest() {
+        return comments.isEmpty() ? null : CommentCursor.of(comments.get(0));
+    }
+
+    public CommentCursor newest() {
+        return comments.isEmpty() ? null : CommentCursor.of(comments.get(comments.size() - 1));
+    }
+}
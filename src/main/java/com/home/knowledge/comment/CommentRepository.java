@@ -1,10 +1,13 @@
 package com.home.knowledge.comment;
 
+import com.home.knowledge.cache.ContentVersions;
+import com.home.knowledge.jdbc.BatchedLookup;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.PreparedStatement;
 import java.sql.Timestamp;
@@ -14,6 +17,8 @@ import java.util.*;
 @Repository
 public class CommentRepository {
     private final JdbcTemplate jdbcTemplate;
+    private final ContentVersions contentVersions;
+    private final BatchedLookup batchedLookup;
 
     private final RowMapper<Comment> rowMapper = (rs, rowNum) -> new Comment(
             rs.getLong("id"),
@@ -23,8 +28,10 @@ public class CommentRepository {
             rs.getTimestamp("created_at").toInstant()
     );
 
-    public CommentRepository(JdbcTemplate jdbcTemplate) {
+    public CommentRepository(JdbcTemplate jdbcTemplate, ContentVersions contentVersions) {
         this.jdbcTemplate = jdbcTemplate;
+        this.contentVersions = contentVersions;
+        this.batchedLookup = new BatchedLookup(jdbcTemplate);
     }
 
     public Comment save(long postId, String username, String content) {
@@ -41,51 +48,118 @@ public class CommentRepository {
         }, kh);
         Number key = kh.getKey();
         long id = key != null ? key.longValue() : -1L;
+        contentVersions.postChanged(postId);
+        contentVersions.feedChanged();
         return new Comment(id, postId, username, content, now);
     }
 
+    @Transactional(readOnly = true)
     public Map<Long, List<Comment>> findByPostIds(Collection<Long> postIds) {
         Map<Long, List<Comment>> map = new HashMap<>();
         if (postIds == null || postIds.isEmpty()) return map;
 
-        String inSql = String.join(",", Collections.nCopies(postIds.size(), "?"));
-        String sql = "SELECT id, post_id, username, content, created_at FROM comments WHERE post_id IN (" + inSql + ") ORDER BY created_at ASC, id ASC";
-        List<Object> args = new ArrayList<>(postIds);
-        jdbcTemplate.query(sql, rowMapper, args.toArray()).forEach(c -> {
+        String sql = "SELECT id, post_id, username, content, created_at FROM comments WHERE post_id = ANY(?) ORDER BY created_at ASC, id ASC";
+        batchedLookup.query(sql, postIds, rowMapper).forEach(c -> {
             map.computeIfAbsent(c.getPostId(), k -> new ArrayList<>()).add(c);
         });
         return map;
     }
 
-    public List<Comment> findByPostId(long postId) {
-        String sql = "SELECT id, post_id, username, content, created_at FROM comments WHERE post_id = ? ORDER BY created_at ASC, id ASC";
-        return jdbcTemplate.query(sql, rowMapper, postId);
+    /**
+     * The newest {@code limit} comments of a post; {@code archived} reads {@code comments_archive}.
+     */
+    @Transactional(readOnly = true)
+    public CommentPage findLatest(long postId, boolean archived, int limit) {
+        String sql = "SELECT id, post_id, username, content, created_at FROM " + table(archived) + " WHERE post_id = ? "
+                + "ORDER BY created_at DESC, id DESC LIMIT ?";
+        return oldestFirst(jdbcTemplate.query(sql, rowMapper, postId, limit + 1), limit);
     }
 
+    /**
+     * Up to {@code limit} comments right before {@code cursor}.
+     */
+    @Transactional(readOnly = true)
+    public CommentPage findBefore(long postId, boolean archived, CommentCursor cursor, int limit) {
+        String sql = "SELECT id, post_id, username, content, created_at FROM " + table(archived) + " WHERE post_id = ? "
+                + "AND (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC LIMIT ?";
+        return oldestFirst(jdbcTemplate.query(sql, rowMapper, postId,
+                Timestamp.from(cursor.createdAt()), cursor.id(), limit + 1), limit);
+    }
+
+    /**
+     * Up to {@code limit} comments right after {@code cursor}.
+     */
+    @Transactional(readOnly = true)
+    public CommentPage findAfter(long postId, boolean archived, CommentCursor cursor, int limit) {
+        String sql = "SELECT id, post_id, username, content, created_at FROM " + table(archived) + " WHERE post_id = ? "
+                + "AND (created_at, id) > (?, ?) ORDER BY created_at ASC, id ASC LIMIT ?";
+        List<Comment> rows = new ArrayList<>(jdbcTemplate.query(sql, rowMapper, postId,
+                Timestamp.from(cursor.createdAt()), cursor.id(), limit + 1));
+        boolean more = rows.size() > limit;
+        if (more) {
+            rows.remove(limit);
+        }
+        return new CommentPage(rows, more);
+    }
+
+    private static String table(boolean archived) {
+        return archived ? "comments_archive" : "comments";
+    }
+
+    private static CommentPage oldestFirst(List<Comment> newestFirst, int limit) {
+        List<Comment> rows = new ArrayList<>(newestFirst);
+        boolean more = rows.size() > limit;
+        if (more) {
+            rows.remove(limit);
+        }
+        Collections.reverse(rows);
+        return new CommentPage(rows, more);
+    }
+
+    @Transactional(readOnly = true)
     public Comment findById(long id) {
         String sql = "SELECT id, post_id, username, content, created_at FROM comments WHERE id = ?";
         return jdbcTemplate.query(sql, rowMapper, id).stream().findFirst().orElse(null);
     }
 
     public int updateContent(long id, String content) {
-        return jdbcTemplate.update("UPDATE comments SET content = ? WHERE id = ?", content, id);
+        int updated = jdbcTemplate.update("UPDATE comments SET content = ? WHERE id = ?", content, id);
+        if (updated > 0) {
+            commentChanged(findPostId(id));
+        }
+        return updated;
     }
 
-    public Map<Long, Integer> countByPostIds(Collection<Long> postIds) {
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> countByPostIds(Collection<Long> postIds, boolean archived) {
         Map<Long, Integer> counts = new HashMap<>();
         if (postIds == null || postIds.isEmpty()) {
             return counts;
         }
-        String inSql = String.join(",", Collections.nCopies(postIds.size(), "?"));
-        String sql = "SELECT post_id, COUNT(*) AS cnt FROM comments WHERE post_id IN (" + inSql + ") GROUP BY post_id";
-        List<Object> args = new ArrayList<>(postIds);
-        jdbcTemplate.query(sql, args.toArray(), rs -> {
+        String sql = "SELECT post_id, COUNT(*) AS cnt FROM " + table(archived) + " WHERE post_id = ANY(?) GROUP BY post_id";
+        batchedLookup.query(sql, postIds, rs -> {
             counts.put(rs.getLong("post_id"), rs.getInt("cnt"));
         });
         return counts;
     }
 
     public int delete(long id) {
-        return jdbcTemplate.update("DELETE FROM comments WHERE id = ?", id);
+        // Looked up first since the row is gone afterwards; versions move only once the delete has run,
+        // as they do after an insert.
+        List<Long> postId = findPostId(id);
+        int deleted = jdbcTemplate.update("DELETE FROM comments WHERE id = ?", id);
+        if (deleted > 0) {
+            commentChanged(postId);
+        }
+        return deleted;
+    }
+
+    private List<Long> findPostId(long id) {
+        return jdbcTemplate.query("SELECT post_id FROM comments WHERE id = ?", (rs, i) -> rs.getLong(1), id);
+    }
+
+    private void commentChanged(List<Long> postId) {
+        postId.forEach(contentVersions::postChanged);
+        contentVersions.feedChanged();
     }
 }
@@ -0,0 +1,75 @@
+package com.home.knowledge.dedup;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash signatures over character shingles. Character shingles work for Japanese text, which has no
+ * word boundaries, and are robust to the markup differences between AMP, mobile and syndicated copies.
+ */
+public final class MinHasher {
+
+    public static final int NUM_HASHES = 64;
+    private static final int SHINGLE_LENGTH = 5;
+    // Shorter texts (error pages, paywalls) share too many shingles by chance to be compared.
+    private static final int MIN_SHINGLES = 50;
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private final long[] seeds = new long[NUM_HASHES];
+
+    public MinHasher() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < NUM_HASHES; i++) {
+            seeds[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Returns the signature of the text, or {@code null} when the text is too short to be compared.
+     */
+    public int[] signature(String text) {
+        if (text == null) {
+            return null;
+        }
+        String compact = text.replaceAll("\\s+", "").toLowerCase(Locale.ROOT);
+        int shingles = compact.length() - SHINGLE_LENGTH + 1;
+        if (shingles < MIN_SHINGLES) {
+            return null;
+        }
+        int[] signature = new int[NUM_HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int start = 0; start < shingles; start++) {
+            long shingleHash = 0xcbf29ce484222325L;
+            for (int i = start; i < start + SHINGLE_LENGTH; i++) {
+                shingleHash = (shingleHash ^ compact.charAt(i)) * 0x100000001b3L;
+            }
+            for (int h = 0; h < NUM_HASHES; h++) {
+                int value = (int) (mix(shingleHash ^ seeds[h]) >>> 33);
+                if (value < signature[h]) {
+                    signature[h] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Estimated Jaccard similarity of the shingle sets behind two signatures.
+     */
+    public static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / NUM_HASHES;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,72 @@
+package com.home.knowledge.dedup;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+@Repository
+public class SignatureRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public SignatureRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional
+    public void save(long postId, int[] signature) {
+        jdbcTemplate.update("DELETE FROM post_signatures WHERE post_id = ?", postId);
+        jdbcTemplate.update("INSERT INTO post_signatures (post_id, signature) VALUES (?, ?)", postId, encode(signature));
+    }
+
+    /**
+     * Asks the primary, so a signature saved a moment ago is never reported missing.
+     */
+    public boolean exists(long postId) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM post_signatures WHERE post_id = ?", Integer.class, postId);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Asks the primary, like {@link #exists}; called right after another instance saved the row.
+     */
+    public Optional<int[]> find(long postId) {
+        return jdbcTemplate.query("SELECT signature FROM post_signatures WHERE post_id = ?",
+                (rs, rowNum) -> decode(rs.getString("signature")), postId).stream().filter(Objects::nonNull).findFirst();
+    }
+
+    public void forEach(BiConsumer<Long, int[]> consumer) {
+        jdbcTemplate.query("SELECT post_id, signature FROM post_signatures", rs -> {
+            int[] signature = decode(rs.getString("signature"));
+            if (signature != null) {
+                consumer.accept(rs.getLong("post_id"), signature);
+            }
+        });
+    }
+
+    private static String encode(int[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(signature.length * Integer.BYTES);
+        for (int value : signature) {
+            buffer.putInt(value);
+        }
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    private static int[] decode(String encoded) {
+        byte[] bytes = Base64.getDecoder().decode(encoded);
+        if (bytes.length != MinHasher.NUM_HASHES * Integer.BYTES) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int[] signature = new int[MinHasher.NUM_HASHES];
+        for (int i = 0; i < signature.length; i++) {
+            signature[i] = buffer.getInt();
+        }
+        return signature;
+    }
+}
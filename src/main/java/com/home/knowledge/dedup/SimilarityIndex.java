@@ -0,0 +1,217 @@
+package com.home.knowledge.dedup;
+
+import com.home.knowledge.cache.ContentVersions;
+import com.home.knowledge.event.DomainEvent;
+import com.home.knowledge.event.DomainEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory LSH index over MinHash signatures of fetched article text, backed by {@code post_signatures}.
+ * A lookup touches one bucket per band and compares a handful of candidate signatures, so it stays
+ * well under a millisecond regardless of how many posts are indexed.
+ * <p>
+ * Each instance holds its own copy. Signatures saved or removed on other instances arrive through
+ * {@link ContentVersions#addRemoteContentListener} and are re-read from {@code post_signatures}; if
+ * invalidations were lost the index is reloaded.
+ */
+@Component
+public class SimilarityIndex implements DomainEventListener {
+    private static final Logger log = LoggerFactory.getLogger(SimilarityIndex.class);
+    private static final int BANDS = 16;
+    private static final int ROWS = MinHasher.NUM_HASHES / BANDS;
+    private static final long[] NO_POSTS = new long[0];
+
+    private final SignatureRepository signatureRepository;
+    private final ContentVersions contentVersions;
+    private final MinHasher hasher = new MinHasher();
+    private final double threshold;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, int[]> signatures = new HashMap<>();
+    private final Map<Long, long[]> buckets = new HashMap<>();
+
+    public SimilarityIndex(SignatureRepository signatureRepository,
+                           ContentVersions contentVersions,
+                           @Value("${app.dedup.threshold:0.8}") double threshold) {
+        this.signatureRepository = signatureRepository;
+        this.contentVersions = contentVersions;
+        this.threshold = threshold;
+        contentVersions.addRemoteContentListener(this::refresh);
+        contentVersions.addResetListener(this::load);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            signatures.clear();
+            buckets.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        signatureRepository.forEach(this::index);
+        log.info("Loaded {} article signatures in {} ms", size(), System.currentTimeMillis() - started);
+    }
+
+    public int[] signatureOf(String text) {
+        return hasher.signature(text);
+    }
+
+    /**
+     * Returns the most similar indexed post whose estimated similarity reaches the threshold.
+     * <p>
+     * Deletions and archiving reach this instance's index directly only when they happen here, so a
+     * match is confirmed against {@code post_signatures} (whose rows go with the post) and dropped if
+     * another instance removed the post.
+     */
+    public Optional<Match> findDuplicate(int[] signature) {
+        while (true) {
+            Optional<Match> match = bestMatch(signature);
+            if (match.isEmpty() || signatureRepository.exists(match.get().postId())) {
+                return match;
+            }
+            remove(match.get().postId());
+        }
+    }
+
+    /**
+     * Whether two signatures are as similar as {@link #findDuplicate} requires, for texts not in the index yet.
+     */
+    public boolean similar(int[] a, int[] b) {
+        return a != null && b != null && MinHasher.similarity(a, b) >= threshold;
+    }
+
+    private Optional<Match> bestMatch(int[] signature) {
+        if (signature == null) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            Match best = null;
+            for (int band = 0; band < BANDS; band++) {
+                for (long postId : buckets.getOrDefault(bandKey(signature, band), NO_POSTS)) {
+                    int[] candidate = signatures.get(postId);
+                    if (candidate == null) {
+                        continue;
+                    }
+                    double similarity = MinHasher.similarity(signature, candidate);
+                    if (similarity >= threshold && (best == null || similarity > best.similarity())) {
+                        best = new Match(postId, similarity);
+                    }
+                }
+            }
+            return Optional.ofNullable(best);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void add(long postId, int[] signature) {
+        if (signature == null) {
+            return;
+        }
+        signatureRepository.save(postId, signature);
+        index(postId, signature);
+        // The post itself was announced when it was inserted, before this row existed.
+        contentVersions.postContentChanged(postId);
+    }
+
+    /**
+     * Re-reads one post's signature after another instance saved or removed it.
+     */
+    void refresh(long postId) {
+        signatureRepository.find(postId).ifPresentOrElse(signature -> index(postId, signature), () -> remove(postId));
+    }
+
+    /**
+     * Signatures come from the fetched article, which only the creating request has, so posts are added
+     * with {@link #add}; deletions on this instance arrive as events.
+     */
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof DomainEvent.PostDeleted deleted) {
+                remove(deleted.postId());
+            }
+        }
+    }
+
+    /**
+     * Drops the post from memory; its {@code post_signatures} row goes with the post (ON DELETE CASCADE).
+     */
+    public void remove(long postId) {
+        lock.writeLock().lock();
+        try {
+            int[] signature = signatures.remove(postId);
+            if (signature == null) {
+                return;
+            }
+            for (int band = 0; band < BANDS; band++) {
+                long key = bandKey(signature, band);
+                long[] posts = buckets.get(key);
+                if (posts == null) {
+                    continue;
+                }
+                long[] remaining = Arrays.stream(posts).filter(id -> id != postId).toArray();
+                if (remaining.length == 0) {
+                    buckets.remove(key);
+                } else {
+                    buckets.put(key, remaining);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return signatures.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(long postId, int[] signature) {
+        remove(postId);
+        lock.writeLock().lock();
+        try {
+            signatures.put(postId, signature);
+            for (int band = 0; band < BANDS; band++) {
+                buckets.merge(bandKey(signature, band), new long[]{postId}, (existing, added) -> {
+                    long[] merged = Arrays.copyOf(existing, existing.length + 1);
+                    merged[existing.length] = added[0];
+                    return merged;
+                });
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+            key = key * 0x100000001b3L + signature[i];
+        }
+        return key;
+    }
+
+    public record Match(long postId, double similarity) {
+    }
+}
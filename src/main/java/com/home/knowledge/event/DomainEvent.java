@@ -0,0 +1,38 @@
+package com.home.knowledge.event;
+
+import com.home.knowledge.comment.Comment;
+import com.home.knowledge.post.Post;
+
+/**
+ * Something that happened to a post or its engagement, published through {@link DomainEventBus}
+ * once the write has committed.
+ */
+public sealed interface DomainEvent {
+
+    record PostCreated(Post post) implements DomainEvent {
+    }
+
+    record PostUpdated(Post post) implements DomainEvent {
+    }
+
+    record PostDeleted(long postId, String username) implements DomainEvent {
+    }
+
+    record CommentAdded(Comment comment) implements DomainEvent {
+    }
+
+    record CommentUpdated(long commentId, long postId, String username) implements DomainEvent {
+    }
+
+    record CommentDeleted(long commentId, long postId, String username) implements DomainEvent {
+    }
+
+    record Liked(long postId, String username) implements DomainEvent {
+    }
+
+    record Unliked(long postId, String username) implements DomainEvent {
+    }
+
+    record PostRead(long postId, String username) implements DomainEvent {
+    }
+}
@@ -0,0 +1,129 @@
+package com.home.knowledge.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers {@link DomainEvent}s to every {@link DomainEventListener} on a single background thread, so
+ * derived data (indexes, counters) is maintained off the request thread. Anything the very next page
+ * must already reflect, such as the author's own writes being seen, stays on the request path.
+ * <p>
+ * Inside a transaction an event is queued only after commit and dropped on rollback; outside one the
+ * write has already committed and it is queued at once. The worker drains up to {@code batch-size}
+ * events per round. The queue holds {@code queue-capacity} events; when it is full, publishers wait up
+ * to {@code offer-timeout} and then deliver the event themselves, which slows writers down to the pace
+ * of the listeners instead of losing events (such an event may overtake ones still queued).
+ */
+@Component
+public class DomainEventBus {
+    private static final Logger log = LoggerFactory.getLogger(DomainEventBus.class);
+
+    private final List<DomainEventListener> listeners;
+    private final BlockingQueue<DomainEvent> queue;
+    private final int batchSize;
+    private final Duration offerTimeout;
+    private final Counter inline;
+    private ExecutorService worker;
+
+    public DomainEventBus(List<DomainEventListener> listeners,
+                          MeterRegistry registry,
+                          @Value("${app.events.queue-capacity:10000}") int queueCapacity,
+                          @Value("${app.events.batch-size:100}") int batchSize,
+                          @Value("${app.events.offer-timeout:1s}") Duration offerTimeout) {
+        this.listeners = List.copyOf(listeners);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.offerTimeout = offerTimeout;
+        this.inline = Counter.builder("domain.events.inline").register(registry);
+        Gauge.builder("domain.events.queued", queue, BlockingQueue::size).register(registry);
+    }
+
+    @PostConstruct
+    void start() {
+        worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "domain-events");
+            t.setDaemon(true);
+            return t;
+        });
+        worker.execute(this::run);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (worker != null) {
+            worker.shutdownNow();
+        }
+        List<DomainEvent> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            deliver(remaining);
+        }
+    }
+
+    public void publish(DomainEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(event);
+                }
+            });
+        } else {
+            enqueue(event);
+        }
+    }
+
+    private void enqueue(DomainEvent event) {
+        try {
+            if (queue.offer(event, offerTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        inline.increment();
+        deliver(List.of(event));
+    }
+
+    private void run() {
+        List<DomainEvent> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            deliver(List.copyOf(batch));
+            batch.clear();
+        }
+    }
+
+    private void deliver(List<DomainEvent> events) {
+        for (DomainEventListener listener : listeners) {
+            try {
+                listener.onEvents(events);
+            } catch (RuntimeException e) {
+                log.warn("{} failed on {} events", listener.getClass().getSimpleName(), events.size(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.home.knowledge.event;
+
+import java.util.List;
+
+/**
+ * Receives committed domain events on the bus's worker thread, in publication order and in batches
+ * of up to {@code app.events.batch-size}. Events the listener does not care about are simply ignored.
+ * A listener that throws loses that batch only; the others still receive it.
+ */
+public interface DomainEventListener {
+
+    void onEvents(List<DomainEvent> events);
+}
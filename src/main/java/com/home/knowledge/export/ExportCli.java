@@ -0,0 +1,98 @@
+package com.home.knowledge.export;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Command-line export without starting the web application:
+ * <pre>
+ * java -jar knowledge.jar export posts comments --format=csv --gzip --out=backup/
+ * java -jar knowledge.jar export all
+ * </pre>
+ * Connects with {@code SPRING_DATASOURCE_URL} / {@code _USERNAME} / {@code _PASSWORD}, or
+ * {@code --url}, {@code --username}, {@code --password}. Writes one file per table into {@code --out}
+ * (default: the current directory).
+ */
+public final class ExportCli {
+
+    private ExportCli() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<String> tables = new ArrayList<>();
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                int eq = arg.indexOf('=');
+                options.put(eq < 0 ? arg.substring(2) : arg.substring(2, eq), eq < 0 ? "true" : arg.substring(eq + 1));
+            } else {
+                tables.add(arg);
+            }
+        }
+        List<ExportTable> selected = new ArrayList<>();
+        if (tables.isEmpty() || tables.contains("all")) {
+            selected.addAll(List.of(ExportTable.values()));
+        } else {
+            for (String name : tables) {
+                ExportTable table = ExportTable.fromName(name);
+                if (table == null) {
+                    throw new IllegalArgumentException("Unknown table: " + name);
+                }
+                selected.add(table);
+            }
+        }
+        ExportFormat format = ExportFormat.fromName(options.getOrDefault("format", "ndjson"));
+        if (format == null) {
+            throw new IllegalArgumentException("--format must be ndjson or csv");
+        }
+        boolean gzip = Boolean.parseBoolean(options.getOrDefault("gzip", "false"));
+        String url = options.getOrDefault("url", System.getenv("SPRING_DATASOURCE_URL"));
+        if (url == null) {
+            throw new IllegalArgumentException("--url (or SPRING_DATASOURCE_URL) is required");
+        }
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url,
+                options.getOrDefault("username", System.getenv("SPRING_DATASOURCE_USERNAME")),
+                options.getOrDefault("password", System.getenv("SPRING_DATASOURCE_PASSWORD")));
+        ExportRepository repository = new ExportRepository(new JdbcTemplate(dataSource));
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+
+        Path dir = Path.of(options.getOrDefault("out", "."));
+        Files.createDirectories(dir);
+        for (ExportTable table : selected) {
+            Path file = dir.resolve(table.tableName() + format.extension() + (gzip ? ".gz" : ""));
+            long started = System.nanoTime();
+            long rows;
+            try (OutputStream out = open(file, gzip)) {
+                rows = readOnly.execute(status -> {
+                    try {
+                        return repository.export(table, format, out);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            System.out.printf("  %-16s %,12d rows -> %s (%,d ms)%n", table.tableName(), rows, file,
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    private static OutputStream open(Path file, boolean gzip) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024);
+        return gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+    }
+}
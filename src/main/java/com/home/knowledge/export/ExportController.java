@@ -0,0 +1,64 @@
+package com.home.knowledge.export;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Full dumps for backups and analytics, e.g. {@code GET /export/posts?format=csv&gzip=true}.
+ * Only users listed in {@code app.export.users} may export.
+ */
+@Controller
+public class ExportController {
+
+    private final ExportRepository exportRepository;
+    private final Set<String> allowedUsers;
+
+    public ExportController(ExportRepository exportRepository,
+                            @Value("${app.export.users:}") String allowedUsers) {
+        this.exportRepository = exportRepository;
+        this.allowedUsers = StringUtils.commaDelimitedListToSet(allowedUsers.replace(" ", ""));
+    }
+
+    @GetMapping("/export/{table}")
+    public void export(@PathVariable String table,
+                       @RequestParam(defaultValue = "ndjson") String format,
+                       @RequestParam(defaultValue = "false") boolean gzip,
+                       HttpServletRequest request,
+                       HttpServletResponse response) throws IOException {
+        String user = (String) request.getAttribute("loginUser");
+        if (user == null || !allowedUsers.contains(user)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        ExportTable exportTable = ExportTable.fromName(table);
+        ExportFormat exportFormat = ExportFormat.fromName(format);
+        if (exportTable == null || exportFormat == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String fileName = exportTable.tableName() + exportFormat.extension() + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : exportFormat.contentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+            exportRepository.export(exportTable, exportFormat, compressed);
+            compressed.finish();
+        } else {
+            exportRepository.export(exportTable, exportFormat, out);
+        }
+        out.flush();
+    }
+}
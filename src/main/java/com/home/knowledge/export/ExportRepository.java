@@ -0,0 +1,45 @@
+package com.home.knowledge.export;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams whole tables without holding them in memory: rows come from a server-side cursor in batches
+ * of {@link #FETCH_SIZE} and are written as they arrive. PostgreSQL only uses a cursor inside a
+ * transaction, hence the read-only transaction (which also sends exports to a replica if there is one).
+ */
+@Repository
+public class ExportRepository {
+    static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExportRepository(JdbcTemplate jdbcTemplate) {
+        // A copy, so the fetch size does not apply to the application's other queries.
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    /**
+     * Writes every row of {@code table} to {@code out} and returns the number of rows.
+     */
+    @Transactional(readOnly = true)
+    public long export(ExportTable table, ExportFormat format, OutputStream out) throws IOException {
+        long count = 0;
+        try (RowWriter writer = RowWriter.open(format, out, table.columns());
+             Stream<Object[]> rows = jdbcTemplate.queryForStream(table.selectSql(), (rs, i) -> table.read(rs))) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,77 @@
+package com.home.knowledge.export;
+
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Tables covered by the export, with their columns in output order. Rows are ordered by primary key
+ * so two dumps of the same data are identical.
+ */
+public enum ExportTable {
+    POSTS("posts", "id", List.of("id", "username", "title", "content", "image_url", "link_url", "summary", "created_at")),
+    COMMENTS("comments", "id", List.of("id", "post_id", "username", "content", "created_at")),
+    LIKES("likes", "post_id, username", List.of("post_id", "username", "created_at")),
+    READS("reads", "post_id, username", List.of("post_id", "username", "read_at")),
+    USER_SEEN_ITEMS("user_seen_items", "username, kind, ref_id", List.of("username", "kind", "ref_id", "seen_at")),
+    USER_SEEN_WATERMARKS("user_seen_watermarks", "username, kind", List.of("username", "kind", "seen_through")),
+    POSTS_ARCHIVE("posts_archive", "id", List.of("id", "username", "title", "content", "image_url", "link_url", "summary", "created_at", "archived_at")),
+    COMMENTS_ARCHIVE("comments_archive", "id", List.of("id", "post_id", "username", "content", "created_at", "archived_at")),
+    LIKES_ARCHIVE("likes_archive", "post_id, username", List.of("post_id", "username", "created_at", "archived_at")),
+    READS_ARCHIVE("reads_archive", "post_id, username", List.of("post_id", "username", "read_at", "archived_at"));
+
+    private final String tableName;
+    private final String orderBy;
+    private final List<String> columns;
+
+    ExportTable(String tableName, String orderBy, List<String> columns) {
+        this.tableName = tableName;
+        this.orderBy = orderBy;
+        this.columns = columns;
+    }
+
+    public String tableName() {
+        return tableName;
+    }
+
+    public List<String> columns() {
+        return columns;
+    }
+
+    String selectSql() {
+        return "SELECT " + String.join(", ", columns) + " FROM " + tableName + " ORDER BY " + orderBy;
+    }
+
+    /**
+     * Reads the current row as JSON/CSV-friendly values: numbers, strings, or null. Timestamps are
+     * written as stored, without a zone.
+     */
+    Object[] read(ResultSet rs) throws SQLException {
+        Object[] row = new Object[columns.size()];
+        for (int i = 0; i < row.length; i++) {
+            Object value = rs.getObject(i + 1);
+            if (value instanceof Clob) {
+                value = rs.getString(i + 1);
+            } else if (value instanceof Timestamp timestamp) {
+                value = timestamp.toLocalDateTime().toString();
+            }
+            row[i] = value;
+        }
+        return row;
+    }
+
+    /**
+     * Looks a table up by its SQL name, e.g. {@code user_seen_items}; null when unknown.
+     */
+    public static ExportTable fromName(String name) {
+        for (ExportTable table : values()) {
+            if (table.tableName.equals(name.toLowerCase(Locale.ROOT))) {
+                return table;
+            }
+        }
+        return null;
+    }
+}
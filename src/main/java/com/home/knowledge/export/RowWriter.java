@@ -0,0 +1,130 @@
+package com.home.knowledge.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes rows one at a time to an output stream, which it flushes but does not close.
+ */
+abstract class RowWriter implements Closeable {
+    private static final JsonFactory JSON = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    protected final List<String> columns;
+
+    private RowWriter(List<String> columns) {
+        this.columns = columns;
+    }
+
+    static RowWriter open(ExportFormat format, OutputStream out, List<String> columns) throws IOException {
+        return switch (format) {
+            case NDJSON -> new Ndjson(out, columns);
+            case CSV -> new Csv(out, columns);
+        };
+    }
+
+    abstract void write(Object[] row) throws IOException;
+
+    /**
+     * One JSON object per line, keyed by column name.
+     */
+    private static final class Ndjson extends RowWriter {
+        private final JsonGenerator generator;
+
+        Ndjson(OutputStream out, List<String> columns) throws IOException {
+            super(columns);
+            this.generator = JSON.createGenerator(out);
+            generator.setPrettyPrinter(new MinimalPrettyPrinter(""));
+        }
+
+        @Override
+        void write(Object[] row) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < row.length; i++) {
+                Object value = row[i];
+                if (value == null) {
+                    generator.writeNullField(columns.get(i));
+                } else if (value instanceof BigDecimal decimal) {
+                    generator.writeNumberField(columns.get(i), decimal);
+                } else if (value instanceof BigInteger integer) {
+                    generator.writeFieldName(columns.get(i));
+                    generator.writeNumber(integer);
+                } else if (value instanceof Double || value instanceof Float) {
+                    generator.writeNumberField(columns.get(i), ((Number) value).doubleValue());
+                } else if (value instanceof Number number) {
+                    generator.writeNumberField(columns.get(i), number.longValue());
+                } else {
+                    generator.writeStringField(columns.get(i), value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with a header row; null is written as an empty field.
+     */
+    private static final class Csv extends RowWriter {
+        private final Writer writer;
+
+        Csv(OutputStream out, List<String> columns) throws IOException {
+            super(columns);
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writeLine(columns.toArray());
+        }
+
+        @Override
+        void write(Object[] row) throws IOException {
+            writeLine(row);
+        }
+
+        private void writeLine(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] != null) {
+                    writeField(values[i].toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(String value) throws IOException {
+            boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.home.knowledge.jdbc;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Runs a statement over a set of ids bound as a single {@code bigint} array, written as
+ * {@code WHERE post_id = ANY(?)}. The SQL text is the same however many ids there are, so the driver's
+ * and the server's prepared-statement caches see one statement instead of one per list length; H2
+ * (2.x) accepts the same syntax. The array is always the first parameter and {@code args} follow it.
+ * <p>
+ * Ids are de-duplicated and sets larger than the chunk size run as several statements whose results
+ * are concatenated, so callers should group or aggregate per id rather than rely on a global order.
+ */
+public final class BatchedLookup {
+    public static final int DEFAULT_CHUNK_SIZE = 5_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int chunkSize;
+
+    public BatchedLookup(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, DEFAULT_CHUNK_SIZE);
+    }
+
+    public BatchedLookup(JdbcTemplate jdbcTemplate, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize;
+    }
+
+    public <T> List<T> query(String sql, Collection<Long> ids, RowMapper<T> rowMapper, Object... args) {
+        List<T> rows = new ArrayList<>();
+        for (List<Long> chunk : chunks(ids)) {
+            rows.addAll(jdbcTemplate.query(sql, setter(chunk, args), rowMapper));
+        }
+        return rows;
+    }
+
+    public void query(String sql, Collection<Long> ids, RowCallbackHandler handler, Object... args) {
+        for (List<Long> chunk : chunks(ids)) {
+            jdbcTemplate.query(sql, setter(chunk, args), handler);
+        }
+    }
+
+    public int update(String sql, Collection<Long> ids, Object... args) {
+        int updated = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            updated += jdbcTemplate.update(sql, setter(chunk, args));
+        }
+        return updated;
+    }
+
+    private List<List<Long>> chunks(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            chunks.add(distinct.subList(from, Math.min(from + chunkSize, distinct.size())));
+        }
+        return chunks;
+    }
+
+    private static PreparedStatementSetter setter(List<Long> ids, Object[] args) {
+        return ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids.toArray()));
+            for (int i = 0; i < args.length; i++) {
+                StatementCreatorUtils.setParameterValue(ps, i + 2, SqlTypeValue.TYPE_UNKNOWN, args[i]);
+            }
+        };
+    }
+}
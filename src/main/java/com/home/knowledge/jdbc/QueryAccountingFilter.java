@@ -0,0 +1,62 @@
+package com.home.knowledge.jdbc;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Collects {@link QueryStats} for each request, publishes them to {@link SqlMetrics} and the request
+ * attribute {@link QueryStats#REQUEST_ATTRIBUTE}, and logs requests over the query budget or with a
+ * statement repeated often enough to look like an N+1 loop.
+ */
+@Component
+public class QueryAccountingFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(QueryAccountingFilter.class);
+
+    private final SqlMetrics metrics;
+    private final int queryBudget;
+    private final int repeatThreshold;
+
+    public QueryAccountingFilter(SqlMetrics metrics,
+                                 @Value("${app.sql.query-budget:30}") int queryBudget,
+                                 @Value("${app.sql.n-plus-one-threshold:10}") int repeatThreshold) {
+        this.metrics = metrics;
+        this.queryBudget = queryBudget;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryStats.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryStats stats = QueryStats.end();
+            request.setAttribute(QueryStats.REQUEST_ATTRIBUTE, stats);
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            boolean overBudget = stats.getQueryCount() > queryBudget;
+            metrics.recordRequest(request.getMethod(), uri, overBudget, stats);
+            if (overBudget) {
+                log.warn("{} {} ran {} SQL statements (budget {}): {}", request.getMethod(), request.getRequestURI(),
+                        stats.getQueryCount(), queryBudget, stats.describe());
+            }
+            Map.Entry<String, Integer> repeated = stats.mostRepeated();
+            if (repeated != null && repeated.getValue() >= repeatThreshold) {
+                log.warn("Possible N+1 on {} {}: {} executions of {}", request.getMethod(), request.getRequestURI(),
+                        repeated.getValue(), repeated.getKey());
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.home.knowledge.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Wraps connections, statements and result sets in JDK proxies so every executed statement is timed,
+ * reported to a {@link StatementListener} and added to the thread's {@link QueryStats}.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private final StatementListener listener;
+
+    public QueryCountingDataSource(DataSource target, StatementListener listener) {
+        super(target);
+        this.listener = listener;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    String name = method.getName();
+                    if (result instanceof Statement statement
+                            && (name.startsWith("prepare") || name.equals("createStatement"))) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                        return wrapStatement(statement, sql);
+                    }
+                    return result;
+                });
+    }
+
+    private Statement wrapStatement(Statement statement, String preparedSql) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        StatementContext context = new StatementContext(preparedSql);
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (!EXECUTE_METHODS.contains(name)) {
+                        Object result = invoke(statement, method, args);
+                        if (result instanceof ResultSet resultSet && name.equals("getResultSet")) {
+                            return wrapResultSet(resultSet, context);
+                        }
+                        return result;
+                    }
+                    String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : context.sql;
+                    long started = System.nanoTime();
+                    try {
+                        Object result = invoke(statement, method, args);
+                        if (result instanceof ResultSet resultSet) {
+                            return wrapResultSet(resultSet, context);
+                        }
+                        return result;
+                    } finally {
+                        long elapsed = System.nanoTime() - started;
+                        String kind = name.contains("Batch") ? "batch" : name.equals("executeQuery") ? "query"
+                                : name.contains("Update") ? "update" : "execute";
+                        listener.onStatement(sql, kind, elapsed);
+                        QueryStats stats = QueryStats.current();
+                        context.record = stats != null ? stats.record(sql, elapsed) : null;
+                        context.stats = stats;
+                    }
+                });
+    }
+
+    private ResultSet wrapResultSet(ResultSet resultSet, StatementContext context) {
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(resultSet, method, args);
+                    if (method.getName().equals("next") && Boolean.TRUE.equals(result) && context.record != null) {
+                        context.stats.addRow(context.record);
+                    }
+                    return result;
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static final class StatementContext {
+        private final String sql;
+        private QueryStats stats;
+        private QueryStats.StatementRecord record;
+
+        StatementContext(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    @FunctionalInterface
+    public interface StatementListener {
+        void onStatement(String sql, String kind, long nanos);
+    }
+}
@@ -0,0 +1,28 @@
+package com.home.knowledge.jdbc;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application's {@link DataSource} so every repository statement is accounted for.
+ */
+@Component
+public class QueryCountingDataSourcePostProcessor implements BeanPostProcessor {
+    private final ObjectProvider<SqlMetrics> metrics;
+
+    public QueryCountingDataSourcePostProcessor(ObjectProvider<SqlMetrics> metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof QueryCountingDataSource)) {
+            return new QueryCountingDataSource(dataSource,
+                    (sql, kind, nanos) -> metrics.ifAvailable(m -> m.recordStatement(kind, nanos)));
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,100 @@
+package com.home.knowledge.jdbc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQL statements executed on the current thread between {@link #begin()} and {@link #end()}; one instance
+ * per HTTP request (see {@link QueryAccountingFilter}).
+ */
+public final class QueryStats {
+    public static final String REQUEST_ATTRIBUTE = QueryStats.class.getName();
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+    // Keeps a runaway N+1 loop from holding thousands of records; counters keep counting past it.
+    private static final int MAX_RECORDED_STATEMENTS = 500;
+
+    private final List<StatementRecord> statements = new ArrayList<>();
+    private final Map<String, Integer> executionsBySql = new HashMap<>();
+    private int queryCount;
+    private long totalNanos;
+    private long rows;
+
+    public static QueryStats begin() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static QueryStats end() {
+        QueryStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    StatementRecord record(String sql, long nanos) {
+        queryCount++;
+        totalNanos += nanos;
+        executionsBySql.merge(sql, 1, Integer::sum);
+        StatementRecord record = new StatementRecord(sql, nanos);
+        if (statements.size() < MAX_RECORDED_STATEMENTS) {
+            statements.add(record);
+        }
+        return record;
+    }
+
+    void addRow(StatementRecord record) {
+        rows++;
+        record.rows++;
+    }
+
+    public int getQueryCount() { return queryCount; }
+    public long getTotalNanos() { return totalNanos; }
+    public long getRows() { return rows; }
+    public List<StatementRecord> getStatements() { return Collections.unmodifiableList(statements); }
+
+    /**
+     * The statement executed most often, which is usually the inner query of an N+1 loop.
+     */
+    public Map.Entry<String, Integer> mostRepeated() {
+        return executionsBySql.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .orElse(null);
+    }
+
+    public String describe() {
+        StringBuilder text = new StringBuilder();
+        text.append(queryCount).append(" statements, ").append(rows).append(" rows, ")
+                .append(totalNanos / 1_000_000).append(" ms");
+        for (StatementRecord statement : statements) {
+            text.append("\n  ").append(statement);
+        }
+        return text.toString();
+    }
+
+    public static final class StatementRecord {
+        private final String sql;
+        private final long nanos;
+        private long rows;
+
+        StatementRecord(String sql, long nanos) {
+            this.sql = sql;
+            this.nanos = nanos;
+        }
+
+        public String getSql() { return sql; }
+        public long getNanos() { return nanos; }
+        public long getRows() { return rows; }
+
+        @Override
+        public String toString() {
+            return String.format("%.2f ms, %d rows: %s", nanos / 1_000_000.0, rows, sql);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.home.knowledge.jdbc;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.WebUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Sends a client's reads to the primary for {@code app.datasource.replica.max-lag} after it wrote, so it
+ * sees its own likes, reads and comments even when the replica lags behind.
+ * <p>
+ * The deadline travels in a {@code primary_until} cookie rather than in memory, so it holds whichever
+ * instance serves the next request. Reads later in the writing request also stay on the primary.
+ * Work outside a web request (imports, startup) is never pinned.
+ */
+public class ReadYourWrites {
+    static final String COOKIE = "primary_until";
+    private static final String PINNED_ATTRIBUTE = ReadYourWrites.class.getName() + ".PINNED";
+    private static final String COOKIE_SENT_ATTRIBUTE = ReadYourWrites.class.getName() + ".COOKIE_SENT";
+
+    private final Duration maxLag;
+    private final Clock clock;
+
+    public ReadYourWrites(Duration maxLag) {
+        this(maxLag, Clock.systemUTC());
+    }
+
+    ReadYourWrites(Duration maxLag, Clock clock) {
+        this.maxLag = maxLag;
+        this.clock = clock;
+    }
+
+    /**
+     * Called once a statement has changed rows; pins the current request and client to the primary.
+     */
+    public void wrote() {
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null) {
+            return;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        request.setAttribute(PINNED_ATTRIBUTE, Boolean.TRUE);
+        HttpServletResponse response = attributes.getResponse();
+        if (request.getAttribute(COOKIE_SENT_ATTRIBUTE) == null && response != null && !response.isCommitted()) {
+            Cookie cookie = new Cookie(COOKIE, Long.toString(clock.millis() + maxLag.toMillis()));
+            cookie.setHttpOnly(true);
+            cookie.setPath("/");
+            cookie.setMaxAge((int) Math.max(1, maxLag.toSeconds()));
+            response.addCookie(cookie);
+            request.setAttribute(COOKIE_SENT_ATTRIBUTE, Boolean.TRUE);
+        }
+    }
+
+    public boolean pinnedToPrimary() {
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null) {
+            return false;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        Object pinned = request.getAttribute(PINNED_ATTRIBUTE);
+        if (pinned == null) {
+            pinned = cookieDeadlineAhead(request);
+            request.setAttribute(PINNED_ATTRIBUTE, pinned);
+        }
+        return (Boolean) pinned;
+    }
+
+    private boolean cookieDeadlineAhead(HttpServletRequest request) {
+        Cookie cookie = WebUtils.getCookie(request, COOKIE);
+        if (cookie == null) {
+            return false;
+        }
+        try {
+            long until = Long.parseLong(cookie.getValue());
+            long now = clock.millis();
+            // A deadline further out than max-lag did not come from us; ignore it.
+            return now < until && until <= now + maxLag.toMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static ServletRequestAttributes currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servlet ? servlet : null;
+    }
+}
@@ -0,0 +1,58 @@
+package com.home.knowledge.jdbc;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the single auto-configured {@link DataSource} with primary / replica routing when
+ * {@code app.datasource.replica.urls} is set. The replicas use the primary's credentials unless
+ * {@code app.datasource.replica.username} / {@code password} are given.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.urls")
+public class ReplicaDataSourceConfig implements DisposableBean {
+    private final List<DataSource> pools = new ArrayList<>();
+
+    @Bean(destroyMethod = "")
+    public DataSource dataSource(DataSourceProperties properties,
+                                @Value("${app.datasource.replica.urls}") List<String> replicaUrls,
+                                @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String username,
+                                @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String password,
+                                @Value("${app.datasource.replica.max-lag:5s}") Duration maxLag) {
+        DataSource primary = properties.initializeDataSourceBuilder().build();
+        pools.add(primary);
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            DataSource replica = DataSourceBuilder.create().url(url.trim()).username(username).password(password).build();
+            replicas.add(replica);
+            pools.add(replica);
+        }
+        ReadYourWrites readYourWrites = new ReadYourWrites(maxLag);
+        ReplicaRoutingDataSource reads = new ReplicaRoutingDataSource(primary, replicas, readYourWrites);
+        reads.afterPropertiesSet();
+        // Lazy, so the connection is picked after the transaction has marked it read-only.
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(new WriteTrackingDataSource(primary, readYourWrites));
+        dataSource.setReadOnlyDataSource(reads);
+        return dataSource;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (DataSource pool : pools) {
+            if (pool instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.home.knowledge.jdbc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for statements ({@code jdbc.statements}) and per-request totals
+ * ({@code http.server.requests.queries}, {@code .rows}, {@code .db.time}), all published as histograms.
+ */
+@Component
+public class SqlMetrics {
+    private final MeterRegistry registry;
+
+    public SqlMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void recordStatement(String kind, long nanos) {
+        Timer.builder("jdbc.statements")
+                .tag("kind", kind)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRequest(String method, String uri, boolean overBudget, QueryStats stats) {
+        String budget = overBudget ? "exceeded" : "ok";
+        DistributionSummary.builder("http.server.requests.queries")
+                .tags("method", method, "uri", uri, "budget", budget)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(stats.getQueryCount());
+        DistributionSummary.builder("http.server.requests.rows")
+                .tags("method", method, "uri", uri)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(stats.getRows());
+        Timer.builder("http.server.requests.db.time")
+                .tags("method", method, "uri", uri)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(stats.getTotalNanos(), TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,97 @@
+package com.home.knowledge.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The primary as seen by connections that are not read-only. Tells {@link ReadYourWrites} once a
+ * statement actually changed rows, so lookups and no-op upserts ({@code ON CONFLICT DO NOTHING} on a row
+ * that exists) on these connections do not pin the client to the primary.
+ */
+class WriteTrackingDataSource extends DelegatingDataSource {
+    private final ReadYourWrites readYourWrites;
+
+    WriteTrackingDataSource(DataSource primary, ReadYourWrites readYourWrites) {
+        super(primary);
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    String name = method.getName();
+                    if (result instanceof Statement statement
+                            && (name.startsWith("prepare") || name.equals("createStatement"))) {
+                        return wrapStatement(statement);
+                    }
+                    return result;
+                });
+    }
+
+    private Statement wrapStatement(Statement statement) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    Object result = invoke(statement, method, args);
+                    if (changedRows(statement, method.getName(), result)) {
+                        readYourWrites.wrote();
+                    }
+                    return result;
+                });
+    }
+
+    private static boolean changedRows(Statement statement, String method, Object result) throws SQLException {
+        return switch (method) {
+            case "executeUpdate", "executeLargeUpdate" -> ((Number) result).longValue() > 0;
+            case "executeBatch" -> {
+                for (int count : (int[]) result) {
+                    if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                        yield true;
+                    }
+                }
+                yield false;
+            }
+            case "executeLargeBatch" -> {
+                for (long count : (long[]) result) {
+                    if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                        yield true;
+                    }
+                }
+                yield false;
+            }
+            // false means the first result is an update count rather than rows.
+            case "execute" -> Boolean.FALSE.equals(result) && statement.getUpdateCount() > 0;
+            default -> false;
+        };
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.home.knowledge.like;
 
+import com.home.knowledge.cache.ContentVersions;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.util.HashSet;
@@ -11,32 +13,51 @@ import java.util.Set;
 @Repository
 public class LikeRepository {
     private final JdbcTemplate jdbcTemplate;
+    private final ContentVersions contentVersions;
 
-    public LikeRepository(JdbcTemplate jdbcTemplate) {
+    public LikeRepository(JdbcTemplate jdbcTemplate, ContentVersions contentVersions) {
         this.jdbcTemplate = jdbcTemplate;
+        this.contentVersions = contentVersions;
     }
 
+    @Transactional(readOnly = true)
     public int countByPostId(long postId) {
         Integer c = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes WHERE post_id = ?", Integer.class, postId);
         return c != null ? c : 0;
     }
 
+    @Transactional(readOnly = true)
     public boolean likedByUser(long postId, String username) {
         Integer c = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes WHERE post_id = ? AND username = ?", Integer.class, postId, username);
         return c != null && c > 0;
     }
 
-    public void like(long postId, String username) {
-        jdbcTemplate.update(
-                "INSERT INTO likes (post_id, username) VALUES (?, ?) ON CONFLICT (post_id, username) DO NOTHING",
+    public boolean like(long postId, String username) {
+        // No conflict target: the primary key is the only unique constraint, and H2 accepts no other form.
+        int inserted = jdbcTemplate.update(
+                "INSERT INTO likes (post_id, username) VALUES (?, ?) ON CONFLICT DO NOTHING",
                 postId, username
         );
+        if (inserted > 0) {
+            changed(postId, username);
+        }
+        return inserted > 0;
+    }
+
+    public boolean unlike(long postId, String username) {
+        if (jdbcTemplate.update("DELETE FROM likes WHERE post_id = ? AND username = ?", postId, username) > 0) {
+            changed(postId, username);
+            return true;
+        }
+        return false;
     }
 
-    public void unlike(long postId, String username) {
-        jdbcTemplate.update("DELETE FROM likes WHERE post_id = ? AND username = ?", postId, username);
+    private void changed(long postId, String username) {
+        contentVersions.postChanged(postId);
+        contentVersions.userChanged(username);
     }
 
+    @Transactional(readOnly = true)
     public Set<Long> findPostIdsByUser(String username) {
         if (!StringUtils.hasText(username)) {
             return Set.of();
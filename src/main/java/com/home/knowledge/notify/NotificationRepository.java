@@ -1,59 +1,88 @@
 package com.home.knowledge.notify;
 
+import com.home.knowledge.cache.ContentVersions;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+/**
+ * Unread notifications are posts and comments created after the user's last visit that they have not
+ * seen. An item counts as seen when its id is at or below the user's watermark for its kind
+ * ({@code user_seen_watermarks}) or it has a row in {@code user_seen_items}; {@link #compactSeenItems}
+ * moves the watermark forward and drops the rows it covers.
+ */
 @Repository
 public class NotificationRepository {
+    // Inserts use ON CONFLICT DO NOTHING without a conflict target: H2, which the tests run on, accepts
+    // no other form, and the primary key is the only unique constraint of these tables.
+    private static final String SEEN_THROUGH = "COALESCE((SELECT seen_through FROM user_seen_watermarks WHERE username = ? AND kind = ?), 0)";
+    // Inlined rather than read first with getLastSeen, which would cost each query a statement.
+    private static final String LAST_SEEN = "COALESCE((SELECT last_seen FROM user_last_seen WHERE username = ?), ?)";
+
     private final JdbcTemplate jdbcTemplate;
+    private final ContentVersions contentVersions;
+    private final SeenFilter seenFilter;
 
-    public NotificationRepository(JdbcTemplate jdbcTemplate) {
+    public NotificationRepository(JdbcTemplate jdbcTemplate, ContentVersions contentVersions,
+                                  @Value("${app.notifications.seen-filter.max-users:10000}") int seenFilterUsers) {
         this.jdbcTemplate = jdbcTemplate;
+        this.contentVersions = contentVersions;
+        this.seenFilter = new SeenFilter(seenFilterUsers, this::findWatermarks);
     }
 
+    /**
+     * The user's last visit, or the epoch if they have none yet so the first visit sees all historical
+     * items. Read-only: the row is written by {@link #upsertLastSeen} on login and on visits.
+     */
+    @Transactional(readOnly = true)
     public Timestamp getLastSeen(String username) {
         List<Timestamp> list = jdbcTemplate.query("SELECT last_seen FROM user_last_seen WHERE username = ?",
                 (rs, i) -> rs.getTimestamp(1), username);
-        if (list.isEmpty()) {
-            // initialize far past so first login sees all historical items
-            Timestamp initial = Timestamp.from(Instant.EPOCH);
-            upsertLastSeen(username, initial);
-            return initial;
-        }
-        return list.get(0);
+        return list.isEmpty() ? Timestamp.from(Instant.EPOCH) : list.get(0);
     }
 
     public void upsertLastSeen(String username, Timestamp ts) {
-        jdbcTemplate.update(
-                "INSERT INTO user_last_seen (username, last_seen) VALUES (?, ?) " +
-                        "ON CONFLICT (username) DO UPDATE SET last_seen = EXCLUDED.last_seen",
-                username, ts
-        );
+        String update = "UPDATE user_last_seen SET last_seen = ? WHERE username = ?";
+        // Update first: the row exists for everyone but first-time visitors. If a concurrent visit
+        // inserted it between the two statements, the insert does nothing and the update is repeated.
+        if (jdbcTemplate.update(update, ts, username) == 0
+                && jdbcTemplate.update("INSERT INTO user_last_seen (username, last_seen) VALUES (?, ?) ON CONFLICT DO NOTHING",
+                username, ts) == 0) {
+            jdbcTemplate.update(update, ts, username);
+        }
+        contentVersions.userChanged(username);
     }
 
+    @Transactional(readOnly = true)
     public int countUnread(String username) {
-        Timestamp ts = getLastSeen(username);
+        Timestamp never = Timestamp.from(Instant.EPOCH);
         String sql = "SELECT COUNT(*) FROM (" +
-                " SELECT 'POST' AS kind, id AS ref_id FROM posts WHERE created_at > ?" +
+                " SELECT 'POST' AS kind, id AS ref_id FROM posts WHERE created_at > " + LAST_SEEN + " AND id > " + SEEN_THROUGH +
                 " UNION ALL " +
-                " SELECT 'COMMENT' AS kind, id AS ref_id FROM comments WHERE created_at > ?" +
+                " SELECT 'COMMENT' AS kind, id AS ref_id FROM comments WHERE created_at > " + LAST_SEEN + " AND id > " + SEEN_THROUGH +
                 ") t LEFT JOIN user_seen_items s ON s.username = ? AND s.kind = t.kind AND s.ref_id = t.ref_id " +
                 "WHERE s.username IS NULL";
-        Integer c = jdbcTemplate.queryForObject(sql, Integer.class, ts, ts, username);
+        Integer c = jdbcTemplate.queryForObject(sql, Integer.class, username, never, username, "POST", username, never, username, "COMMENT", username);
         return c == null ? 0 : c;
     }
 
+    @Transactional(readOnly = true)
     public List<NotificationRow> listUnread(String username, int limit) {
-        Timestamp ts = getLastSeen(username);
+        Timestamp never = Timestamp.from(Instant.EPOCH);
         String sql = "SELECT * FROM (" +
-                " SELECT 'POST' AS kind, id AS ref_id, title AS title, content AS body, created_at AS created_at, username AS actor, NULL AS post_id FROM posts WHERE created_at > ?" +
+                " SELECT 'POST' AS kind, id AS ref_id, title AS title, content AS body, created_at AS created_at, username AS actor, NULL AS post_id FROM posts WHERE created_at > " + LAST_SEEN + " AND id > " + SEEN_THROUGH +
                 " UNION ALL " +
-                " SELECT 'COMMENT' AS kind, id AS ref_id, NULL AS title, content AS body, created_at AS created_at, username AS actor, post_id FROM comments WHERE created_at > ?" +
+                " SELECT 'COMMENT' AS kind, id AS ref_id, NULL AS title, content AS body, created_at AS created_at, username AS actor, post_id FROM comments WHERE created_at > " + LAST_SEEN + " AND id > " + SEEN_THROUGH +
                 ") t LEFT JOIN user_seen_items s ON s.username = ? AND s.kind = t.kind AND s.ref_id = t.ref_id " +
                 "WHERE s.username IS NULL ORDER BY t.created_at DESC LIMIT ?";
         return jdbcTemplate.query(sql, (rs, i) -> new NotificationRow(
@@ -64,26 +93,104 @@ public class NotificationRepository {
                 rs.getTimestamp("created_at"),
                 rs.getString("actor"),
                 (Long) (rs.getObject("post_id") == null ? null : rs.getLong("post_id"))
-        ), ts, ts, username, limit);
+        ), username, never, username, "POST", username, never, username, "COMMENT", username, limit);
     }
 
     public void markSeen(String username, String kind, long refId) {
-        jdbcTemplate.update(
+        if (seenFilter.contains(username, kind, refId)) {
+            return;
+        }
+        int inserted = jdbcTemplate.update(
                 "INSERT INTO user_seen_items (username, kind, ref_id) VALUES (?, ?, ?) " +
-                        "ON CONFLICT (username, kind, ref_id) DO NOTHING",
+                        "ON CONFLICT DO NOTHING",
                 username, kind, refId
         );
+        seenFilter.add(username, kind, refId);
+        if (inserted > 0) {
+            contentVersions.userChanged(username);
+        }
+    }
+
+    public void markSeenAll(String username, String kind, Collection<Long> refIds) {
+        if (refIds == null || refIds.isEmpty()) return;
+        List<Long> unseen = refIds.stream().filter(id -> !seenFilter.contains(username, kind, id)).toList();
+        if (unseen.isEmpty()) return;
+        int[] inserted = jdbcTemplate.batchUpdate(
+                "INSERT INTO user_seen_items (username, kind, ref_id) VALUES (?, ?, ?) " +
+                        "ON CONFLICT DO NOTHING",
+                unseen.stream().map(id -> new Object[]{username, kind, id}).toList()
+        );
+        unseen.forEach(id -> seenFilter.add(username, kind, id));
+        // SUCCESS_NO_INFO (-2) counts as a change
+        if (Arrays.stream(inserted).anyMatch(n -> n != 0)) {
+            contentVersions.userChanged(username);
+        }
     }
 
     public void markCommentsSeen(String username, Set<Long> commentIds) {
-        if (commentIds == null || commentIds.isEmpty()) return;
-        for (Long id : commentIds) {
-            jdbcTemplate.update(
-                    "INSERT INTO user_seen_items (username, kind, ref_id) VALUES (?, 'COMMENT', ?) " +
-                            "ON CONFLICT (username, kind, ref_id) DO NOTHING",
-                    username, id
-            );
+        markSeenAll(username, "COMMENT", commentIds);
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> findUsersWithSeenState() {
+        return jdbcTemplate.queryForList(
+                "SELECT username FROM user_last_seen UNION SELECT username FROM user_seen_watermarks", String.class);
+    }
+
+    /**
+     * Moves the user's watermark for {@code kind} up to just below the first item that is still unread
+     * or was created at or after {@code settledBefore}, then deletes the {@code user_seen_items} rows it
+     * now covers. Items created before the last visit count as read, as they do for notifications.
+     * Recent items always stop the watermark, so an id handed out but not yet committed is never skipped.
+     *
+     * @return the number of {@code user_seen_items} rows deleted
+     */
+    public int compactSeenItems(String username, String kind, Timestamp settledBefore) {
+        String table = switch (kind) {
+            case "POST" -> "posts";
+            case "COMMENT" -> "comments";
+            default -> throw new IllegalArgumentException("Unknown kind: " + kind);
+        };
+        long current = findWatermarks(username).getOrDefault(kind, 0L);
+        List<Timestamp> lastSeen = jdbcTemplate.query("SELECT last_seen FROM user_last_seen WHERE username = ?",
+                (rs, i) -> rs.getTimestamp(1), username);
+        Timestamp readBefore = lastSeen.isEmpty() ? Timestamp.from(Instant.EPOCH) : lastSeen.get(0);
+        Long blocker = jdbcTemplate.queryForObject(
+                "SELECT MIN(c.id) FROM " + table + " c WHERE c.id > ? AND (c.created_at >= ?" +
+                        " OR (c.created_at > ? AND NOT EXISTS (SELECT 1 FROM user_seen_items s" +
+                        " WHERE s.username = ? AND s.kind = ? AND s.ref_id = c.id)))",
+                Long.class, current, settledBefore, readBefore, username, kind);
+        Long through = blocker != null ? Long.valueOf(blocker - 1)
+                : jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        if (through == null || through <= current) {
+            return 0;
         }
+        int updated = jdbcTemplate.update(
+                "UPDATE user_seen_watermarks SET seen_through = ? WHERE username = ? AND kind = ? AND seen_through < ?",
+                through, username, kind, through);
+        if (updated == 0) {
+            jdbcTemplate.update("INSERT INTO user_seen_watermarks (username, kind, seen_through) VALUES (?, ?, ?) " +
+                    "ON CONFLICT DO NOTHING", username, kind, through);
+        }
+        // Rows at or below whatever watermark is stored now are redundant, even if another instance moved it further.
+        return jdbcTemplate.update("DELETE FROM user_seen_items WHERE username = ? AND kind = ? AND ref_id <= " +
+                "(SELECT seen_through FROM user_seen_watermarks WHERE username = ? AND kind = ?)", username, kind, username, kind);
+    }
+
+    /**
+     * Drops the in-memory seen filter so it picks up watermarks moved by {@link #compactSeenItems}.
+     */
+    public void resetSeenFilter() {
+        seenFilter.clear();
+    }
+
+    private Map<String, Long> findWatermarks(String username) {
+        Map<String, Long> watermarks = new HashMap<>();
+        jdbcTemplate.query("SELECT kind, seen_through FROM user_seen_watermarks WHERE username = ?",
+                rs -> {
+                    watermarks.put(rs.getString("kind"), rs.getLong("seen_through"));
+                }, username);
+        return watermarks;
     }
 
     public static class NotificationRow {
@@ -0,0 +1,127 @@
+package com.home.knowledge.notify;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-memory answer to "has this user already seen this item?", so that opening a post or comment
+ * again does not write to {@code user_seen_items}.
+ * <p>
+ * Per user and kind it keeps the watermark from {@code user_seen_watermarks} (loaded on first use)
+ * and a sorted array of the ids above it that were marked seen through this instance. Seen items never
+ * become unseen, so a hit is always right; a miss only costs the insert that would have happened
+ * anyway. At most {@value #MAX_IDS} ids are kept per user and kind (the lowest go first, recent items
+ * are the ones opened again), about 2 KB; users are evicted least-recently-used beyond {@code maxUsers}.
+ */
+final class SeenFilter {
+    static final int MAX_IDS = 512;
+
+    private final int maxUsers;
+    private final Function<String, Map<String, Long>> watermarkLoader;
+    private final LinkedHashMap<String, Map<String, KindSeen>> users;
+
+    SeenFilter(int maxUsers, Function<String, Map<String, Long>> watermarkLoader) {
+        this.maxUsers = maxUsers;
+        this.watermarkLoader = watermarkLoader;
+        this.users = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, KindSeen>> eldest) {
+                return size() > SeenFilter.this.maxUsers;
+            }
+        };
+    }
+
+    boolean contains(String username, String kind, long refId) {
+        if (maxUsers <= 0) {
+            return false;
+        }
+        KindSeen seen = kind(username, kind);
+        synchronized (this) {
+            return seen.contains(refId);
+        }
+    }
+
+    void add(String username, String kind, long refId) {
+        if (maxUsers <= 0) {
+            return;
+        }
+        KindSeen seen = kind(username, kind);
+        synchronized (this) {
+            seen.add(refId);
+        }
+    }
+
+    /**
+     * Forgets everything; entries reload their (possibly advanced) watermarks on next use.
+     */
+    synchronized void clear() {
+        users.clear();
+    }
+
+    private KindSeen kind(String username, String kind) {
+        Map<String, KindSeen> kinds;
+        synchronized (this) {
+            kinds = users.get(username);
+        }
+        if (kinds == null) {
+            // Loaded outside the lock; two threads may both load, which is harmless.
+            Map<String, KindSeen> loaded = new HashMap<>();
+            watermarkLoader.apply(username).forEach((k, through) -> loaded.put(k, new KindSeen(through)));
+            synchronized (this) {
+                kinds = users.computeIfAbsent(username, u -> loaded);
+            }
+        }
+        synchronized (this) {
+            return kinds.computeIfAbsent(kind, k -> new KindSeen(0));
+        }
+    }
+
+    private static final class KindSeen {
+        private final long watermark;
+        // Offsets of seen ids above the watermark, ascending; the first size entries are in use.
+        private int[] above = new int[8];
+        private int size;
+
+        KindSeen(long watermark) {
+            this.watermark = watermark;
+        }
+
+        boolean contains(long refId) {
+            if (refId <= watermark) {
+                return true;
+            }
+            long offset = refId - watermark;
+            return offset <= Integer.MAX_VALUE && Arrays.binarySearch(above, 0, size, (int) offset) >= 0;
+        }
+
+        void add(long refId) {
+            long offset = refId - watermark;
+            if (offset <= 0 || offset > Integer.MAX_VALUE) {
+                return;
+            }
+            int at = Arrays.binarySearch(above, 0, size, (int) offset);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == MAX_IDS) {
+                if (at == 0) {
+                    return;
+                }
+                // Drops the lowest id to make room.
+                System.arraycopy(above, 1, above, 0, at - 1);
+                above[at - 1] = (int) offset;
+                return;
+            }
+            if (size == above.length) {
+                above = Arrays.copyOf(above, Math.min(MAX_IDS, size * 2));
+            }
+            System.arraycopy(above, at, above, at + 1, size - at);
+            above[at] = (int) offset;
+            size++;
+        }
+    }
+}
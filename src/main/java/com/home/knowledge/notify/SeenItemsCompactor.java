@@ -0,0 +1,90 @@
+package com.home.knowledge.notify;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically folds each user's {@code user_seen_items} into per-kind watermarks, so the table and the
+ * notification anti-join stay bounded by what a user has left unread instead of everything they have
+ * ever opened. Runs every {@code app.notifications.compaction.interval} (0 disables it); running on
+ * several instances at once is safe, as watermarks only move forward.
+ */
+@Component
+public class SeenItemsCompactor {
+    private static final Logger log = LoggerFactory.getLogger(SeenItemsCompactor.class);
+    private static final List<String> KINDS = List.of("POST", "COMMENT");
+
+    private final NotificationRepository notificationRepository;
+    private final Duration interval;
+    private final Duration settle;
+    private ScheduledExecutorService scheduler;
+
+    public SeenItemsCompactor(NotificationRepository notificationRepository,
+                              @Value("${app.notifications.compaction.interval:1h}") Duration interval,
+                              @Value("${app.notifications.compaction.settle:10m}") Duration settle) {
+        this.notificationRepository = notificationRepository;
+        this.interval = interval;
+        this.settle = settle;
+    }
+
+    @PostConstruct
+    void start() {
+        if (interval.isZero() || interval.isNegative()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "seen-items-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::runSafely, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Compacts every user once.
+     *
+     * @return the number of {@code user_seen_items} rows removed
+     */
+    public int compact() {
+        Timestamp settledBefore = Timestamp.from(Instant.now().minus(settle));
+        int removed = 0;
+        for (String username : notificationRepository.findUsersWithSeenState()) {
+            for (String kind : KINDS) {
+                removed += notificationRepository.compactSeenItems(username, kind, settledBefore);
+            }
+        }
+        notificationRepository.resetSeenFilter();
+        return removed;
+    }
+
+    private void runSafely() {
+        try {
+            long started = System.nanoTime();
+            int removed = compact();
+            log.info("Compacted user_seen_items: {} rows folded into watermarks in {} ms",
+                    removed, (System.nanoTime() - started) / 1_000_000);
+        } catch (DataAccessException e) {
+            log.warn("Seen-items compaction failed; retrying in {}", interval, e);
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package com.home.knowledge.post;
+
+import com.home.knowledge.dedup.SimilarityIndex;
+import com.home.knowledge.event.DomainEvent;
+import com.home.knowledge.event.DomainEventBus;
+import com.home.knowledge.notify.NotificationRepository;
+import com.home.knowledge.ratelimit.RateLimiter;
+import com.home.knowledge.summary.ArticleAiService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+
+/**
+ * Imports many article URLs at once: drafts are built in parallel (bounded globally and per host)
+ * and the resulting posts are inserted in batches, one transaction per batch. Every URL is charged to
+ * the importing user's {@code create} rate limit before it is handed to a worker; a job over its limit
+ * waits on a timer, so workers stay free for other users' jobs.
+ */
+@Component
+public class BulkImporter {
+    private static final Logger log = LoggerFactory.getLogger(BulkImporter.class);
+    private static final Duration JOB_RETENTION = Duration.ofHours(1);
+
+    private final ArticleAiService summaryService;
+    private final PostRepository postRepository;
+    private final SimilarityIndex similarityIndex;
+    private final DomainEventBus eventBus;
+    private final NotificationRepository notificationRepository;
+    private final RateLimiter rateLimiter;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService dispatcher;
+    private final int perHostConcurrency;
+    private final long hostDelayMillis;
+    private final int batchSize;
+    private final int maxUrls;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> hostNextStart = new ConcurrentHashMap<>();
+
+    public BulkImporter(ArticleAiService summaryService,
+                        PostRepository postRepository,
+                        SimilarityIndex similarityIndex,
+                        DomainEventBus eventBus,
+                        NotificationRepository notificationRepository,
+                        RateLimiter rateLimiter,
+                        TransactionTemplate transactionTemplate,
+                        @Value("${app.import.max-concurrency:4}") int maxConcurrency,
+                        @Value("${app.import.per-host-concurrency:1}") int perHostConcurrency,
+                        @Value("${app.import.host-delay-ms:1000}") long hostDelayMillis,
+                        @Value("${app.import.batch-size:20}") int batchSize,
+                        @Value("${app.import.max-urls:1000}") int maxUrls) {
+        this.summaryService = summaryService;
+        this.postRepository = postRepository;
+        this.similarityIndex = similarityIndex;
+        this.eventBus = eventBus;
+        this.notificationRepository = notificationRepository;
+        this.rateLimiter = rateLimiter;
+        this.transactionTemplate = transactionTemplate;
+        this.perHostConcurrency = Math.max(1, perHostConcurrency);
+        this.hostDelayMillis = Math.max(0, hostDelayMillis);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxUrls = maxUrls;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, maxConcurrency), r -> {
+            Thread t = new Thread(r, "bulk-import-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "bulk-import-dispatch");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public int getMaxUrls() {
+        return maxUrls;
+    }
+
+    /**
+     * Starts an import job and returns immediately. Invalid and duplicate URLs are reported as failures
+     * without being fetched.
+     */
+    public ImportJob start(String username, Collection<String> rawUrls) {
+        evictFinishedJobs();
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), username);
+        Set<String> urls = new LinkedHashSet<>();
+        for (String raw : rawUrls) {
+            String url = raw != null ? raw.trim() : "";
+            if (!StringUtils.hasText(url)) {
+                continue;
+            }
+            if (hostOf(url) == null) {
+                job.fail(url, "URLの形式が正しくありません");
+            } else if (!urls.add(url)) {
+                job.fail(url, "重複したURLです");
+            }
+        }
+        List<String> ordered = interleaveByHost(urls);
+        job.total.set(ordered.size());
+        jobs.put(job.id, job);
+        if (ordered.isEmpty()) {
+            job.finish();
+            return job;
+        }
+        job.queued.addAll(ordered);
+        dispatch(job);
+        return job;
+    }
+
+    public ImportJob find(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * Hands the job's URLs to the workers while the user's {@code create} bucket has tokens. Each URL costs
+     * what creating a post does; once the bucket is empty the rest waits for the next token on the
+     * dispatcher instead of failing or holding a worker.
+     */
+    private void dispatch(ImportJob job) {
+        String url;
+        while ((url = job.queued.peek()) != null) {
+            long wait = rateLimiter.tryAcquire(RateLimiter.Endpoint.CREATE, job.username);
+            if (wait > 0) {
+                dispatcher.schedule(() -> dispatch(job), wait, TimeUnit.NANOSECONDS);
+                return;
+            }
+            job.queued.poll();
+            String next = url;
+            executor.execute(() -> importOne(job, next));
+        }
+    }
+
+    private void importOne(ImportJob job, String url) {
+        try {
+            ArticleAiService.ArticleSource source = fetchPolitely(url);
+            int[] signature = similarityIndex.signatureOf(source.text());
+            var duplicate = similarityIndex.findDuplicate(signature);
+            if (duplicate.isPresent()) {
+                summaryService.skipDraft(source);
+                job.fail(url, "似た記事がすでに投稿されています: /posts/" + duplicate.get().postId());
+                return;
+            }
+            // The index only sees this job's posts once their batch commits; AMP and canonical copies of one
+            // story in the same list are caught here.
+            String twin = job.claim(url, signature, similarityIndex::similar);
+            if (twin != null) {
+                summaryService.skipDraft(source);
+                job.fail(url, "同じ取り込みの中に似た記事があります: " + twin);
+                return;
+            }
+            ArticleAiService.ArticleDraft draft = summaryService.buildDraft(source);
+            if (!StringUtils.hasText(draft.content()) && !StringUtils.hasText(draft.summary())) {
+                job.release(url);
+                job.fail(url, "本文を取得できませんでした");
+            } else {
+                List<Pending> batch = job.add(new Pending(url, new PostRepository.NewPost(
+                        draft.title(), draft.content(), url, normalizeSummary(draft.summary())), signature), batchSize);
+                if (batch != null) {
+                    flush(job, batch);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail(url, "中断されました");
+        } catch (RuntimeException e) {
+            log.warn("Bulk import of {} failed", url, e);
+            job.release(url);
+            job.fail(url, "取得に失敗しました: " + e.getMessage());
+        } finally {
+            if (job.processed.incrementAndGet() == job.total.get()) {
+                flush(job, job.drain());
+                job.finish();
+                log.info("Bulk import {} finished: {} imported, {} failed", job.id, job.imported.get(), job.failures.size());
+            }
+        }
+    }
+
+    /**
+     * Only the page fetch counts against the host's limits; the LLM call runs after the permit is released.
+     */
+    private ArticleAiService.ArticleSource fetchPolitely(String url) throws InterruptedException {
+        String host = hostOf(url);
+        Semaphore permits = hostPermits.computeIfAbsent(host, h -> new Semaphore(perHostConcurrency));
+        permits.acquire();
+        try {
+            AtomicLong nextStart = hostNextStart.computeIfAbsent(host, h -> new AtomicLong());
+            long now = System.currentTimeMillis();
+            long startAt = nextStart.getAndAccumulate(now, (next, current) -> Math.max(next, current) + hostDelayMillis);
+            long wait = Math.max(startAt, now) - now;
+            if (wait > 0) {
+                Thread.sleep(wait);
+            }
+            return summaryService.fetchArticle(url);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void flush(ImportJob job, List<Pending> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<PostRepository.NewPost> posts = batch.stream().map(Pending::post).toList();
+        try {
+            Instant createdAt = Instant.now();
+            List<Long> ids = transactionTemplate.execute(status -> {
+                List<Long> saved = postRepository.saveAll(job.username, posts);
+                // The importer's own posts are never notifications; committed together with the posts.
+                notificationRepository.markSeenAll(job.username, "POST", saved);
+                // Events and content versions follow once the batch commits; nothing if it rolls back.
+                for (int i = 0; i < saved.size(); i++) {
+                    PostRepository.NewPost post = posts.get(i);
+                    eventBus.publish(new DomainEvent.PostCreated(new Post(saved.get(i), job.username, post.title(),
+                            post.content(), null, post.linkUrl(), post.summary(), createdAt)));
+                }
+                return saved;
+            });
+            job.imported.addAndGet(batch.size());
+            for (int i = 0; ids != null && i < ids.size(); i++) {
+                similarityIndex.add(ids.get(i), batch.get(i).signature());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Bulk import batch of {} posts failed", batch.size(), e);
+            batch.forEach(p -> {
+                job.release(p.url());
+                job.fail(p.url(), "保存に失敗しました");
+            });
+        }
+    }
+
+    /**
+     * Orders URLs round-robin across hosts so a long run of one site does not occupy every worker
+     * while it waits for that host's permit.
+     */
+    private List<String> interleaveByHost(Collection<String> urls) {
+        Map<String, Deque<String>> byHost = new LinkedHashMap<>();
+        for (String url : urls) {
+            byHost.computeIfAbsent(hostOf(url), h -> new ArrayDeque<>()).add(url);
+        }
+        List<String> ordered = new ArrayList<>(urls.size());
+        while (!byHost.isEmpty()) {
+            var it = byHost.values().iterator();
+            while (it.hasNext()) {
+                Deque<String> queue = it.next();
+                ordered.add(queue.poll());
+                if (queue.isEmpty()) {
+                    it.remove();
+                }
+            }
+        }
+        return ordered;
+    }
+
+    private static String hostOf(String url) {
+        try {
+            URI uri = URI.create(url);
+            String scheme = uri.getScheme();
+            if (uri.getHost() == null || scheme == null
+                    || !(scheme.equalsIgnoreCase("http") || scheme.equalsIgnoreCase("https"))) {
+                return null;
+            }
+            return uri.getHost().toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String normalizeSummary(String raw) {
+        if (!StringUtils.hasText(raw)) return "";
+        return raw.trim().replaceAll("\\s+", " ");
+    }
+
+    private void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(JOB_RETENTION);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private record Pending(String url, PostRepository.NewPost post, int[] signature) {
+    }
+
+    public static class ImportJob {
+        private final String id;
+        private final String username;
+        private final AtomicInteger total = new AtomicInteger();
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger imported = new AtomicInteger();
+        private final List<Failure> failures = new ArrayList<>();
+        private final List<Pending> pending = new ArrayList<>();
+        // Not yet handed to a worker; only the dispatcher takes from it.
+        private final Queue<String> queued = new ConcurrentLinkedQueue<>();
+        // Signatures of the URLs being drafted or imported by this job, by URL.
+        private final Map<String, int[]> claimed = new LinkedHashMap<>();
+        private volatile Instant finishedAt;
+
+        ImportJob(String id, String username) {
+            this.id = id;
+            this.username = username;
+        }
+
+        public String getId() { return id; }
+        public String getUsername() { return username; }
+        public int getTotal() { return total.get(); }
+        public int getProcessed() { return processed.get(); }
+        public int getImported() { return imported.get(); }
+        public boolean isDone() { return finishedAt != null; }
+
+        public synchronized List<Failure> getFailures() {
+            return List.copyOf(failures);
+        }
+
+        synchronized void fail(String url, String reason) {
+            failures.add(new Failure(url, reason));
+        }
+
+        /**
+         * Records the URL's signature unless an earlier URL of this job has a similar one.
+         *
+         * @return the earlier URL, or null if the signature was recorded
+         */
+        synchronized String claim(String url, int[] signature, BiPredicate<int[], int[]> similar) {
+            if (signature == null) {
+                return null;
+            }
+            for (Map.Entry<String, int[]> entry : claimed.entrySet()) {
+                if (similar.test(signature, entry.getValue())) {
+                    return entry.getKey();
+                }
+            }
+            claimed.put(url, signature);
+            return null;
+        }
+
+        /** Forgets a URL that will not be imported, so a later copy of it may be. */
+        synchronized void release(String url) {
+            claimed.remove(url);
+        }
+
+        synchronized List<Pending> add(Pending item, int batchSize) {
+            pending.add(item);
+            return pending.size() >= batchSize ? drain() : null;
+        }
+
+        synchronized List<Pending> drain() {
+            List<Pending> batch = new ArrayList<>(pending);
+            pending.clear();
+            return batch;
+        }
+
+        void finish() {
+            finishedAt = Instant.now();
+        }
+    }
+
+    public record Failure(String url, String reason) {
+    }
+}
@@ -11,8 +11,16 @@ public class Post {
     private final String linkUrl;
     private final String summary;
     private final Instant createdAt;
+    private final boolean archived;
 
     public Post(long id, String username, String title, String content, String imageUrl, String linkUrl, String summary, Instant createdAt) {
+        this(id, username, title, content, imageUrl, linkUrl, summary, createdAt, false);
+    }
+
+    /**
+     * @param archived whether the post was read from {@code posts_archive}; archived posts are read-only
+     */
+    public Post(long id, String username, String title, String content, String imageUrl, String linkUrl, String summary, Instant createdAt, boolean archived) {
         this.id = id;
         this.username = username;
         this.title = title;
@@ -21,6 +29,7 @@ public class Post {
         this.linkUrl = linkUrl;
         this.summary = summary;
         this.createdAt = createdAt;
+        this.archived = archived;
     }
 
     public long getId() { return id; }
@@ -31,4 +40,5 @@ public class Post {
     public String getLinkUrl() { return linkUrl; }
     public String getSummary() { return summary; }
     public Instant getCreatedAt() { return createdAt; }
+    public boolean isArchived() { return archived; }
 }
@@ -0,0 +1,208 @@
+package com.home.knowledge.post;
+
+import com.home.knowledge.cache.ContentVersions;
+import com.home.knowledge.comment.CommentRepository;
+import com.home.knowledge.read.ReadRepository;
+import com.home.knowledge.read.ReaderSummary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rendered HTML of the timeline and search post cards, keyed by post id and post version.
+ * <p>
+ * Only the parts shared by every user are cached (title, summary, comment count, reader summary); the
+ * per-user flags are spliced into marker comments of the cached HTML on each request. Comment counts
+ * and readers are only queried for posts that are not cached. Entries are dropped when the post's
+ * version moves (edits, comments, likes, reads) and evicted least-recently-used beyond
+ * {@code app.cache.post-cards.max-bytes}.
+ */
+@Component
+public class PostCardCache {
+    private static final String TEMPLATE = "fragments/post_card";
+    private static final String NEW_POST_SLOT = "<!--card:new-post-->";
+    private static final String SAVED_SLOT = "<!--card:saved-->";
+    private static final String NEW_COMMENT_SLOT = "<!--card:new-comment-->";
+    // Readers named on a card; the rest are fetched from /posts/{id}/readers when the list is opened.
+    private static final int READER_PREVIEW = 5;
+    // Rough per-entry overhead of the key, the entry and the map node.
+    private static final long ENTRY_OVERHEAD = 96;
+
+    private final ITemplateEngine templateEngine;
+    private final CommentRepository commentRepository;
+    private final ReadRepository readRepository;
+    private final ContentVersions contentVersions;
+    private final long maxBytes;
+    private final Counter hits;
+    private final Counter misses;
+
+    private final LinkedHashMap<CardKey, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytes;
+    private volatile Snippets snippets;
+
+    public PostCardCache(ITemplateEngine templateEngine,
+                         CommentRepository commentRepository,
+                         ReadRepository readRepository,
+                         ContentVersions contentVersions,
+                         MeterRegistry registry,
+                         @Value("${app.cache.post-cards.max-bytes:16777216}") long maxBytes) {
+        this.templateEngine = templateEngine;
+        this.commentRepository = commentRepository;
+        this.readRepository = readRepository;
+        this.contentVersions = contentVersions;
+        this.maxBytes = maxBytes;
+        this.hits = Counter.builder("post.cards.cache").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("post.cards.cache").tag("result", "miss").register(registry);
+        Gauge.builder("post.cards.cache.bytes", this, PostCardCache::sizeInBytes).register(registry);
+        contentVersions.addPostListener(this::evict);
+        contentVersions.addResetListener(this::clear);
+    }
+
+    /**
+     * Returns one HTML {@code <li>} per post, in order, with the viewer's flags applied.
+     */
+    public List<String> render(List<Post> posts, boolean search,
+                               Set<Long> savedPostIds, Set<Long> newPostIds, Set<Long> newCommentPosts) {
+        String[] shared = new String[posts.size()];
+        long[] versions = new long[posts.size()];
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < posts.size(); i++) {
+            // Read before the data so a concurrent write can only make the stored entry stale, never wrong.
+            versions[i] = contentVersions.postVersion(posts.get(i).getId());
+            shared[i] = lookup(new CardKey(posts.get(i).getId(), search), versions[i]);
+            if (shared[i] == null) {
+                missing.add(i);
+            }
+        }
+        hits.increment(posts.size() - missing.size());
+        misses.increment(missing.size());
+        if (!missing.isEmpty()) {
+            List<Long> ids = missing.stream().map(i -> posts.get(i)).filter(p -> !p.isArchived()).map(Post::getId).toList();
+            List<Long> archivedIds = missing.stream().map(i -> posts.get(i)).filter(Post::isArchived).map(Post::getId).toList();
+            Map<Long, Integer> commentCounts = new HashMap<>(commentRepository.countByPostIds(ids, false));
+            Map<Long, ReaderSummary> readers = new HashMap<>(readRepository.findReaderSummaries(ids, false, READER_PREVIEW));
+            if (!archivedIds.isEmpty()) {
+                // Search also lists archived posts, whose engagement rows moved with them.
+                commentCounts.putAll(commentRepository.countByPostIds(archivedIds, true));
+                readers.putAll(readRepository.findReaderSummaries(archivedIds, true, READER_PREVIEW));
+            }
+            for (int i : missing) {
+                Post post = posts.get(i);
+                shared[i] = renderShared(post, search, commentCounts.getOrDefault(post.getId(), 0),
+                        readers.getOrDefault(post.getId(), ReaderSummary.NONE));
+                // A replica may not have caught up with the version read above yet.
+                if (contentVersions.postSettled(post.getId())) {
+                    store(new CardKey(post.getId(), search), versions[i], shared[i]);
+                }
+            }
+        }
+        Snippets s = snippets();
+        List<String> cards = new ArrayList<>(posts.size());
+        for (int i = 0; i < posts.size(); i++) {
+            long id = posts.get(i).getId();
+            cards.add(shared[i]
+                    .replace(NEW_POST_SLOT, newPostIds.contains(id) ? s.newPost() : "")
+                    .replace(SAVED_SLOT, savedPostIds.contains(id) ? s.saved() : s.unsaved())
+                    .replace(NEW_COMMENT_SLOT, newCommentPosts.contains(id) ? s.newComment() : ""));
+        }
+        return cards;
+    }
+
+    public void evict(long postId) {
+        synchronized (entries) {
+            remove(new CardKey(postId, false));
+            remove(new CardKey(postId, true));
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            bytes = 0;
+        }
+    }
+
+    private String lookup(CardKey key, long version) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            return entry != null && entry.version() == version ? entry.html() : null;
+        }
+    }
+
+    private void store(CardKey key, long version, String html) {
+        Entry entry = new Entry(version, html, 2L * html.length() + ENTRY_OVERHEAD);
+        if (entry.weight() > maxBytes) {
+            return;
+        }
+        synchronized (entries) {
+            remove(key);
+            entries.put(key, entry);
+            bytes += entry.weight();
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= eldest.next().weight();
+                eldest.remove();
+            }
+        }
+    }
+
+    private void remove(CardKey key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.weight();
+        }
+    }
+
+    private long sizeInBytes() {
+        synchronized (entries) {
+            return bytes;
+        }
+    }
+
+    private String renderShared(Post post, boolean search, int commentCount, ReaderSummary readers) {
+        Context context = new Context(Locale.JAPAN);
+        context.setVariable("post", post);
+        context.setVariable("search", search);
+        context.setVariable("commentCount", commentCount);
+        context.setVariable("readers", readers);
+        return templateEngine.process(TEMPLATE, Set.of("card"), context);
+    }
+
+    private Snippets snippets() {
+        Snippets s = snippets;
+        if (s == null) {
+            s = new Snippets(fragment("newPostBadge", false), fragment("savedIcon", true),
+                    fragment("savedIcon", false), fragment("newCommentBadge", false));
+            snippets = s;
+        }
+        return s;
+    }
+
+    private String fragment(String name, boolean saved) {
+        Context context = new Context(Locale.JAPAN);
+        context.setVariable("saved", saved);
+        return templateEngine.process(TEMPLATE, Set.of(name), context);
+    }
+
+    private record CardKey(long postId, boolean search) {
+    }
+
+    private record Entry(long version, String html, long weight) {
+    }
+
+    private record Snippets(String newPost, String saved, String unsaved, String newComment) {
+    }
+}
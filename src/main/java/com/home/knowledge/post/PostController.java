@@ -1,11 +1,23 @@
 package com.home.knowledge.post;
 
+import com.home.knowledge.cache.ContentVersions;
+import com.home.knowledge.comment.Comment;
+import com.home.knowledge.comment.CommentCursor;
 import com.home.knowledge.comment.CommentRepository;
+import com.home.knowledge.dedup.SimilarityIndex;
+import com.home.knowledge.event.DomainEvent;
+import com.home.knowledge.event.DomainEventBus;
 import com.home.knowledge.like.LikeRepository;
 import com.home.knowledge.notify.NotificationRepository;
 import com.home.knowledge.read.ReadRepository;
+import com.home.knowledge.related.RelatedPostIndex;
 import com.home.knowledge.summary.ArticleAiService;
 import com.home.knowledge.markdown.MarkdownService;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.util.StringUtils;
@@ -13,6 +25,8 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.ArrayList;
@@ -23,11 +37,12 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
-import org.springframework.http.MediaType;
-import org.springframework.web.bind.annotation.ResponseBody;
 
 @Controller
 public class PostController {
+    // Comments on the detail page; older ones are loaded on demand.
+    private static final int COMMENT_PAGE_SIZE = 30;
+    private static final int MAX_COMMENT_PAGE_SIZE = 100;
 
     private final PostRepository repository;
     private final CommentRepository commentRepository;
@@ -36,6 +51,11 @@ public class PostController {
     private final NotificationRepository notificationRepository;
     private final ArticleAiService summaryService;
     private final MarkdownService markdownService;
+    private final SimilarityIndex similarityIndex;
+    private final RelatedPostIndex relatedPostIndex;
+    private final ContentVersions contentVersions;
+    private final PostCardCache postCardCache;
+    private final DomainEventBus eventBus;
 
     public PostController(PostRepository repository,
                           CommentRepository commentRepository,
@@ -43,7 +63,12 @@ public class PostController {
                           ReadRepository readRepository,
                           NotificationRepository notificationRepository,
                           ArticleAiService summaryService,
-                          MarkdownService markdownService) {
+                          MarkdownService markdownService,
+                          SimilarityIndex similarityIndex,
+                          RelatedPostIndex relatedPostIndex,
+                          ContentVersions contentVersions,
+                          PostCardCache postCardCache,
+                          DomainEventBus eventBus) {
         this.repository = repository;
         this.commentRepository = commentRepository;
         this.likeRepository = likeRepository;
@@ -51,14 +76,25 @@ public class PostController {
         this.notificationRepository = notificationRepository;
         this.summaryService = summaryService;
         this.markdownService = markdownService;
+        this.similarityIndex = similarityIndex;
+        this.relatedPostIndex = relatedPostIndex;
+        this.contentVersions = contentVersions;
+        this.postCardCache = postCardCache;
+        this.eventBus = eventBus;
     }
 
     @GetMapping("/")
     public String timeline(@org.springframework.web.bind.annotation.RequestParam(name = "unread", required = false) Boolean unread,
-                           jakarta.servlet.http.HttpSession session,
+                           jakarta.servlet.http.HttpServletRequest request,
+                           ServletWebRequest webRequest,
                            Model model) {
+        String user = (String) request.getAttribute("loginUser");
+        String etag = contentVersions.timelineTag(user);
+        boolean cacheable = isCacheable(model);
+        if (cacheable && notModified(webRequest, etag)) {
+            return null;
+        }
         var posts = repository.findAll();
-        String user = (String) session.getAttribute("loginUser");
         Set<Long> readIds = Set.of();
         Set<Long> likedPostIds = new HashSet<>();
         if (StringUtils.hasText(user)) {
@@ -74,20 +110,13 @@ public class PostController {
         }
         model.addAttribute("posts", posts);
         model.addAttribute("readPostIds", readIds);
-        Map<Long, Integer> likeCounts = new HashMap<>();
-        Map<Long, List<String>> readersByPost = new HashMap<>();
-        Set<Long> postIds = posts.stream().map(p -> p.getId()).collect(Collectors.toSet());
-        Map<Long, Integer> commentCounts = commentRepository.countByPostIds(postIds);
-        model.addAttribute("commentCounts", commentCounts);
-        posts.forEach(p -> {
-            likeCounts.put(p.getId(), likeRepository.countByPostId(p.getId()));
-            readersByPost.put(p.getId(), readRepository.findReadersByPostId(p.getId()));
-        });
-        model.addAttribute("likeCounts", likeCounts);
-        model.addAttribute("readersByPost", readersByPost);
         model.addAttribute("savedPostIds", likedPostIds);
-        addNotificationsToModel(session, model);
+        addNotificationsToModel(request, model);
+        model.addAttribute("cards", renderCards(posts, false, likedPostIds, model));
         model.addAttribute("filterUser", null);
+        if (cacheable) {
+            tagIfUnchanged(webRequest, etag, contentVersions.timelineTag(user), contentVersions.timelineSettled(user));
+        }
         return "timeline";
     }
 
@@ -96,10 +125,10 @@ public class PostController {
                          @RequestParam(required = false) String query,
                          @RequestParam(required = false) String saved,
                          @RequestParam(required = false) String read,
-                         jakarta.servlet.http.HttpSession session,
+                         jakarta.servlet.http.HttpServletRequest request,
                          Model model) {
-        List<Post> posts = new ArrayList<>(repository.findAll());
-        String loginUser = (String) session.getAttribute("loginUser");
+        List<Post> posts = new ArrayList<>(repository.findAllIncludingArchive());
+        String loginUser = (String) request.getAttribute("loginUser");
         Boolean savedFilter = parseFlag(saved);
         Boolean readFilter = parseFlag(read);
         Set<Long> likedPostIds = new HashSet<>();
@@ -138,42 +167,31 @@ public class PostController {
                 posts.removeIf(p -> readIds.contains(p.getId()));
             }
         }
-        Set<Long> postIds = posts.stream().map(Post::getId).collect(Collectors.toSet());
-        Map<Long, Integer> commentCounts = commentRepository.countByPostIds(postIds);
-        Map<Long, Integer> likeCounts = new HashMap<>();
-        Map<Long, List<String>> readersByPost = new HashMap<>();
-        posts.forEach(p -> {
-            likeCounts.put(p.getId(), likeRepository.countByPostId(p.getId()));
-            readersByPost.put(p.getId(), readRepository.findReadersByPostId(p.getId()));
-        });
         model.addAttribute("posts", posts);
-        model.addAttribute("likeCounts", likeCounts);
-        model.addAttribute("commentCounts", commentCounts);
-        model.addAttribute("readersByPost", readersByPost);
         model.addAttribute("savedPostIds", likedPostIds);
         model.addAttribute("authorFilter", author);
         model.addAttribute("queryFilter", query);
         model.addAttribute("savedFilter", savedFilter);
         model.addAttribute("readFilter", readFilter);
-        addNotificationsToModel(session, model);
+        addNotificationsToModel(request, model);
+        model.addAttribute("cards", renderCards(posts, true, likedPostIds, model));
         model.addAttribute("filterUser", null);
         return "search";
     }
 
     @GetMapping("/users/{username}")
-    public String userTimeline(@PathVariable String username, jakarta.servlet.http.HttpSession session, Model model) {
+    public String userTimeline(@PathVariable String username, jakarta.servlet.http.HttpServletRequest request, Model model) {
         var posts = repository.findByUsername(username);
         model.addAttribute("posts", posts);
         model.addAttribute("filterUser", username);
-        Set<Long> postIds = posts.stream().map(p -> p.getId()).collect(Collectors.toSet());
-        model.addAttribute("commentCounts", commentRepository.countByPostIds(postIds));
         Set<Long> savedPostIds = new HashSet<>();
-        String viewer = (String) session.getAttribute("loginUser");
+        String viewer = (String) request.getAttribute("loginUser");
         if (StringUtils.hasText(viewer)) {
             savedPostIds.addAll(likeRepository.findPostIdsByUser(viewer.trim()));
         }
         model.addAttribute("savedPostIds", savedPostIds);
-        addNotificationsToModel(session, model);
+        addNotificationsToModel(request, model);
+        model.addAttribute("cards", renderCards(posts, false, savedPostIds, model));
         return "timeline";
     }
 
@@ -183,10 +201,10 @@ public class PostController {
             @RequestParam(required = false) String title,
             @RequestParam(required = false) String summary,
             @RequestParam(required = false) String content,
-            jakarta.servlet.http.HttpSession session,
+            jakarta.servlet.http.HttpServletRequest request,
             RedirectAttributes redirectAttributes
     ) {
-        String loginUser = (String) session.getAttribute("loginUser");
+        String loginUser = (String) request.getAttribute("loginUser");
         if (!StringUtils.hasText(loginUser)) {
             redirectAttributes.addFlashAttribute("error", "投稿するにはログインが必要です");
             return "redirect:/login";
@@ -196,7 +214,13 @@ public class PostController {
             return "redirect:/posts/new";
         }
         String trimmedLink = linkUrl.trim();
-        ArticleAiService.ArticleDraft draft = summaryService.buildDraft(trimmedLink);
+        var source = summaryService.fetchArticle(trimmedLink);
+        int[] signature = similarityIndex.signatureOf(source.text());
+        var duplicate = findDuplicatePost(signature);
+        ArticleAiService.ArticleDraft draft = duplicate
+                .map(p -> summaryService.reuseDraft(source,
+                        ArticleAiService.ArticleDraft.of(p.getTitle(), p.getContent(), p.getSummary())))
+                .orElseGet(() -> summaryService.buildDraft(source));
         String finalTitle = StringUtils.hasText(title) ? title.trim() : draft.title();
         String finalSummary = StringUtils.hasText(summary) ? normalizeSummary(summary) : normalizeSummary(draft.summary());
         String finalContent = StringUtils.hasText(content) ? content.trim() : draft.content();
@@ -208,7 +232,16 @@ public class PostController {
                 trimmedLink,
                 finalSummary
         );
+        // Added here rather than from the event: the signature exists only in this request, and the next
+        // duplicate check should already see it.
+        similarityIndex.add(post.getId(), signature);
+        // Before the redirect, so the author's own post never shows up as a notification on the next page.
         notificationRepository.markSeen(loginUser.trim(), "POST", post.getId());
+        eventBus.publish(new DomainEvent.PostCreated(post));
+        duplicate.ifPresent(p -> {
+            redirectAttributes.addFlashAttribute("duplicateOfId", p.getId());
+            redirectAttributes.addFlashAttribute("duplicateOfTitle", p.getTitle());
+        });
         return "redirect:/posts/" + post.getId();
     }
 
@@ -216,10 +249,10 @@ public class PostController {
     public String addComment(
             @RequestParam long postId,
             @RequestParam String content,
-            jakarta.servlet.http.HttpSession session,
+            jakarta.servlet.http.HttpServletRequest request,
             RedirectAttributes redirectAttributes
     ) {
-        String loginUser = (String) session.getAttribute("loginUser");
+        String loginUser = (String) request.getAttribute("loginUser");
         if (!StringUtils.hasText(loginUser)) {
             redirectAttributes.addFlashAttribute("error", "コメントするにはログインが必要です");
             return "redirect:/login";
@@ -230,26 +263,68 @@ public class PostController {
         }
         var comment = commentRepository.save(postId, loginUser.trim(), content.trim());
         notificationRepository.markSeen(loginUser.trim(), "COMMENT", comment.getId());
+        eventBus.publish(new DomainEvent.CommentAdded(comment));
         return "redirect:/posts/" + postId;
     }
 
+    /**
+     * The detail page's comment form, sent from script with {@code Accept: application/json}: answers with
+     * the new comment instead of redirecting to the whole page.
+     */
+    @PostMapping(value = "/comments", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> addCommentJson(@RequestParam long postId,
+                                                              @RequestParam(required = false) String content,
+                                                              jakarta.servlet.http.HttpServletRequest request) {
+        String loginUser = (String) request.getAttribute("loginUser");
+        if (!StringUtils.hasText(loginUser)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "コメントするにはログインが必要です"));
+        }
+        if (postId <= 0 || !StringUtils.hasText(content)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "コメント内容を入力してください"));
+        }
+        Comment comment;
+        try {
+            comment = commentRepository.save(postId, loginUser.trim(), content.trim());
+        } catch (DataIntegrityViolationException e) {
+            // Deleted or archived; comments only reference live posts.
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "この投稿にはコメントできません"));
+        }
+        notificationRepository.markSeen(loginUser.trim(), "COMMENT", comment.getId());
+        eventBus.publish(new DomainEvent.CommentAdded(comment));
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("comment", CommentPayload.of(comment)));
+    }
+
     @GetMapping("/posts/{id}")
-    public String detail(@PathVariable long id, Model model, jakarta.servlet.http.HttpSession session, RedirectAttributes redirectAttributes) {
+    public String detail(@PathVariable long id, Model model, jakarta.servlet.http.HttpServletRequest request,
+                         ServletWebRequest webRequest, RedirectAttributes redirectAttributes) {
+        String etag = detailTag(id, (String) request.getAttribute("loginUser"));
+        boolean cacheable = isCacheable(model);
+        if (cacheable && notModified(webRequest, etag)) {
+            return null;
+        }
         var opt = repository.findById(id);
         if (opt.isEmpty()) {
             redirectAttributes.addFlashAttribute("error", "Post not found");
             return "redirect:/";
         }
         var post = opt.get();
-        var comments = commentRepository.findByPostId(id);
+        var commentPage = commentRepository.findLatest(id, post.isArchived(), COMMENT_PAGE_SIZE);
+        var comments = commentPage.comments();
         model.addAttribute("post", post);
         model.addAttribute("postContentHtml", markdownService.render(post.getContent()));
         model.addAttribute("comments", comments);
-        String loginUser = (String) session.getAttribute("loginUser");
-        model.addAttribute("likedByMe", (loginUser != null && likeRepository.likedByUser(id, loginUser)));
+        model.addAttribute("hasOlderComments", commentPage.hasMore());
+        model.addAttribute("olderCommentsCursor", commentPage.hasMore() ? commentPage.oldest().encode() : null);
+        model.addAttribute("newerCommentsCursor", comments.isEmpty() ? CommentCursor.START.encode() : commentPage.newest().encode());
+        String loginUser = (String) request.getAttribute("loginUser");
+        model.addAttribute("likedByMe", (loginUser != null && !post.isArchived() && likeRepository.likedByUser(id, loginUser)));
         boolean isRead = false;
         if (StringUtils.hasText(loginUser)) {
-            readRepository.markRead(id, loginUser.trim());
+            // Archived posts are read-only; their reads are not recorded any more.
+            if (!post.isArchived() && readRepository.markRead(id, loginUser.trim())) {
+                eventBus.publish(new DomainEvent.PostRead(id, loginUser.trim()));
+            }
             notificationRepository.markSeen(loginUser.trim(), "POST", id);
             var commentIds = comments.stream()
                     .map(c -> c.getId())
@@ -257,24 +332,89 @@ public class PostController {
             notificationRepository.markCommentsSeen(loginUser.trim(), commentIds);
             isRead = true;
         }
-        var readers = readRepository.findReadersByPostId(id);
+        var readers = readRepository.findReadersByPostId(id, post.isArchived());
         model.addAttribute("readers", readers);
         model.addAttribute("readersCount", readers.size());
         model.addAttribute("isRead", isRead);
-        addNotificationsToModel(session, model);
+        model.addAttribute("relatedPosts", relatedPostIndex.relatedTo(id));
+        addNotificationsToModel(request, model);
+        if (cacheable) {
+            tagIfUnchanged(webRequest, etag, detailTag(id, loginUser), contentVersions.postPageSettled(id, loginUser));
+        }
         return "post_detail";
     }
 
+    /**
+     * The related posts are indexed in the background after the post's version moved, so they are
+     * versioned separately.
+     */
+    private String detailTag(long id, String loginUser) {
+        return contentVersions.postTag(id, loginUser) + "-r" + relatedPostIndex.version(id);
+    }
+
+    /**
+     * "Load older / newer" for the comment thread of the detail page: {@code before} or {@code after}
+     * takes a cursor from the page or a previous response. Only the delivered comments are marked seen.
+     * A cursor that does not parse is a 400, not the latest page, which would repeat comments the client has.
+     */
+    @GetMapping(value = "/posts/{id}/comments", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> comments(@PathVariable long id,
+                                                        @RequestParam(required = false) String before,
+                                                        @RequestParam(required = false) String after,
+                                                        @RequestParam(defaultValue = "" + COMMENT_PAGE_SIZE) int limit,
+                                                        jakarta.servlet.http.HttpServletRequest request) {
+        int size = Math.max(1, Math.min(limit, MAX_COMMENT_PAGE_SIZE));
+        CommentCursor beforeCursor = CommentCursor.parse(before);
+        CommentCursor afterCursor = CommentCursor.parse(after);
+        if ((before != null && beforeCursor == null) || (after != null && afterCursor == null)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "カーソルの形式が正しくありません"));
+        }
+        boolean archived = repository.findById(id).map(Post::isArchived).orElse(false);
+        var page = beforeCursor != null ? commentRepository.findBefore(id, archived, beforeCursor, size)
+                : afterCursor != null ? commentRepository.findAfter(id, archived, afterCursor, size)
+                : commentRepository.findLatest(id, archived, size);
+        String user = (String) request.getAttribute("loginUser");
+        if (StringUtils.hasText(user) && !page.comments().isEmpty()) {
+            notificationRepository.markCommentsSeen(user, page.comments().stream()
+                    .map(Comment::getId)
+                    .collect(Collectors.toSet()));
+        }
+        // The cursor for the next request in the same direction; for "newer" it stays put when nothing came.
+        CommentCursor next = beforeCursor != null ? page.oldest()
+                : page.comments().isEmpty() ? afterCursor : page.newest();
+        Map<String, Object> body = new HashMap<>();
+        body.put("comments", page.comments().stream().map(CommentPayload::of).toList());
+        body.put("hasMore", page.hasMore());
+        body.put("cursor", next != null ? next.encode() : null);
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Full reader list for a timeline or search card, which only names the first few readers.
+     */
+    @GetMapping(value = "/posts/{id}/readers", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public Map<String, Object> readers(@PathVariable long id) {
+        boolean archived = repository.findById(id).map(Post::isArchived).orElse(false);
+        List<String> readers = readRepository.findReadersByPostId(id, archived);
+        Map<String, Object> body = new HashMap<>();
+        body.put("count", readers.size());
+        body.put("readers", readers);
+        return body;
+    }
+
     @GetMapping("/posts/{id}/go")
-    public String goToLink(@PathVariable long id, jakarta.servlet.http.HttpSession session, RedirectAttributes redirectAttributes) {
+    public String goToLink(@PathVariable long id, jakarta.servlet.http.HttpServletRequest request, RedirectAttributes redirectAttributes) {
         var opt = repository.findById(id);
         if (opt.isEmpty()) {
             redirectAttributes.addFlashAttribute("error", "Post not found");
             return "redirect:/";
         }
-        String user = (String) session.getAttribute("loginUser");
-        if (org.springframework.util.StringUtils.hasText(user)) {
-            readRepository.markRead(id, user.trim());
+        String user = (String) request.getAttribute("loginUser");
+        if (org.springframework.util.StringUtils.hasText(user) && !opt.get().isArchived()
+                && readRepository.markRead(id, user.trim())) {
+            eventBus.publish(new DomainEvent.PostRead(id, user.trim()));
         }
         String link = opt.get().getLinkUrl();
         if (!org.springframework.util.StringUtils.hasText(link)) {
@@ -286,24 +426,35 @@ public class PostController {
     @PostMapping(value = "/posts/preview", produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
     public Map<String, String> preview(@RequestParam(name = "linkUrl") String linkUrl) {
-        var draft = summaryService.buildDraft(linkUrl.trim());
+        var source = summaryService.fetchArticle(linkUrl.trim());
+        var duplicate = findDuplicatePost(similarityIndex.signatureOf(source.text()));
+        var draft = duplicate
+                .map(p -> summaryService.reuseDraft(source,
+                        ArticleAiService.ArticleDraft.of(p.getTitle(), p.getContent(), p.getSummary())))
+                .orElseGet(() -> summaryService.buildDraft(source));
         String summary = draft.summary();
         summary = summary.replaceAll("\\s+", " ").trim();
         Map<String, String> body = new HashMap<>();
+        duplicate.ifPresent(p -> body.put("duplicateOf", String.valueOf(p.getId())));
         body.put("title", draft.title());
         body.put("summary", normalizeSummary(summary));
         body.put("content", draft.content());
         return body;
     }
 
+    private java.util.Optional<Post> findDuplicatePost(int[] signature) {
+        return similarityIndex.findDuplicate(signature)
+                .flatMap(match -> repository.findById(match.postId()));
+    }
+
     private String normalizeSummary(String raw) {
         if (!StringUtils.hasText(raw)) return "";
         return raw.trim().replaceAll("\\s+", " ");
     }
 
     @org.springframework.web.bind.annotation.PostMapping("/notifications/seen")
-    public String markNotificationsSeen(jakarta.servlet.http.HttpSession session, jakarta.servlet.http.HttpServletRequest request) {
-        String user = (String) session.getAttribute("loginUser");
+    public String markNotificationsSeen(jakarta.servlet.http.HttpServletRequest request) {
+        String user = (String) request.getAttribute("loginUser");
         if (org.springframework.util.StringUtils.hasText(user)) {
             notificationRepository.upsertLastSeen(user, new java.sql.Timestamp(System.currentTimeMillis()));
         }
@@ -313,8 +464,8 @@ public class PostController {
 
     @GetMapping(value = "/notifications/feed", produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseBody
-    public Map<String, Object> fetchNotifications(jakarta.servlet.http.HttpSession session) {
-        String user = (String) session.getAttribute("loginUser");
+    public Map<String, Object> fetchNotifications(jakarta.servlet.http.HttpServletRequest request) {
+        String user = (String) request.getAttribute("loginUser");
         if (!StringUtils.hasText(user)) {
             return Map.of("count", 0, "items", List.of());
         }
@@ -332,8 +483,44 @@ public class PostController {
                 .collect(Collectors.toList());
     }
 
-    private void addNotificationsToModel(jakarta.servlet.http.HttpSession session, Model model) {
-        String user = (String) session.getAttribute("loginUser");
+    /**
+     * Post cards for the list pages; needs the notification attributes for the "new" badges.
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> renderCards(List<Post> posts, boolean search, Set<Long> savedPostIds, Model model) {
+        return postCardCache.render(posts, search, savedPostIds,
+                (Set<Long>) model.getAttribute("newPostIds"),
+                (Set<Long>) model.getAttribute("newCommentPosts"));
+    }
+
+    /**
+     * Flash attributes are already in the model when the handler starts. A page showing a one-off
+     * message must not be revalidated into a 304 later.
+     */
+    private boolean isCacheable(Model model) {
+        return model.asMap().isEmpty();
+    }
+
+    private boolean notModified(ServletWebRequest webRequest, String etag) {
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        // checkNotModified also sets the ETag header, which we only want on a match.
+        String ifNoneMatch = webRequest.getHeader(HttpHeaders.IF_NONE_MATCH);
+        return ifNoneMatch != null && ifNoneMatch.contains("\"" + etag + "\"") && webRequest.checkNotModified(etag);
+    }
+
+    /**
+     * Tags the page only if no version moved while it was built, whether by this request's own writes
+     * (marking the post read) or a concurrent one, and replicas have caught up with the versions in
+     * the tag; otherwise the next request renders and tags it.
+     */
+    private void tagIfUnchanged(ServletWebRequest webRequest, String before, String after, boolean settled) {
+        if (before.equals(after) && settled) {
+            webRequest.getResponse().setHeader(HttpHeaders.ETAG, "\"" + before + "\"");
+        }
+    }
+
+    private void addNotificationsToModel(jakarta.servlet.http.HttpServletRequest request, Model model) {
+        String user = (String) request.getAttribute("loginUser");
         if (org.springframework.util.StringUtils.hasText(user)) {
             int count = notificationRepository.countUnread(user);
             var list = notificationRepository.listUnread(user, 10);
@@ -371,25 +558,29 @@ public class PostController {
     }
 
     @GetMapping("/posts/new")
-    public String newPost(jakarta.servlet.http.HttpSession session, Model model) {
-        addNotificationsToModel(session, model);
+    public String newPost(jakarta.servlet.http.HttpServletRequest request, Model model) {
+        addNotificationsToModel(request, model);
         model.addAttribute("filterUser", null);
         return "post_new";
     }
 
     @GetMapping("/posts/{id}/edit")
-    public String editPost(@PathVariable long id, jakarta.servlet.http.HttpSession session, Model model, RedirectAttributes redirectAttributes) {
+    public String editPost(@PathVariable long id, jakarta.servlet.http.HttpServletRequest request, Model model, RedirectAttributes redirectAttributes) {
         var opt = repository.findById(id);
         if (opt.isEmpty()) {
             redirectAttributes.addFlashAttribute("error", "Post not found");
             return "redirect:/";
         }
         var post = opt.get();
-        String user = (String) session.getAttribute("loginUser");
+        String user = (String) request.getAttribute("loginUser");
         if (!post.getUsername().equals(user)) {
             redirectAttributes.addFlashAttribute("error", "編集権限がありません");
             return "redirect:/posts/" + id;
         }
+        if (post.isArchived()) {
+            redirectAttributes.addFlashAttribute("error", "アーカイブ済みの投稿は編集できません");
+            return "redirect:/posts/" + id;
+        }
         model.addAttribute("post", post);
         return "post_edit";
     }
@@ -401,7 +592,7 @@ public class PostController {
             @RequestParam String content,
             @RequestParam String linkUrl,
             @RequestParam(required = false, name = "imageUrl") String imageUrl,
-            jakarta.servlet.http.HttpSession session,
+            jakarta.servlet.http.HttpServletRequest request,
             RedirectAttributes redirectAttributes
     ) {
         var opt = repository.findById(id);
@@ -410,66 +601,115 @@ public class PostController {
             return "redirect:/";
         }
         var post = opt.get();
-        String user = (String) session.getAttribute("loginUser");
+        String user = (String) request.getAttribute("loginUser");
         if (!post.getUsername().equals(user)) {
             redirectAttributes.addFlashAttribute("error", "編集権限がありません");
             return "redirect:/posts/" + id;
         }
+        if (post.isArchived()) {
+            redirectAttributes.addFlashAttribute("error", "アーカイブ済みの投稿は編集できません");
+            return "redirect:/posts/" + id;
+        }
         if (!StringUtils.hasText(content) || !StringUtils.hasText(linkUrl)) {
             redirectAttributes.addFlashAttribute("error", "本文とニュースURLは必須です");
             return "redirect:/posts/" + id + "/edit";
         }
-        repository.update(id, (title != null ? title.trim() : null), content.trim(), (imageUrl != null ? imageUrl.trim() : null), linkUrl.trim());
+        String newTitle = title != null ? title.trim() : null;
+        String newImageUrl = imageUrl != null ? imageUrl.trim() : null;
+        repository.update(id, newTitle, content.trim(), newImageUrl, linkUrl.trim());
+        eventBus.publish(new DomainEvent.PostUpdated(new Post(id, post.getUsername(), newTitle, content.trim(), newImageUrl, linkUrl.trim(), post.getSummary(), post.getCreatedAt())));
         return "redirect:/posts/" + id;
     }
 
     @PostMapping("/posts/{id}/delete")
-    public String deletePost(@PathVariable long id, jakarta.servlet.http.HttpSession session, RedirectAttributes redirectAttributes) {
+    public String deletePost(@PathVariable long id, jakarta.servlet.http.HttpServletRequest request, RedirectAttributes redirectAttributes) {
         var opt = repository.findById(id);
         if (opt.isEmpty()) {
             redirectAttributes.addFlashAttribute("error", "Post not found");
             return "redirect:/";
         }
         var post = opt.get();
-        String user = (String) session.getAttribute("loginUser");
+        String user = (String) request.getAttribute("loginUser");
         if (!post.getUsername().equals(user)) {
             redirectAttributes.addFlashAttribute("error", "削除権限がありません");
             return "redirect:/posts/" + id;
         }
+        if (post.isArchived()) {
+            redirectAttributes.addFlashAttribute("error", "アーカイブ済みの投稿は削除できません");
+            return "redirect:/posts/" + id;
+        }
         repository.delete(id);
+        eventBus.publish(new DomainEvent.PostDeleted(id, post.getUsername()));
         return "redirect:/";
     }
 
     @PostMapping("/posts/{id}/like")
-    public String like(@PathVariable long id, jakarta.servlet.http.HttpSession session, RedirectAttributes redirectAttributes) {
-        String user = (String) session.getAttribute("loginUser");
+    public String like(@PathVariable long id, jakarta.servlet.http.HttpServletRequest request, RedirectAttributes redirectAttributes) {
+        String user = (String) request.getAttribute("loginUser");
         if (!org.springframework.util.StringUtils.hasText(user)) {
             redirectAttributes.addFlashAttribute("error", "ログインが必要です");
             return "redirect:/login";
         }
-        likeRepository.like(id, user.trim());
+        setLiked(id, user.trim(), true);
         return "redirect:/posts/" + id;
     }
 
     @PostMapping("/posts/{id}/unlike")
-    public String unlike(@PathVariable long id, jakarta.servlet.http.HttpSession session, RedirectAttributes redirectAttributes) {
-        String user = (String) session.getAttribute("loginUser");
+    public String unlike(@PathVariable long id, jakarta.servlet.http.HttpServletRequest request, RedirectAttributes redirectAttributes) {
+        String user = (String) request.getAttribute("loginUser");
         if (!org.springframework.util.StringUtils.hasText(user)) {
             redirectAttributes.addFlashAttribute("error", "ログインが必要です");
             return "redirect:/login";
         }
-        likeRepository.unlike(id, user.trim());
+        setLiked(id, user.trim(), false);
         return "redirect:/posts/" + id;
     }
 
+    /**
+     * Like / unlike from script ({@code Accept: application/json}): returns the new state and like count
+     * instead of redirecting to the detail page.
+     */
+    @PostMapping(value = "/posts/{id}/like", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> likeJson(@PathVariable long id, jakarta.servlet.http.HttpServletRequest request) {
+        return likeState(id, true, request);
+    }
+
+    @PostMapping(value = "/posts/{id}/unlike", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> unlikeJson(@PathVariable long id, jakarta.servlet.http.HttpServletRequest request) {
+        return likeState(id, false, request);
+    }
+
+    private ResponseEntity<Map<String, Object>> likeState(long id, boolean liked, jakarta.servlet.http.HttpServletRequest request) {
+        String user = (String) request.getAttribute("loginUser");
+        if (!StringUtils.hasText(user)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "ログインが必要です"));
+        }
+        try {
+            setLiked(id, user.trim(), liked);
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "この投稿は保存できません"));
+        }
+        return ResponseEntity.ok(Map.of("liked", liked, "count", likeRepository.countByPostId(id)));
+    }
+
+    private void setLiked(long id, String user, boolean liked) {
+        if (liked && likeRepository.like(id, user)) {
+            eventBus.publish(new DomainEvent.Liked(id, user));
+        } else if (!liked && likeRepository.unlike(id, user)) {
+            eventBus.publish(new DomainEvent.Unliked(id, user));
+        }
+    }
+
     @GetMapping("/comments/{id}/edit")
-    public String editComment(@PathVariable long id, jakarta.servlet.http.HttpSession session, Model model, RedirectAttributes redirectAttributes) {
+    public String editComment(@PathVariable long id, jakarta.servlet.http.HttpServletRequest request, Model model, RedirectAttributes redirectAttributes) {
         var c = commentRepository.findById(id);
         if (c == null) {
             redirectAttributes.addFlashAttribute("error", "Comment not found");
             return "redirect:/";
         }
-        String user = (String) session.getAttribute("loginUser");
+        String user = (String) request.getAttribute("loginUser");
         if (!c.getUsername().equals(user)) {
             redirectAttributes.addFlashAttribute("error", "編集権限がありません");
             return "redirect:/posts/" + c.getPostId();
@@ -479,13 +719,13 @@ public class PostController {
     }
 
     @PostMapping("/comments/{id}/edit")
-    public String updateComment(@PathVariable long id, @RequestParam String content, jakarta.servlet.http.HttpSession session, RedirectAttributes redirectAttributes) {
+    public String updateComment(@PathVariable long id, @RequestParam String content, jakarta.servlet.http.HttpServletRequest request, RedirectAttributes redirectAttributes) {
         var c = commentRepository.findById(id);
         if (c == null) {
             redirectAttributes.addFlashAttribute("error", "Comment not found");
             return "redirect:/";
         }
-        String user = (String) session.getAttribute("loginUser");
+        String user = (String) request.getAttribute("loginUser");
         if (!c.getUsername().equals(user)) {
             redirectAttributes.addFlashAttribute("error", "編集権限がありません");
             return "redirect:/posts/" + c.getPostId();
@@ -494,26 +734,37 @@ public class PostController {
             redirectAttributes.addFlashAttribute("error", "コメント内容を入力してください");
             return "redirect:/comments/" + id + "/edit";
         }
-        commentRepository.updateContent(id, content.trim());
+        if (commentRepository.updateContent(id, content.trim()) > 0) {
+            eventBus.publish(new DomainEvent.CommentUpdated(id, c.getPostId(), c.getUsername()));
+        }
         return "redirect:/posts/" + c.getPostId();
     }
 
     @PostMapping("/comments/{id}/delete")
-    public String deleteComment(@PathVariable long id, jakarta.servlet.http.HttpSession session, RedirectAttributes redirectAttributes) {
+    public String deleteComment(@PathVariable long id, jakarta.servlet.http.HttpServletRequest request, RedirectAttributes redirectAttributes) {
         var c = commentRepository.findById(id);
         if (c == null) {
             redirectAttributes.addFlashAttribute("error", "Comment not found");
             return "redirect:/";
         }
-        String user = (String) session.getAttribute("loginUser");
+        String user = (String) request.getAttribute("loginUser");
         if (!c.getUsername().equals(user)) {
             redirectAttributes.addFlashAttribute("error", "削除権限がありません");
             return "redirect:/posts/" + c.getPostId();
         }
-        commentRepository.delete(id);
+        if (commentRepository.delete(id) > 0) {
+            eventBus.publish(new DomainEvent.CommentDeleted(id, c.getPostId(), c.getUsername()));
+        }
         return "redirect:/posts/" + c.getPostId();
     }
 
+    private record CommentPayload(long id, String username, String content, String createdAt) {
+        static CommentPayload of(Comment comment) {
+            return new CommentPayload(comment.getId(), comment.getUsername(), comment.getContent(),
+                    comment.getCreatedAt().toString());
+        }
+    }
+
     private record WebNotificationPayload(
             String kind,
             long refId,
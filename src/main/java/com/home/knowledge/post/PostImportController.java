@@ -0,0 +1,106 @@
+package com.home.knowledge.post;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Controller
+public class PostImportController {
+
+    private final BulkImporter importer;
+    private final ObjectMapper objectMapper;
+
+    public PostImportController(BulkImporter importer, ObjectMapper objectMapper) {
+        this.importer = importer;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Accepts {@code {"urls": ["https://...", ...]}} or a plain JSON array of URLs.
+     */
+    @PostMapping(value = "/posts/import", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> importJson(@RequestBody JsonNode body, jakarta.servlet.http.HttpServletRequest request) {
+        JsonNode urls = body.isArray() ? body : body.path("urls");
+        List<String> list = new ArrayList<>();
+        urls.forEach(node -> list.add(node.asText("")));
+        return start(list, request);
+    }
+
+    /**
+     * Accepts an uploaded text file with one URL per line (lines starting with '#' are ignored),
+     * or a JSON file in the same shape as {@link #importJson}.
+     */
+    @PostMapping(value = "/posts/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> importFile(@RequestParam("file") MultipartFile file, jakarta.servlet.http.HttpServletRequest request) throws IOException {
+        String text = new String(file.getBytes(), StandardCharsets.UTF_8).trim();
+        if (text.startsWith("{") || text.startsWith("[")) {
+            return importJson(objectMapper.readTree(text), request);
+        }
+        List<String> list = new ArrayList<>();
+        for (String line : text.split("\\R")) {
+            String trimmed = line.trim();
+            if (StringUtils.hasText(trimmed) && !trimmed.startsWith("#")) {
+                list.add(trimmed);
+            }
+        }
+        return start(list, request);
+    }
+
+    @GetMapping(value = "/posts/import/{jobId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> status(@PathVariable String jobId, jakarta.servlet.http.HttpServletRequest request) {
+        String loginUser = (String) request.getAttribute("loginUser");
+        var job = importer.find(jobId);
+        if (job == null || !job.getUsername().equals(loginUser)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Import job not found"));
+        }
+        return ResponseEntity.ok(toBody(job));
+    }
+
+    private ResponseEntity<Map<String, Object>> start(List<String> urls, jakarta.servlet.http.HttpServletRequest request) {
+        String loginUser = (String) request.getAttribute("loginUser");
+        if (!StringUtils.hasText(loginUser)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "投稿するにはログインが必要です"));
+        }
+        if (urls.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "URLを1件以上指定してください"));
+        }
+        if (urls.size() > importer.getMaxUrls()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "一度に取り込めるURLは" + importer.getMaxUrls() + "件までです"));
+        }
+        var job = importer.start(loginUser.trim(), urls);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(toBody(job));
+    }
+
+    private Map<String, Object> toBody(BulkImporter.ImportJob job) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("jobId", job.getId());
+        body.put("statusUrl", "/posts/import/" + job.getId());
+        body.put("total", job.getTotal());
+        body.put("processed", job.getProcessed());
+        body.put("imported", job.getImported());
+        body.put("failures", job.getFailures());
+        body.put("done", job.isDone());
+        return body;
+    }
+}
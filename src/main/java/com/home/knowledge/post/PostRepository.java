@@ -1,22 +1,29 @@
 package com.home.knowledge.post;
 
+import com.home.knowledge.cache.ContentVersions;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
 public class PostRepository {
 
     private final JdbcTemplate jdbcTemplate;
+    private final ContentVersions contentVersions;
 
     private final RowMapper<Post> rowMapper = (rs, rowNum) -> new Post(
             rs.getLong("id"),
@@ -26,11 +33,13 @@ public class PostRepository {
             rs.getString("image_url"),
             rs.getString("link_url"),
             rs.getString("summary"),
-            rs.getTimestamp("created_at").toInstant()
+            rs.getTimestamp("created_at").toInstant(),
+            rs.getBoolean("archived")
     );
 
-    public PostRepository(JdbcTemplate jdbcTemplate) {
+    public PostRepository(JdbcTemplate jdbcTemplate, ContentVersions contentVersions) {
         this.jdbcTemplate = jdbcTemplate;
+        this.contentVersions = contentVersions;
     }
 
     public Post save(String username, String title, String content, String imageUrl, String linkUrl, String summary) {
@@ -52,34 +61,114 @@ public class PostRepository {
 
         Number key = keyHolder.getKey();
         long id = key != null ? key.longValue() : -1L;
+        contentVersions.postContentChanged(id);
+        contentVersions.feedChanged();
         return new Post(id, username, title, content, imageUrl, linkUrl, summary, now);
     }
 
+    /**
+     * Inserts all posts with one JDBC batch and returns their generated ids in input order.
+     */
+    public List<Long> saveAll(String username, List<NewPost> posts) {
+        if (posts.isEmpty()) {
+            return List.of();
+        }
+        String sql = "INSERT INTO posts (username, title, content, image_url, link_url, summary, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(sql, new String[]{"id"}), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                NewPost post = posts.get(i);
+                ps.setString(1, username);
+                ps.setString(2, post.title());
+                ps.setString(3, post.content());
+                ps.setString(4, null);
+                ps.setString(5, post.linkUrl());
+                ps.setString(6, post.summary());
+                ps.setTimestamp(7, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return posts.size();
+            }
+        }, keyHolder);
+        List<Long> ids = new ArrayList<>();
+        for (Map<String, Object> keys : keyHolder.getKeyList()) {
+            ids.add(((Number) keys.values().iterator().next()).longValue());
+        }
+        ids.forEach(contentVersions::postContentChanged);
+        contentVersions.feedChanged();
+        return ids;
+    }
+
+    @Transactional(readOnly = true)
     public List<Post> findAll() {
-        String sql = "SELECT id, username, title, content, image_url, link_url, summary, created_at FROM posts ORDER BY created_at DESC, id DESC";
+        String sql = "SELECT id, username, title, content, image_url, link_url, summary, created_at, FALSE AS archived FROM posts ORDER BY created_at DESC, id DESC";
         return jdbcTemplate.query(sql, rowMapper);
     }
 
+    /**
+     * Live and archived posts, newest first, for search.
+     */
+    @Transactional(readOnly = true)
+    public List<Post> findAllIncludingArchive() {
+        String sql = "SELECT id, username, title, content, image_url, link_url, summary, created_at, FALSE AS archived FROM posts"
+                + " UNION ALL"
+                + " SELECT id, username, title, content, image_url, link_url, summary, created_at, TRUE AS archived FROM posts_archive"
+                + " ORDER BY created_at DESC, id DESC";
+        return jdbcTemplate.query(sql, rowMapper);
+    }
+
+    @Transactional(readOnly = true)
     public List<Post> findByUsername(String username) {
-        String sql = "SELECT id, username, title, content, image_url, link_url, summary, created_at FROM posts WHERE username = ? ORDER BY created_at DESC, id DESC";
+        String sql = "SELECT id, username, title, content, image_url, link_url, summary, created_at, FALSE AS archived FROM posts WHERE username = ? ORDER BY created_at DESC, id DESC";
         return jdbcTemplate.query(sql, rowMapper, username);
     }
 
+    /**
+     * Looks in {@code posts_archive} only when the post is not live, so the common case stays one lookup.
+     */
+    @Transactional(readOnly = true)
     public Optional<Post> findById(long id) {
         try {
-            String sql = "SELECT id, username, title, content, image_url, link_url, summary, created_at FROM posts WHERE id = ?";
+            String sql = "SELECT id, username, title, content, image_url, link_url, summary, created_at, FALSE AS archived FROM posts WHERE id = ?";
             return Optional.ofNullable(jdbcTemplate.queryForObject(sql, rowMapper, id));
         } catch (EmptyResultDataAccessException e) {
-            return Optional.empty();
+            String sql = "SELECT id, username, title, content, image_url, link_url, summary, created_at, TRUE AS archived FROM posts_archive WHERE id = ?";
+            return jdbcTemplate.query(sql, rowMapper, id).stream().findFirst();
         }
     }
 
+    /**
+     * A live post read from the primary; called right after another instance changed it, when the
+     * replicas may not have the change yet.
+     */
+    public Optional<Post> findLive(long id) {
+        String sql = "SELECT id, username, title, content, image_url, link_url, summary, created_at, FALSE AS archived FROM posts WHERE id = ?";
+        return jdbcTemplate.query(sql, rowMapper, id).stream().findFirst();
+    }
+
     public int update(long id, String title, String content, String imageUrl, String linkUrl) {
         String sql = "UPDATE posts SET title = ?, content = ?, image_url = ?, link_url = ? WHERE id = ?";
-        return jdbcTemplate.update(sql, title, content, imageUrl, linkUrl, id);
+        int updated = jdbcTemplate.update(sql, title, content, imageUrl, linkUrl, id);
+        if (updated > 0) {
+            contentVersions.postContentChanged(id);
+            contentVersions.feedChanged();
+        }
+        return updated;
     }
 
     public int delete(long id) {
-        return jdbcTemplate.update("DELETE FROM posts WHERE id = ?", id);
+        int deleted = jdbcTemplate.update("DELETE FROM posts WHERE id = ?", id);
+        if (deleted > 0) {
+            contentVersions.postContentChanged(id);
+            contentVersions.feedChanged();
+        }
+        return deleted;
+    }
+
+    public record NewPost(String title, String content, String linkUrl, String summary) {
     }
 }
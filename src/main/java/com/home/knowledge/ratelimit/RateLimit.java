@@ -0,0 +1,32 @@
+package com.home.knowledge.ratelimit;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+
+/**
+ * {@code capacity} requests per {@code period}, all of which may come at once. Written as
+ * {@code "10/1m"} in configuration; {@code "0"} or an empty value means no limit.
+ */
+record RateLimit(int capacity, Duration period) {
+
+    static RateLimit parse(String value) {
+        if (!StringUtils.hasText(value) || value.trim().equals("0")) {
+            return null;
+        }
+        int slash = value.indexOf('/');
+        if (slash < 0) {
+            throw new IllegalArgumentException("Rate limit must look like 10/1m: " + value);
+        }
+        int capacity = Integer.parseInt(value.substring(0, slash).trim());
+        Duration period = DurationStyle.detectAndParse(value.substring(slash + 1).trim());
+        if (capacity <= 0) {
+            return null;
+        }
+        if (period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("Rate limit period must be positive: " + value);
+        }
+        return new RateLimit(capacity, period);
+    }
+}
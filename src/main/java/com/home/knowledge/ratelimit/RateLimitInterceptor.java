@@ -0,0 +1,53 @@
+package com.home.knowledge.ratelimit;
+
+import com.home.knowledge.auth.AuthTokens;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers POSTs to a {@link RateLimiter.Endpoint} over its limit with 429 and {@code Retry-After}
+ * (whole seconds) before the controller fetches anything. Runs after {@code LoginInterceptor}, so the
+ * per-user bucket is keyed by the logged-in user.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private final RateLimiter rateLimiter;
+
+    public RateLimitInterceptor(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!"POST".equals(request.getMethod())) {
+            return true;
+        }
+        RateLimiter.Endpoint endpoint = RateLimiter.Endpoint.forPath(request.getRequestURI().substring(request.getContextPath().length()));
+        if (endpoint == null) {
+            return true;
+        }
+        long wait = rateLimiter.tryAcquire(endpoint, (String) request.getAttribute(AuthTokens.LOGIN_USER));
+        if (wait == 0) {
+            return true;
+        }
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+        String message = "リクエストが多すぎます。" + seconds + "秒後にもう一度お試しください";
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept != null && accept.contains(MediaType.APPLICATION_JSON_VALUE)) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write("{\"error\":\"" + message + "\",\"retryAfter\":" + seconds + "}");
+        } else {
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), message);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,133 @@
+package com.home.knowledge.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory per-user and global token buckets for the endpoints that fetch articles and call the LLM,
+ * configured under {@code app.rate-limit.<endpoint>} (see {@link RateLimit} for the format). Limits are
+ * per instance. Counted in {@code rate.limit.requests} by endpoint and result.
+ */
+@Component
+public class RateLimiter {
+    // Full buckets carry no state, so past this many users they are dropped.
+    private static final int MAX_TRACKED_USERS = 10_000;
+
+    public enum Endpoint {
+        PREVIEW("preview", "/posts/preview"),
+        CREATE("create", "/posts");
+
+        private final String key;
+        private final String path;
+
+        Endpoint(String key, String path) {
+            this.key = key;
+            this.path = path;
+        }
+
+        public String path() {
+            return path;
+        }
+
+        public static Endpoint forPath(String path) {
+            for (Endpoint endpoint : values()) {
+                if (endpoint.path.equals(path)) {
+                    return endpoint;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Map<Endpoint, Limits> limits = new EnumMap<>(Endpoint.class);
+
+    public RateLimiter(MeterRegistry registry,
+                       @Value("${app.rate-limit.preview.per-user:10/1m}") String previewPerUser,
+                       @Value("${app.rate-limit.preview.global:60/1m}") String previewGlobal,
+                       @Value("${app.rate-limit.create.per-user:10/1m}") String createPerUser,
+                       @Value("${app.rate-limit.create.global:60/1m}") String createGlobal) {
+        limits.put(Endpoint.PREVIEW, new Limits(Endpoint.PREVIEW, RateLimit.parse(previewPerUser), RateLimit.parse(previewGlobal), registry));
+        limits.put(Endpoint.CREATE, new Limits(Endpoint.CREATE, RateLimit.parse(createPerUser), RateLimit.parse(createGlobal), registry));
+    }
+
+    /**
+     * Takes a token from the user's bucket and the global one.
+     *
+     * @return 0 if the request may proceed, otherwise the nanoseconds until it may be retried
+     */
+    public long tryAcquire(Endpoint endpoint, String username) {
+        return tryAcquire(endpoint, username, System.nanoTime());
+    }
+
+    long tryAcquire(Endpoint endpoint, String username, long now) {
+        return limits.get(endpoint).tryAcquire(username, now);
+    }
+
+    private static final class Limits {
+        private final RateLimit perUser;
+        private final TokenBucket global;
+        private final Map<String, TokenBucket> users = new ConcurrentHashMap<>();
+        private final Counter allowed;
+        private final Counter rejectedUser;
+        private final Counter rejectedGlobal;
+
+        Limits(Endpoint endpoint, RateLimit perUser, RateLimit global, MeterRegistry registry) {
+            this.perUser = perUser;
+            this.global = global != null ? new TokenBucket(global, System.nanoTime()) : null;
+            this.allowed = counter(registry, endpoint, "allowed");
+            this.rejectedUser = counter(registry, endpoint, "rejected-user");
+            this.rejectedGlobal = counter(registry, endpoint, "rejected-global");
+            Gauge.builder("rate.limit.users", users, Map::size).tag("endpoint", endpoint.key).register(registry);
+        }
+
+        private static Counter counter(MeterRegistry registry, Endpoint endpoint, String result) {
+            return Counter.builder("rate.limit.requests")
+                    .tag("endpoint", endpoint.key)
+                    .tag("result", result)
+                    .register(registry);
+        }
+
+        long tryAcquire(String username, long now) {
+            TokenBucket user = perUser != null && username != null ? userBucket(username, now) : null;
+            if (user != null) {
+                long wait = user.tryTake(now);
+                if (wait > 0) {
+                    rejectedUser.increment();
+                    return wait;
+                }
+            }
+            if (global != null) {
+                long wait = global.tryTake(now);
+                if (wait > 0) {
+                    if (user != null) {
+                        user.giveBack();
+                    }
+                    rejectedGlobal.increment();
+                    return wait;
+                }
+            }
+            allowed.increment();
+            return 0;
+        }
+
+        private TokenBucket userBucket(String username, long now) {
+            TokenBucket bucket = users.get(username);
+            if (bucket != null) {
+                return bucket;
+            }
+            if (users.size() >= MAX_TRACKED_USERS) {
+                users.values().removeIf(b -> b.isFull(now));
+            }
+            bucket = new TokenBucket(perUser, now);
+            TokenBucket existing = users.putIfAbsent(username, bucket);
+            return existing != null ? existing : bucket;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.home.knowledge.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket kept as a single timestamp (the generic cell rate algorithm): {@code fullAt} is the
+ * {@link System#nanoTime()} at which the bucket will be full again. Taking a token pushes it one
+ * interval further; a take that would push it more than the capacity ahead of now is refused. Updates
+ * are a compare-and-set on one {@link AtomicLong}, so concurrent requests never block each other.
+ */
+final class TokenBucket {
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(RateLimit limit, long now) {
+        this.intervalNanos = Math.max(1, limit.period().toNanos() / limit.capacity());
+        this.burstNanos = intervalNanos * limit.capacity();
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * @return 0 if a token was taken, otherwise the nanoseconds until one will be available
+     */
+    long tryTake(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long next = (current - now > 0 ? current : now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Returns a token taken by {@link #tryTake} whose request was refused by another limit after all.
+     */
+    void giveBack() {
+        fullAt.addAndGet(-intervalNanos);
+    }
+
+    boolean isFull(long now) {
+        return fullAt.get() - now <= 0;
+    }
+}
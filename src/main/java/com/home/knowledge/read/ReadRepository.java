@@ -1,34 +1,87 @@
 package com.home.knowledge.read;
 
+import com.home.knowledge.cache.ContentVersions;
+import com.home.knowledge.jdbc.BatchedLookup;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Repository
 public class ReadRepository {
     private final JdbcTemplate jdbcTemplate;
+    private final ContentVersions contentVersions;
+    private final BatchedLookup batchedLookup;
 
-    public ReadRepository(JdbcTemplate jdbcTemplate) {
+    public ReadRepository(JdbcTemplate jdbcTemplate, ContentVersions contentVersions) {
         this.jdbcTemplate = jdbcTemplate;
+        this.contentVersions = contentVersions;
+        this.batchedLookup = new BatchedLookup(jdbcTemplate);
     }
 
-    public void markRead(long postId, String username) {
-        jdbcTemplate.update(
-                "INSERT INTO reads (post_id, username) VALUES (?, ?) ON CONFLICT (post_id, username) DO NOTHING",
+    /**
+     * @return whether this is the user's first read of the post
+     */
+    public boolean markRead(long postId, String username) {
+        // No conflict target: the primary key is the only unique constraint, and H2 accepts no other form.
+        int inserted = jdbcTemplate.update(
+                "INSERT INTO reads (post_id, username) VALUES (?, ?) ON CONFLICT DO NOTHING",
                 postId, username
         );
+        if (inserted > 0) {
+            contentVersions.postChanged(postId);
+            contentVersions.userChanged(username);
+        }
+        return inserted > 0;
     }
 
+    @Transactional(readOnly = true)
     public Set<Long> findReadPostIds(String username) {
         List<Long> list = jdbcTemplate.query("SELECT post_id FROM reads WHERE username = ?", (rs, i) -> rs.getLong(1), username);
         return new HashSet<>(list);
     }
 
-    public List<String> findReadersByPostId(long postId) {
-        String sql = "SELECT username FROM reads WHERE post_id = ? ORDER BY username";
+    /**
+     * Reader count and the first {@code limit} readers (alphabetically) of each post, in one query.
+     * Posts nobody has read are absent from the map; {@code archived} reads {@code reads_archive}.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, ReaderSummary> findReaderSummaries(Collection<Long> postIds, boolean archived, int limit) {
+        Map<Long, ReaderSummary> summaries = new HashMap<>();
+        if (postIds == null || postIds.isEmpty()) {
+            return summaries;
+        }
+        String sql = "SELECT post_id, username, total FROM ("
+                + " SELECT post_id, username,"
+                + "  COUNT(*) OVER (PARTITION BY post_id) AS total,"
+                + "  ROW_NUMBER() OVER (PARTITION BY post_id ORDER BY username) AS rn"
+                + " FROM " + table(archived) + " WHERE post_id = ANY(?)"
+                + ") r WHERE rn <= ? ORDER BY post_id, rn";
+        Map<Long, List<String>> names = new HashMap<>();
+        Map<Long, Integer> totals = new HashMap<>();
+        batchedLookup.query(sql, postIds, rs -> {
+            long postId = rs.getLong("post_id");
+            names.computeIfAbsent(postId, k -> new ArrayList<>()).add(rs.getString("username"));
+            totals.put(postId, rs.getInt("total"));
+        }, limit);
+        names.forEach((postId, first) -> summaries.put(postId, new ReaderSummary(totals.get(postId), List.copyOf(first))));
+        return summaries;
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> findReadersByPostId(long postId, boolean archived) {
+        String sql = "SELECT username FROM " + table(archived) + " WHERE post_id = ? ORDER BY username";
         return jdbcTemplate.query(sql, (rs, i) -> rs.getString(1), postId);
     }
+
+    private static String table(boolean archived) {
+        return archived ? "reads_archive" : "reads";
+    }
 }
@@ -0,0 +1,16 @@
+package com.home.knowledge.read;
+
+import java.util.List;
+
+/**
+ * How many users read a post, with the first few of them by name.
+ */
+public record ReaderSummary(int count, List<String> firstReaders) {
+
+    public static final ReaderSummary NONE = new ReaderSummary(0, List.of());
+
+    /** Whether {@link #firstReaders()} leaves some readers out. */
+    public boolean hasMore() {
+        return count > firstReaders.size();
+    }
+}
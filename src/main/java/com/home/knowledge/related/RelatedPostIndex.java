@@ -0,0 +1,367 @@
+package com.home.knowledge.related;
+
+import com.home.knowledge.cache.ContentVersions;
+import com.home.knowledge.event.DomainEvent;
+import com.home.knowledge.event.DomainEventListener;
+import com.home.knowledge.post.Post;
+import com.home.knowledge.post.PostRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * TF-IDF index over post titles, summaries and content with the top related posts precomputed on write.
+ * <p>
+ * All index maintenance runs on a single background thread; request threads only read the precomputed
+ * neighbor lists, so the detail page never scans {@code posts}. Vectors are weighted with the document
+ * frequencies known when the post was indexed; the full rebuild at startup re-weights everything.
+ * Posts are indexed as their {@link DomainEvent}s arrive; posts changed on other instances arrive through
+ * {@link ContentVersions#addRemoteContentListener} and are re-read from the primary. If invalidations
+ * were lost the index is rebuilt.
+ */
+@Component
+public class RelatedPostIndex implements DomainEventListener {
+    private static final Logger log = LoggerFactory.getLogger(RelatedPostIndex.class);
+    private static final int TOP_K = 5;
+    // Candidates are gathered from the heaviest terms only; common bigrams would pull in every post.
+    private static final int QUERY_TERMS = 24;
+    private static final double MIN_SCORE = 0.05;
+
+    private final PostRepository postRepository;
+    private final ExecutorService worker;
+
+    // Owned by the worker thread.
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final Map<Integer, Integer> documentFrequency = new HashMap<>();
+    private final Map<Integer, Set<Long>> postings = new HashMap<>();
+    private final Map<Long, SparseVector> vectors = new HashMap<>();
+    private final Map<Long, List<Neighbor>> neighborScores = new HashMap<>();
+
+    // Published to request threads.
+    private final Map<Long, RelatedPost> entries = new ConcurrentHashMap<>();
+    private final Map<Long, List<Long>> neighbors = new ConcurrentHashMap<>();
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    public RelatedPostIndex(PostRepository postRepository, ContentVersions contentVersions) {
+        this.postRepository = postRepository;
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "related-post-index");
+            t.setDaemon(true);
+            return t;
+        });
+        contentVersions.addRemoteContentListener(this::reload);
+        contentVersions.addResetListener(this::rebuild);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        worker.execute(() -> {
+            long started = System.currentTimeMillis();
+            List<Post> posts = postRepository.findAll();
+            termIds.clear();
+            documentFrequency.clear();
+            postings.clear();
+            vectors.clear();
+            neighborScores.clear();
+            Map<Long, Map<Integer, Integer>> counts = new HashMap<>();
+            for (Post post : posts) {
+                Map<Integer, Integer> termCounts = termCounts(post);
+                counts.put(post.getId(), termCounts);
+                termCounts.keySet().forEach(term -> documentFrequency.merge(term, 1, Integer::sum));
+                entries.put(post.getId(), RelatedPost.of(post));
+            }
+            for (Post post : posts) {
+                store(post.getId(), vectorize(counts.get(post.getId()), posts.size()));
+            }
+            for (Post post : posts) {
+                neighborScores.put(post.getId(), nearest(post.getId()));
+                publish(post.getId());
+            }
+            log.info("Indexed {} posts for related articles in {} ms", posts.size(), System.currentTimeMillis() - started);
+        });
+    }
+
+    /**
+     * Returns the precomputed related posts, most similar first.
+     */
+    public List<RelatedPost> relatedTo(long postId) {
+        List<Long> ids = neighbors.getOrDefault(postId, List.of());
+        List<RelatedPost> related = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            RelatedPost entry = entries.get(id);
+            if (entry != null) {
+                related.add(entry);
+            }
+        }
+        return related;
+    }
+
+    /**
+     * Moves whenever what {@link #relatedTo} returns for the post changes, including a neighbor's title
+     * or summary, so the detail page's ETag can include it: the lists are filled in after the post's
+     * own version has moved.
+     */
+    public long version(long postId) {
+        return versions.getOrDefault(postId, 0L);
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof DomainEvent.PostCreated created) {
+                postSaved(created.post());
+            } else if (event instanceof DomainEvent.PostUpdated updated) {
+                postSaved(updated.post());
+            } else if (event instanceof DomainEvent.PostDeleted deleted) {
+                postDeleted(deleted.postId());
+            }
+        }
+    }
+
+    public void postSaved(Post post) {
+        worker.execute(() -> index(post));
+    }
+
+    public void postDeleted(long postId) {
+        worker.execute(() -> drop(postId));
+    }
+
+    /**
+     * Re-reads a post another instance changed; archived and deleted posts are dropped.
+     */
+    void reload(long postId) {
+        worker.execute(() -> postRepository.findLive(postId).ifPresentOrElse(this::index, () -> drop(postId)));
+    }
+
+    private void index(Post post) {
+        Set<Long> affected = new HashSet<>(referrers(post.getId()));
+        unstore(post.getId());
+        Map<Integer, Integer> termCounts = termCounts(post);
+        termCounts.keySet().forEach(term -> documentFrequency.merge(term, 1, Integer::sum));
+        entries.put(post.getId(), RelatedPost.of(post));
+        store(post.getId(), vectorize(termCounts, vectors.size() + 1));
+        List<Neighbor> nearest = nearest(post.getId());
+        neighborScores.put(post.getId(), nearest);
+        publish(post.getId());
+        for (Neighbor neighbor : nearest) {
+            offer(neighbor.postId(), new Neighbor(post.getId(), neighbor.score()));
+        }
+        // Posts that pointed at the old version may no longer be similar to the edited one, and
+        // those that still do show its new title.
+        affected.remove(post.getId());
+        refresh(affected);
+        affected.forEach(this::touch);
+    }
+
+    private void drop(long postId) {
+        Set<Long> affected = referrers(postId);
+        unstore(postId);
+        entries.remove(postId);
+        neighbors.remove(postId);
+        neighborScores.remove(postId);
+        // Archived posts keep their detail page, now without related posts.
+        touch(postId);
+        refresh(affected);
+    }
+
+    private Set<Long> referrers(long postId) {
+        Set<Long> referrers = new HashSet<>();
+        neighborScores.forEach((id, list) -> {
+            for (Neighbor neighbor : list) {
+                if (neighbor.postId() == postId) {
+                    referrers.add(id);
+                    break;
+                }
+            }
+        });
+        return referrers;
+    }
+
+    private void refresh(Set<Long> postIds) {
+        for (Long id : postIds) {
+            if (vectors.containsKey(id)) {
+                neighborScores.put(id, nearest(id));
+                publish(id);
+            }
+        }
+    }
+
+    private void offer(long postId, Neighbor candidate) {
+        List<Neighbor> current = new ArrayList<>(neighborScores.getOrDefault(postId, List.of()));
+        current.removeIf(n -> n.postId() == candidate.postId());
+        current.add(candidate);
+        current.sort(Comparator.comparingDouble(Neighbor::score).reversed());
+        if (current.size() > TOP_K) {
+            current = current.subList(0, TOP_K);
+        }
+        neighborScores.put(postId, List.copyOf(current));
+        publish(postId);
+    }
+
+    private void publish(long postId) {
+        List<Long> ids = neighborScores.getOrDefault(postId, List.of()).stream().map(Neighbor::postId).toList();
+        if (!ids.equals(neighbors.put(postId, ids))) {
+            touch(postId);
+        }
+    }
+
+    private void touch(long postId) {
+        versions.merge(postId, 1L, Long::sum);
+    }
+
+    private List<Neighbor> nearest(long postId) {
+        SparseVector query = vectors.get(postId);
+        if (query == null) {
+            return List.of();
+        }
+        Set<Long> candidates = new HashSet<>();
+        for (int term : query.heaviestTerms(QUERY_TERMS)) {
+            candidates.addAll(postings.getOrDefault(term, Set.of()));
+        }
+        candidates.remove(postId);
+        List<Neighbor> scored = new ArrayList<>();
+        for (Long candidate : candidates) {
+            double score = query.dot(vectors.get(candidate));
+            if (score >= MIN_SCORE) {
+                scored.add(new Neighbor(candidate, score));
+            }
+        }
+        scored.sort(Comparator.comparingDouble(Neighbor::score).reversed());
+        return List.copyOf(scored.subList(0, Math.min(TOP_K, scored.size())));
+    }
+
+    private void store(long postId, SparseVector vector) {
+        vectors.put(postId, vector);
+        for (int term : vector.terms) {
+            postings.computeIfAbsent(term, t -> new HashSet<>()).add(postId);
+        }
+    }
+
+    private void unstore(long postId) {
+        SparseVector old = vectors.remove(postId);
+        if (old == null) {
+            return;
+        }
+        for (int term : old.terms) {
+            Set<Long> posts = postings.get(term);
+            if (posts != null) {
+                posts.remove(postId);
+                if (posts.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+            documentFrequency.computeIfPresent(term, (t, df) -> df > 1 ? df - 1 : null);
+        }
+    }
+
+    private Map<Integer, Integer> termCounts(Post post) {
+        String text = String.join(" ",
+                nullToEmpty(post.getTitle()), nullToEmpty(post.getTitle()),
+                nullToEmpty(post.getSummary()), nullToEmpty(post.getContent()));
+        String compact = text.replaceAll("[\\s\\p{Punct}、。！？「」（）・]+", " ").toLowerCase(Locale.ROOT);
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int i = 0; i + 1 < compact.length(); i++) {
+            char a = compact.charAt(i);
+            char b = compact.charAt(i + 1);
+            if (a == ' ' || b == ' ') {
+                continue;
+            }
+            int term = termIds.computeIfAbsent(compact.substring(i, i + 2), k -> termIds.size());
+            counts.merge(term, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private SparseVector vectorize(Map<Integer, Integer> termCounts, int documentCount) {
+        int[] terms = termCounts.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        float[] weights = new float[terms.length];
+        double norm = 0;
+        for (int i = 0; i < terms.length; i++) {
+            int df = documentFrequency.getOrDefault(terms[i], 1);
+            double weight = (1 + Math.log(termCounts.get(terms[i]))) * Math.log(1.0 + (double) documentCount / df);
+            weights[i] = (float) weight;
+            norm += weight * weight;
+        }
+        norm = Math.sqrt(norm);
+        for (int i = 0; i < weights.length && norm > 0; i++) {
+            weights[i] /= (float) norm;
+        }
+        return new SparseVector(terms, weights);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private record Neighbor(long postId, double score) {
+    }
+
+    private static final class SparseVector {
+        private final int[] terms;
+        private final float[] weights;
+
+        SparseVector(int[] terms, float[] weights) {
+            this.terms = terms;
+            this.weights = weights;
+        }
+
+        double dot(SparseVector other) {
+            if (other == null) {
+                return 0;
+            }
+            double sum = 0;
+            int i = 0;
+            int j = 0;
+            while (i < terms.length && j < other.terms.length) {
+                if (terms[i] == other.terms[j]) {
+                    sum += weights[i++] * other.weights[j++];
+                } else if (terms[i] < other.terms[j]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return sum;
+        }
+
+        int[] heaviestTerms(int limit) {
+            Integer[] order = new Integer[terms.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Float.compare(weights[b], weights[a]));
+            int[] heaviest = new int[Math.min(limit, order.length)];
+            for (int i = 0; i < heaviest.length; i++) {
+                heaviest[i] = terms[order[i]];
+            }
+            return heaviest;
+        }
+    }
+
+    public record RelatedPost(long id, String title, String username, String summary) {
+        static RelatedPost of(Post post) {
+            return new RelatedPost(post.getId(), post.getTitle(), post.getUsername(), post.getSummary());
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.home.knowledge.summary;
 import com.fasterxml.jackson.core.json.JsonReadFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.slf4j.Logger;
@@ -19,9 +20,21 @@ import java.net.http.HttpResponse;
 import java.text.BreakIterator;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 @Component
@@ -32,13 +45,47 @@ public class ArticleAiService {
     private static final Pattern FIGURE_PATTERN = Pattern.compile("(図|Fig(?:\\.|ure)?)\\s*[0-9０-９]+",
             Pattern.CASE_INSENSITIVE);
     private static final int PREVIEW_LIMIT = 120;
+    // Rough token budget for the article body in the prompt (about one token per Japanese character).
+    private static final int PROMPT_TOKEN_BUDGET = 1500;
+    // Shorter fragments are headings, labels and button text; dropped only when choosing what to prompt with.
+    private static final int MIN_SENTENCE_LENGTH = 8;
+    private static final Pattern NAVIGATION_PATTERN = Pattern.compile(
+            "(ホーム|トップページ|メニュー|ログイン|会員登録|シェア|ツイート|フォロー|関連記事|おすすめ記事|人気記事|ランキング|"
+                    + "前の記事|次の記事|一覧へ|利用規約|プライバシー|Cookie|Copyright|All Rights Reserved|©)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern SEPARATOR_PATTERN = Pattern.compile("[|｜>＞›»]");
+    private static final Pattern DIGIT_PATTERN = Pattern.compile("[0-9０-９]");
+    // Articles longer than this are summarized chunk by chunk (map), in rounds until the partial summaries
+    // are this short again, and merged in one final call (reduce).
+    private static final int LONG_DOCUMENT_TOKENS = PROMPT_TOKEN_BUDGET * 2;
+    private static final int MAP_PARALLELISM = 6;
+    // Per-draft budget: longer articles are cut to their most informative sentences before the map, so one
+    // page costs at most this many first-round calls.
+    private static final int MAX_CHUNKS = 12;
+    private static final int CHUNK_MAX_TOKENS = 400;
+    private static final int CHUNK_FALLBACK_TOKENS = 300;
+    private static final String SYSTEM_PROMPT = "あなたは難聴の子供の子育てをしている親向けに有益なネットの情報をまとめている記者です。";
 
     private final HttpClient httpClient;
     private final ObjectMapper objectMapper;
     private final String apiKey;
+    private final ExecutorService chunkExecutor;
+    private final int chunksInFlight;
+    private final DraftMetrics draftMetrics;
 
-    public ArticleAiService(@Value("${openai.api.key:}") String apiKey) {
+    public ArticleAiService(@Value("${openai.api.key:}") String apiKey,
+                            @Value("${openai.map.parallelism:" + MAP_PARALLELISM + "}") int mapParallelism,
+                            DraftMetrics draftMetrics) {
         this.apiKey = apiKey;
+        this.draftMetrics = draftMetrics;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.chunkExecutor = Executors.newFixedThreadPool(Math.max(1, mapParallelism), r -> {
+            Thread t = new Thread(r, "article-chunk-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        // A third of the pool each, so one long article does not queue every other draft's chunks.
+        this.chunksInFlight = Math.max(1, mapParallelism / 3);
         this.objectMapper = new ObjectMapper();
         this.objectMapper.enable(JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS.mappedFeature());
         this.httpClient = HttpClient.newBuilder()
@@ -47,44 +94,59 @@ public class ArticleAiService {
     }
 
     public ArticleDraft buildDraft(String url) {
-        String text = fetchArticleText(url);
+        return buildDraft(fetchArticle(url));
+    }
+
+    /**
+     * Fetches the page title and article text without calling the LLM, so callers can inspect the
+     * article (e.g. for duplicates) before paying for a draft.
+     */
+    public ArticleSource fetchArticle(String url) {
+        DraftTrace trace = draftMetrics.start(url);
+        long started = System.nanoTime();
+        Document doc = fetchDocument(url);
+        draftMetrics.stage(trace, "fetch", started);
+        started = System.nanoTime();
+        String title = extractTitle(doc);
+        String text = extractArticleText(doc);
+        draftMetrics.stage(trace, "extract", started);
+        return new ArticleSource(url, title, text, trace);
+    }
+
+    public ArticleDraft buildDraft(ArticleSource source) {
+        String url = source.url();
+        DraftTrace trace = source.trace() != null ? source.trace() : draftMetrics.start(url);
+        String text = source.text();
         String normalizedText = normalizeBody(text);
-        String title = extractTitle(url);
+        String title = source.title();
         if (!StringUtils.hasText(apiKey) || !StringUtils.hasText(normalizedText)) {
             String structured = buildStructuredMarkdown(normalizedText);
             String fallbackSummary = createSummaryFallback(normalizedText);
             ArticleDraft draft = ArticleDraft.of(title, structured, fallbackSummary);
-            debugDraft("fallback:no-api-or-text", draft.title(), draft.summary(), draft.content());
-            return draft;
-        }
-        String prompt = createPrompt(url, normalizedText);
-        Map<String, Object> payload = Map.of(
-                "model", "gpt-4o-mini",
-                "temperature", 0.3,
-                "max_tokens", 2000,
-                "response_format", Map.of("type", "json_object"),
-                "messages", List.of(
-                        Map.of("role", "system", "content", "あなたは難聴の子供の子育てをしている親向けに有益なネットの情報をまとめている記者です。"),
-                        Map.of("role", "user", "content", prompt)));
+            return finishDraft(trace, "fallback:no-api-or-text", draft);
+        }
+        boolean longDocument = estimateTokens(normalizedText) > LONG_DOCUMENT_TOKENS;
+        long started = System.nanoTime();
+        String articleBody = longDocument
+                ? summarizeInChunks(normalizedText, trace)
+                : compressForPrompt(normalizedText);
+        String prompt = createPrompt(url, articleBody);
+        Map<String, Object> payload = chatPayload(prompt, 2000, true);
+        draftMetrics.stage(trace, longDocument ? "map" : "prompt", started);
         boolean isFaile = false;
         try {
-            String body = objectMapper.writeValueAsString(payload);
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create("https://api.openai.com/v1/chat/completions"))
-                    .timeout(REQUEST_TIMEOUT)
-                    .header("Content-Type", "application/json")
-                    .header("Authorization", "Bearer " + apiKey)
-                    .POST(HttpRequest.BodyPublishers.ofString(body))
-                    .build();
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            started = System.nanoTime();
+            HttpResponse<String> response = sendChat(payload);
+            draftMetrics.stage(trace, "llm", started);
             if (response.statusCode() != 200) {
                 log.warn("OpenAI summarize call returned {}: {}", response.statusCode(), response.body());
                 String fallbackSummary = createSummaryFallback(text);
                 ArticleDraft draft = ArticleDraft.of(title, text, fallbackSummary);
-                debugDraft("fallback:api-error", draft.title(), draft.summary(), draft.content());
-                return draft;
+                return finishDraft(trace, "fallback:api-error", draft);
             }
+            started = System.nanoTime();
             JsonNode root = objectMapper.readTree(response.body());
+            recordUsage(trace, root);
             JsonNode content = root.path("choices").path(0).path("message").path("content");
             if (content.isTextual()) {
                 String raw = content.asText();
@@ -96,8 +158,8 @@ public class ArticleAiService {
                 String aiContent = parsed.path("content").asText("");
                 String aiSummary = parsed.path("summary").asText("");
                 ArticleDraft draft = ArticleDraft.of(aiTitle, aiContent, aiSummary);
-                debugDraft("ai:success", draft.title(), draft.summary(), draft.content());
-                return draft;
+                draftMetrics.stage(trace, "parse", started);
+                return finishDraft(trace, "ai:success", draft);
             }
         } catch (IOException e) {
             isFaile = true;
@@ -115,37 +177,263 @@ public class ArticleAiService {
         structured = buildStructuredMarkdown(normalizedText);
         fallbackSummary = createSummaryFallback(normalizedText);
         ArticleDraft draft = ArticleDraft.of(title, structured, fallbackSummary);
-        debugDraft("fallback:unexpected-error", draft.title(), draft.summary(), draft.content());
+        return finishDraft(trace, "fallback:unexpected-error", draft);
+    }
+
+    /**
+     * Returns an existing post's draft for a fetched article that duplicates it, finishing the article's
+     * trace as {@code dedup:reused} so the fetch still shows up in the outcome counters and total timer.
+     */
+    public ArticleDraft reuseDraft(ArticleSource source, ArticleDraft existing) {
+        finishUndrafted(source, "dedup:reused");
+        return existing;
+    }
+
+    /**
+     * Finishes the trace of a fetched article that is dropped as a duplicate without a draft.
+     */
+    public void skipDraft(ArticleSource source) {
+        finishUndrafted(source, "dedup:skipped");
+    }
+
+    private void finishUndrafted(ArticleSource source, String outcome) {
+        if (source.trace() != null) {
+            draftMetrics.finish(source.trace(), outcome);
+        }
+    }
+
+    private ArticleDraft finishDraft(DraftTrace trace, String outcome, ArticleDraft draft) {
+        debugDraft(outcome, draft.title(), draft.summary(), draft.content());
+        draftMetrics.finish(trace, outcome);
         return draft;
     }
 
-    private String extractTitle(String url) {
+    private void recordUsage(DraftTrace trace, JsonNode root) {
+        JsonNode usage = root.path("usage");
+        if (usage.isObject()) {
+            draftMetrics.usage(trace, usage.path("prompt_tokens").asLong(0), usage.path("completion_tokens").asLong(0));
+        }
+    }
+
+    private Map<String, Object> chatPayload(String prompt, int maxTokens, boolean jsonResponse) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("model", "gpt-4o-mini");
+        payload.put("temperature", 0.3);
+        payload.put("max_tokens", maxTokens);
+        if (jsonResponse) {
+            payload.put("response_format", Map.of("type", "json_object"));
+        }
+        payload.put("messages", List.of(
+                Map.of("role", "system", "content", SYSTEM_PROMPT),
+                Map.of("role", "user", "content", prompt)));
+        return payload;
+    }
+
+    private HttpResponse<String> sendChat(Map<String, Object> payload) throws IOException, InterruptedException {
+        String body = objectMapper.writeValueAsString(payload);
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("https://api.openai.com/v1/chat/completions"))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + apiKey)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Long-document mode: summarizes each chunk concurrently on {@link #chunkExecutor}. While the partial
+     * summaries together are still longer than {@link #LONG_DOCUMENT_TOKENS}, they are grouped into chunks
+     * and summarized again. Articles over {@link #MAX_CHUNKS} chunks are first cut to their most informative
+     * sentences. Returns the last round's summaries in document order, ready to be merged by the regular
+     * JSON prompt.
+     */
+    String summarizeInChunks(String normalizedText, DraftTrace trace) {
+        List<String> sentences = extractCandidateSentences(normalizedText);
+        int total = 0;
+        for (String sentence : sentences) {
+            total += estimateTokens(sentence);
+        }
+        if (total > MAX_CHUNKS * PROMPT_TOKEN_BUDGET) {
+            sentences = List.of(compressToBudget(sentences, MAX_CHUNKS * PROMPT_TOKEN_BUDGET).split("\n"));
+        }
+        List<String> chunks = splitIntoChunks(sentences);
+        while (true) {
+            List<String> summaries = summarizeChunks(chunks, trace);
+            String merged = joinParts(summaries);
+            if (summaries.size() == 1 || estimateTokens(merged) <= LONG_DOCUMENT_TOKENS) {
+                return merged;
+            }
+            List<String> next = splitIntoChunks(summaries);
+            if (next.size() >= chunks.size()) {
+                // Summaries as long as their input would never converge; keep what fits instead.
+                return compressToBudget(extractCandidateSentences(merged), LONG_DOCUMENT_TOKENS);
+            }
+            chunks = next;
+        }
+    }
+
+    /**
+     * One map round. At most {@link #chunksInFlight} of the draft's chunks are on {@link #chunkExecutor} at
+     * a time; the next is submitted as each one is collected. A chunk whose call fails, does not start in
+     * time or runs past its own deadline falls back to its own extractive summary; a timed-out call is
+     * cancelled so its thread and connection are freed.
+     */
+    private List<String> summarizeChunks(List<String> chunks, DraftTrace trace) {
+        List<ChunkCall> calls = new ArrayList<>();
+        List<String> summaries = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            while (calls.size() < chunks.size() && calls.size() < i + chunksInFlight) {
+                String chunk = chunks.get(calls.size());
+                int index = calls.size();
+                calls.add(new ChunkCall(() -> summarizeChunk(chunk, index, chunks.size(), trace)));
+            }
+            String summary = null;
+            try {
+                summary = calls.get(i).await();
+            } catch (TimeoutException e) {
+                log.warn("OpenAI chunk call {}/{} timed out", i + 1, chunks.size());
+            } catch (ExecutionException e) {
+                log.warn("OpenAI chunk call {}/{} failed", i + 1, chunks.size(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                calls.forEach(call -> call.future.cancel(true));
+            }
+            calls.get(i).future.cancel(true);
+            summaries.add(StringUtils.hasText(summary) ? summary.trim()
+                    : compressToBudget(extractCandidateSentences(chunks.get(i)), CHUNK_FALLBACK_TOKENS));
+        }
+        return summaries;
+    }
+
+    /**
+     * A chunk call on {@link #chunkExecutor}. Its deadline runs from when a thread picks it up, so time
+     * spent queued behind other drafts does not count against the call; the queue wait is bounded by the
+     * same timeout.
+     */
+    private final class ChunkCall {
+        private final long submitted = System.nanoTime();
+        private volatile Long started;
+        private final Future<String> future;
+
+        ChunkCall(Callable<String> call) {
+            this.future = chunkExecutor.submit(() -> {
+                started = System.nanoTime();
+                return call.call();
+            });
+        }
+
+        String await() throws InterruptedException, ExecutionException, TimeoutException {
+            long limit = REQUEST_TIMEOUT.plusSeconds(5).toNanos();
+            while (true) {
+                Long startedAt = started;
+                long deadline = (startedAt != null ? startedAt : submitted) + limit;
+                try {
+                    return future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    if (startedAt != null || started == null) {
+                        throw e;
+                    }
+                    // Picked up while we waited; give it its own time.
+                }
+            }
+        }
+    }
+
+    private static String joinParts(List<String> parts) {
+        StringBuilder merged = new StringBuilder();
+        for (int i = 0; i < parts.size(); i++) {
+            merged.append("## パート").append(i + 1).append('\n')
+                    .append(parts.get(i)).append("\n\n");
+        }
+        return merged.toString().trim();
+    }
+
+    private List<String> splitIntoChunks(List<String> sentences) {
+        int total = 0;
+        for (String sentence : sentences) {
+            total += estimateTokens(sentence);
+        }
+        int chunkCount = Math.max(1, (total + PROMPT_TOKEN_BUDGET - 1) / PROMPT_TOKEN_BUDGET);
+        int target = (total + chunkCount - 1) / chunkCount;
+        List<String> chunks = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int used = 0;
+        for (String sentence : sentences) {
+            int cost = estimateTokens(sentence);
+            if (!current.isEmpty() && used + cost > target && chunks.size() < chunkCount - 1) {
+                chunks.add(compressToBudget(current, PROMPT_TOKEN_BUDGET));
+                current = new ArrayList<>();
+                used = 0;
+            }
+            current.add(sentence);
+            used += cost;
+        }
+        if (!current.isEmpty()) {
+            chunks.add(compressToBudget(current, PROMPT_TOKEN_BUDGET));
+        }
+        return chunks;
+    }
+
+    String summarizeChunk(String chunk, int index, int total, DraftTrace trace) {
+        String prompt = """
+                # 指示
+                以下は長い記事を分割した一部（%d/%d）です。
+                この部分に書かれている重要な事実・数値・助言を、箇条書きで300文字以内にまとめてください。
+                前置きや記事全体についての推測は書かないでください。
+
+                # 記事本文（一部）
+                """.formatted(index + 1, total) + chunk;
         try {
-            Document doc = Jsoup.connect(url).userAgent(USER_AGENT).timeout(8000).get();
-            String t = doc.title();
-            return StringUtils.hasText(t) ? t : "タイトルなし";
+            HttpResponse<String> response = sendChat(chatPayload(prompt, CHUNK_MAX_TOKENS, false));
+            if (response.statusCode() != 200) {
+                log.warn("OpenAI chunk call {}/{} returned {}", index + 1, total, response.statusCode());
+                return null;
+            }
+            JsonNode root = objectMapper.readTree(response.body());
+            recordUsage(trace, root);
+            JsonNode content = root.path("choices").path(0).path("message").path("content");
+            return content.isTextual() ? content.asText() : null;
         } catch (IOException e) {
-            log.debug("Unable to fetch title at {}", url);
-            return "タイトルなし";
+            log.warn("Failed to summarize chunk {}/{} because of IO error", index + 1, total, e);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
         }
     }
 
-    private String fetchArticleText(String url) {
+    @PreDestroy
+    void shutdown() {
+        chunkExecutor.shutdownNow();
+    }
+
+    private Document fetchDocument(String url) {
         try {
-            Document doc = Jsoup.connect(url).userAgent(USER_AGENT).timeout(8000).get();
-            String article = doc.select("article").text();
-            if (!StringUtils.hasText(article)) {
-                article = doc.body() != null ? doc.body().text() : "";
-            }
-            return article;
+            return Jsoup.connect(url).userAgent(USER_AGENT).timeout(8000).get();
         } catch (IOException e) {
             log.debug("Unable to fetch article at {}: {}", url, e.getMessage());
+            return null;
+        }
+    }
+
+    private String extractTitle(Document doc) {
+        String t = doc != null ? doc.title() : null;
+        return StringUtils.hasText(t) ? t : "タイトルなし";
+    }
+
+    private String extractArticleText(Document doc) {
+        if (doc == null) {
             return "";
         }
+        String article = doc.select("article").text();
+        if (!StringUtils.hasText(article)) {
+            article = doc.body() != null ? doc.body().text() : "";
+        }
+        return article;
     }
 
     private String createPrompt(String url, String text) {
-        String summaryText = text.length() > 2000 ? text.substring(0, 2000) : text;
         StringBuilder prompt = new StringBuilder("""
                 # 指示
                 以下の記事を読み、以下の情報をまとめてください。
@@ -164,7 +452,7 @@ public class ArticleAiService {
                 - summary: 記事の紹介文（300文字以内）
                 - content: 記事の詳細。contentはMarkdownの記法で書いてください。長すぎる場合は要約して。
                 """);
-        prompt.append("\n\n# 記事本文\n").append(summaryText);
+        prompt.append("\n\n# 記事本文\n").append(text);
         return prompt.toString();
     }
 
@@ -172,7 +460,7 @@ public class ArticleAiService {
         return craftCalmSummary(text);
     }
 
-    private String craftCalmSummary(String source) {
+    String craftCalmSummary(String source) {
         String normalized = normalizeBody(source);
         if (!StringUtils.hasText(normalized)) {
             return "";
@@ -198,6 +486,162 @@ public class ArticleAiService {
         return String.join("\n", chosen);
     }
 
+    /**
+     * Picks the most informative sentences of the article that fit into {@link #PROMPT_TOKEN_BUDGET},
+     * keeping their original order. Navigation fragments and repeated sentences are dropped first.
+     */
+    private String compressForPrompt(String text) {
+        List<String> candidates = extractCandidateSentences(text);
+        if (candidates.isEmpty()) {
+            return truncateToBudget(text, PROMPT_TOKEN_BUDGET);
+        }
+        return compressToBudget(candidates, PROMPT_TOKEN_BUDGET);
+    }
+
+    String compressToBudget(List<String> candidates, int tokenBudget) {
+        if (candidates.isEmpty()) {
+            return "";
+        }
+        Map<String, Integer> documentFrequency = new HashMap<>();
+        List<Set<String>> bigramsBySentence = new ArrayList<>();
+        for (String sentence : candidates) {
+            Set<String> bigrams = bigrams(sentence);
+            bigramsBySentence.add(bigrams);
+            for (String bigram : bigrams) {
+                documentFrequency.merge(bigram, 1, Integer::sum);
+            }
+        }
+        int sentenceCount = candidates.size();
+        List<Integer> ranked = new ArrayList<>();
+        double[] scores = new double[sentenceCount];
+        for (int i = 0; i < sentenceCount; i++) {
+            scores[i] = scoreSentence(candidates.get(i), i, bigramsBySentence.get(i), documentFrequency, sentenceCount);
+            ranked.add(i);
+        }
+        ranked.sort(Comparator.comparingDouble((Integer i) -> scores[i]).reversed());
+
+        boolean[] selected = new boolean[sentenceCount];
+        int used = 0;
+        for (int index : ranked) {
+            int cost = estimateTokens(candidates.get(index));
+            if (used + cost > tokenBudget) {
+                continue;
+            }
+            selected[index] = true;
+            used += cost;
+        }
+        StringBuilder packed = new StringBuilder();
+        for (int i = 0; i < sentenceCount; i++) {
+            if (selected[i]) {
+                if (packed.length() > 0) {
+                    packed.append('\n');
+                }
+                packed.append(candidates.get(i));
+            }
+        }
+        if (packed.length() == 0) {
+            return truncateToBudget(candidates.get(ranked.get(0)), tokenBudget);
+        }
+        return packed.toString();
+    }
+
+    /**
+     * Splits the text into sentences and removes navigation fragments, figure-only captions and duplicates.
+     */
+    List<String> extractCandidateSentences(String text) {
+        List<String> candidates = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String sentence : splitIntoSentences(text)) {
+            String trimmed = sentence.trim();
+            if (trimmed.length() < MIN_SENTENCE_LENGTH || isNavigation(trimmed)) {
+                continue;
+            }
+            String key = trimmed.replaceAll("[\\s\\p{Punct}、。！？「」（）]", "").toLowerCase(Locale.ROOT);
+            if (key.isEmpty() || !seen.add(key)) {
+                continue;
+            }
+            candidates.add(trimmed);
+        }
+        return candidates;
+    }
+
+    private boolean isNavigation(String sentence) {
+        int separators = 0;
+        var separatorMatcher = SEPARATOR_PATTERN.matcher(sentence);
+        while (separatorMatcher.find()) {
+            separators++;
+        }
+        if (separators >= 3) {
+            return true;
+        }
+        return sentence.length() < 40 && NAVIGATION_PATTERN.matcher(sentence).find();
+    }
+
+    private double scoreSentence(String sentence, int position, Set<String> bigrams,
+                                 Map<String, Integer> documentFrequency, int sentenceCount) {
+        if (bigrams.isEmpty()) {
+            return 0;
+        }
+        double weight = 0;
+        for (String bigram : bigrams) {
+            int df = documentFrequency.getOrDefault(bigram, 1);
+            // Bigrams shared by most sentences are function words ("です", "ます"); they carry no content.
+            if (sentenceCount > 4 && df * 2 > sentenceCount) {
+                continue;
+            }
+            // Inverse document frequency: a bigram found in few sentences marks what this one adds.
+            weight += Math.log(1 + (double) sentenceCount / df);
+        }
+        double score = weight / Math.sqrt(bigrams.size());
+        if (DIGIT_PATTERN.matcher(sentence).find()) {
+            score *= 1.2;
+        }
+        if (position < 3) {
+            score *= 1.15;
+        }
+        if (sentence.contains("この図")) {
+            // normalizeBody() rewrote a figure reference; the figure itself never reaches the model.
+            score *= 0.6;
+        }
+        return score;
+    }
+
+    private Set<String> bigrams(String sentence) {
+        String compact = sentence.replaceAll("\\s+", "").toLowerCase(Locale.ROOT);
+        Set<String> bigrams = new HashSet<>();
+        for (int i = 0; i + 1 < compact.length(); i++) {
+            bigrams.add(compact.substring(i, i + 2));
+        }
+        return bigrams;
+    }
+
+    private int estimateTokens(String text) {
+        int ascii = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < 0x80) {
+                ascii++;
+            } else {
+                other++;
+            }
+        }
+        return other + (ascii + 3) / 4;
+    }
+
+    private String truncateToBudget(String text, int tokenBudget) {
+        if (text == null) {
+            return "";
+        }
+        int used = 0;
+        for (int i = 0; i < text.length(); i++) {
+            used += text.charAt(i) < 0x80 ? 1 : 4;
+            if (used > tokenBudget * 4) {
+                return text.substring(0, i);
+            }
+        }
+        return text;
+    }
+
     private String ensureSentenceClosed(String text) {
         if (!StringUtils.hasText(text)) {
             return "";
@@ -213,7 +657,7 @@ public class ArticleAiService {
         return normalizeBody(text);
     }
 
-    private List<String> splitIntoSentences(String text) {
+    List<String> splitIntoSentences(String text) {
         List<String> sentences = new ArrayList<>();
         if (!StringUtils.hasText(text)) {
             return sentences;
@@ -230,7 +674,7 @@ public class ArticleAiService {
         return sentences;
     }
 
-    private String normalizeBody(String text) {
+    String normalizeBody(String text) {
         if (!StringUtils.hasText(text)) {
             return "";
         }
@@ -295,6 +739,9 @@ public class ArticleAiService {
         return trimmed.trim();
     }
 
+    public record ArticleSource(String url, String title, String text, DraftTrace trace) {
+    }
+
     public record ArticleDraft(String title, String content, String summary) {
         public static ArticleDraft of(String title, String content, String summary) {
             return new ArticleDraft(title != null ? title : "", content != null ? content : "",
@@ -0,0 +1,94 @@
+package com.home.knowledge.summary;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Micrometer meters for the draft pipeline: {@code article.draft.stage} timers per stage,
+ * {@code article.draft.outcome} counters, token usage from the API's {@code usage} field, and a
+ * bounded list of recent slow drafts for the {@code slowdrafts} actuator endpoint.
+ */
+@Component
+public class DraftMetrics {
+    private static final int SLOW_DRAFTS_KEPT = 50;
+
+    private final MeterRegistry registry;
+    private final long slowThresholdMillis;
+    private final AtomicLong lastPromptTokens = new AtomicLong();
+    private final AtomicLong lastCompletionTokens = new AtomicLong();
+    private final Deque<DraftTrace.Report> slowDrafts = new ArrayDeque<>();
+
+    public DraftMetrics(MeterRegistry registry,
+                        @Value("${app.draft.slow-threshold-ms:8000}") long slowThresholdMillis) {
+        this.registry = registry;
+        this.slowThresholdMillis = slowThresholdMillis;
+        Gauge.builder("article.draft.tokens.last", lastPromptTokens, AtomicLong::get)
+                .tag("type", "prompt")
+                .register(registry);
+        Gauge.builder("article.draft.tokens.last", lastCompletionTokens, AtomicLong::get)
+                .tag("type", "completion")
+                .register(registry);
+    }
+
+    DraftTrace start(String url) {
+        return new DraftTrace(url);
+    }
+
+    /**
+     * Records the time since {@code startNanos} as the given stage of the draft.
+     */
+    void stage(DraftTrace trace, String stage, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        trace.addStage(stage, nanos);
+        Timer.builder("article.draft.stage")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void usage(DraftTrace trace, long promptTokens, long completionTokens) {
+        trace.addUsage(promptTokens, completionTokens);
+        Counter.builder("article.draft.tokens").tag("type", "prompt").register(registry).increment(promptTokens);
+        Counter.builder("article.draft.tokens").tag("type", "completion").register(registry).increment(completionTokens);
+    }
+
+    void finish(DraftTrace trace, String outcome) {
+        DraftTrace.Report report = trace.report(outcome);
+        Counter.builder("article.draft.outcome").tag("outcome", outcome).register(registry).increment();
+        Timer.builder("article.draft.total")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(report.totalMillis(), TimeUnit.MILLISECONDS);
+        if (report.llmCalls() > 0) {
+            lastPromptTokens.set(report.promptTokens());
+            lastCompletionTokens.set(report.completionTokens());
+        }
+        if (report.totalMillis() >= slowThresholdMillis) {
+            synchronized (slowDrafts) {
+                slowDrafts.addFirst(report);
+                if (slowDrafts.size() > SLOW_DRAFTS_KEPT) {
+                    slowDrafts.removeLast();
+                }
+            }
+        }
+    }
+
+    public List<DraftTrace.Report> recentSlowDrafts() {
+        synchronized (slowDrafts) {
+            return new ArrayList<>(slowDrafts);
+        }
+    }
+}
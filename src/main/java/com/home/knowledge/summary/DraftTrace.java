@@ -0,0 +1,57 @@
+package com.home.knowledge.summary;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timings and token usage of one draft, from the page fetch to the parsed LLM response.
+ * Chunk calls of the long-document mode report into the same trace from worker threads.
+ */
+public final class DraftTrace {
+    private final String url;
+    private final Instant startedAt = Instant.now();
+    private final long startedNanos = System.nanoTime();
+    private final Map<String, Long> stageNanos = new LinkedHashMap<>();
+    private final AtomicLong promptTokens = new AtomicLong();
+    private final AtomicLong completionTokens = new AtomicLong();
+    private final AtomicLong llmCalls = new AtomicLong();
+
+    DraftTrace(String url) {
+        this.url = url;
+    }
+
+    synchronized void addStage(String stage, long nanos) {
+        stageNanos.merge(stage, nanos, Long::sum);
+    }
+
+    void addUsage(long prompt, long completion) {
+        promptTokens.addAndGet(prompt);
+        completionTokens.addAndGet(completion);
+        llmCalls.incrementAndGet();
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - startedNanos;
+    }
+
+    long promptTokens() {
+        return promptTokens.get();
+    }
+
+    long completionTokens() {
+        return completionTokens.get();
+    }
+
+    synchronized Report report(String outcome) {
+        Map<String, Long> stageMillis = new LinkedHashMap<>();
+        stageNanos.forEach((stage, nanos) -> stageMillis.put(stage, nanos / 1_000_000));
+        return new Report(url, startedAt, outcome, elapsedNanos() / 1_000_000, stageMillis,
+                promptTokens.get(), completionTokens.get(), llmCalls.get());
+    }
+
+    public record Report(String url, Instant startedAt, String outcome, long totalMillis,
+                         Map<String, Long> stageMillis, long promptTokens, long completionTokens, long llmCalls) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.home.knowledge.summary;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/slowdrafts}: the most recent drafts slower than {@code app.draft.slow-threshold-ms},
+ * newest first, with per-stage timings and token usage. The reports include the article URLs users
+ * submitted, so the endpoint is only served on the localhost management port and must be added to
+ * {@code management.endpoints.web.exposure.include} explicitly.
+ */
+@Component
+@Endpoint(id = "slowdrafts")
+public class SlowDraftsEndpoint {
+    private final DraftMetrics draftMetrics;
+
+    public SlowDraftsEndpoint(DraftMetrics draftMetrics) {
+        this.draftMetrics = draftMetrics;
+    }
+
+    @ReadOperation
+    public List<DraftTrace.Report> slowDrafts() {
+        return draftMetrics.recentSlowDrafts();
+    }
+}
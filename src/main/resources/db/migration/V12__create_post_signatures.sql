@@ -0,0 +1,5 @@
+CREATE TABLE IF NOT EXISTS post_signatures (
+    post_id BIGINT PRIMARY KEY,
+    signature VARCHAR(512) NOT NULL,
+    CONSTRAINT fk_post_signatures_post FOREIGN KEY (post_id) REFERENCES posts(id) ON DELETE CASCADE
+);
@@ -0,0 +1,16 @@
+-- QueryPlanTests で全件スキャンになっていた検索条件にインデックスを追加
+
+-- タイムライン（username 指定なし）と通知の created_at > ? 条件
+CREATE INDEX IF NOT EXISTS idx_posts_created_at
+ON posts(created_at DESC, id DESC);
+
+-- 通知の created_at > ? 条件
+CREATE INDEX IF NOT EXISTS idx_comments_created_at
+ON comments(created_at);
+
+-- ユーザーごとの「いいね」「既読」一覧（PK は post_id 先頭のため使えない）
+CREATE INDEX IF NOT EXISTS idx_likes_username
+ON likes(username, post_id);
+
+CREATE INDEX IF NOT EXISTS idx_reads_username
+ON reads(username, post_id);
@@ -0,0 +1,12 @@
+-- インスタンス間のキャッシュ無効化イベント。seq の順に適用し、NOTIFY を取りこぼしてもここから回復する
+CREATE TABLE IF NOT EXISTS cache_invalidations (
+    seq BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    origin VARCHAR(64) NOT NULL,
+    kind VARCHAR(16) NOT NULL,
+    post_id BIGINT,
+    username VARCHAR(50),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_cache_invalidations_created_at
+ON cache_invalidations(created_at);
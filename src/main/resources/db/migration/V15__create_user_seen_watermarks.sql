@@ -0,0 +1,8 @@
+-- 通知の既読ウォーターマーク: ref_id が seen_through 以下の項目はすべて既読とみなす
+-- user_seen_items にはウォーターマークより先の既読（まばらな例外）だけを残す。SeenItemsCompactor が定期的に詰める
+CREATE TABLE IF NOT EXISTS user_seen_watermarks (
+    username VARCHAR(50) NOT NULL,
+    kind VARCHAR(16) NOT NULL, -- 'POST' or 'COMMENT'
+    seen_through BIGINT NOT NULL,
+    CONSTRAINT pk_user_seen_watermarks PRIMARY KEY (username, kind)
+);
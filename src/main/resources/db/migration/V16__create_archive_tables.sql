@@ -0,0 +1,47 @@
+-- 古い投稿とそのコメント・いいね・既読をまとめて退避するアーカイブテーブル（ArchiveJob が移す）
+-- 本体テーブルと同じ列に archived_at を足したもの。外部キーは張らない（投稿ごとまとめて移すため）
+
+CREATE TABLE IF NOT EXISTS posts_archive (
+    id BIGINT PRIMARY KEY,
+    username VARCHAR(50) NOT NULL,
+    title VARCHAR(140),
+    content TEXT,
+    image_url VARCHAR(512),
+    link_url VARCHAR(1024) DEFAULT '' NOT NULL,
+    summary TEXT,
+    created_at TIMESTAMP NOT NULL,
+    archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+-- 検索は created_at 順で本体と合わせて読む
+CREATE INDEX IF NOT EXISTS idx_posts_archive_created_at
+ON posts_archive(created_at DESC, id DESC);
+
+CREATE TABLE IF NOT EXISTS comments_archive (
+    id BIGINT PRIMARY KEY,
+    post_id BIGINT NOT NULL,
+    username VARCHAR(50) NOT NULL,
+    content TEXT,
+    created_at TIMESTAMP NOT NULL,
+    archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+-- 詳細画面のコメントのページ送り（(created_at, id) のカーソル）
+CREATE INDEX IF NOT EXISTS idx_comments_archive_post_created_at
+ON comments_archive(post_id, created_at, id);
+
+CREATE TABLE IF NOT EXISTS likes_archive (
+    post_id BIGINT NOT NULL,
+    username VARCHAR(50) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT pk_likes_archive PRIMARY KEY (post_id, username)
+);
+
+CREATE TABLE IF NOT EXISTS reads_archive (
+    post_id BIGINT NOT NULL,
+    username VARCHAR(50) NOT NULL,
+    read_at TIMESTAMP NOT NULL,
+    archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT pk_reads_archive PRIMARY KEY (post_id, username)
+);
@@ -0,0 +1,84 @@
+package com.home.knowledge.archive;
+
+import com.home.knowledge.cache.ContentVersions;
+import com.home.knowledge.comment.Comment;
+import com.home.knowledge.comment.CommentRepository;
+import com.home.knowledge.post.Post;
+import com.home.knowledge.post.PostRepository;
+import com.home.knowledge.read.ReadRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArchiveRepositoryTests {
+
+    private final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:archive;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final ContentVersions versions = new ContentVersions();
+    private final ArchiveRepository archiveRepository = new ArchiveRepository(jdbcTemplate, versions);
+    private final PostRepository postRepository = new PostRepository(jdbcTemplate, versions);
+    private final CommentRepository commentRepository = new CommentRepository(jdbcTemplate, versions);
+    private final ReadRepository readRepository = new ReadRepository(jdbcTemplate, versions);
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+    @BeforeEach
+    void seed() {
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        for (String table : List.of("posts", "posts_archive", "comments_archive", "likes_archive", "reads_archive")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+        Instant old = Instant.now().minus(Duration.ofDays(800));
+        for (long id = 1; id <= 3; id++) {
+            // Post 3 is recent and stays live.
+            jdbcTemplate.update("INSERT INTO posts (id, username, title, content, link_url, created_at) VALUES (?, 'yuhei', ?, 'c', 'https://example.com', ?)",
+                    id, "post " + id, Timestamp.from(id == 3 ? Instant.now() : old.plusSeconds(id)));
+            jdbcTemplate.update("INSERT INTO comments (id, post_id, username, content, created_at) VALUES (?, ?, 'shiho', 'comment', ?)",
+                    id, id, Timestamp.from(old.plusSeconds(id)));
+            jdbcTemplate.update("INSERT INTO reads (post_id, username) VALUES (?, 'shiho')", id);
+            jdbcTemplate.update("INSERT INTO likes (post_id, username) VALUES (?, 'shiho')", id);
+        }
+    }
+
+    @Test
+    void movesOldPostsWithTheirEngagementInBatches() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(Duration.ofDays(730)));
+
+        assertEquals(List.of(1L), transactionTemplate.execute(status -> archiveRepository.archiveBatch(cutoff, 1)));
+        assertEquals(List.of(2L), transactionTemplate.execute(status -> archiveRepository.archiveBatch(cutoff, 1)));
+        assertEquals(List.of(), transactionTemplate.execute(status -> archiveRepository.archiveBatch(cutoff, 1)));
+
+        assertEquals(List.of(3L), postRepository.findAll().stream().map(Post::getId).toList());
+        for (String table : List.of("comments", "reads", "likes")) {
+            assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class), table);
+            assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + "_archive", Integer.class), table);
+        }
+    }
+
+    @Test
+    void archivedPostsStayReachableFromDetailAndSearch() {
+        transactionTemplate.execute(status -> archiveRepository.archiveBatch(Timestamp.from(Instant.now().minus(Duration.ofDays(730))), 10));
+
+        Post archived = postRepository.findById(1).orElseThrow();
+        assertTrue(archived.isArchived());
+        assertEquals("post 1", archived.getTitle());
+        assertFalse(postRepository.findById(3).orElseThrow().isArchived());
+        assertEquals(List.of(3L, 2L, 1L), postRepository.findAllIncludingArchive().stream().map(Post::getId).toList());
+
+        assertEquals(List.of(1L), commentRepository.findLatest(1, true, 10).comments().stream().map(Comment::getId).toList());
+        assertEquals(List.of("shiho"), readRepository.findReadersByPostId(1, true));
+    }
+}
@@ -0,0 +1,48 @@
+package com.home.knowledge.auth;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AuthTokensTests {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final AuthTokens tokens = at(NOW);
+
+    @Test
+    void verifiesItsOwnTokens() {
+        assertEquals("yuhei", tokens.verify(tokens.issue("yuhei")));
+        assertEquals("ゆうへい.x", tokens.verify(tokens.issue("ゆうへい.x")));
+    }
+
+    @Test
+    void rejectsTamperedTokens() {
+        String token = tokens.issue("yuhei");
+        String otherUser = tokens.issue("shiho");
+        String forged = otherUser.substring(0, otherUser.indexOf('.')) + token.substring(token.indexOf('.'));
+
+        assertNull(tokens.verify(forged));
+        assertNull(tokens.verify("yuhei"));
+        assertNull(tokens.verify(token + "x"));
+        assertNull(new AuthTokens("another-secret", Duration.ofDays(1)).verify(token));
+    }
+
+    @Test
+    void rejectsExpiredTokens() {
+        String token = tokens.issue("yuhei");
+
+        assertEquals("yuhei", at(NOW.plus(Duration.ofHours(23))).verify(token));
+        assertNull(at(NOW.plus(Duration.ofDays(1))).verify(token));
+    }
+
+    private static AuthTokens at(Instant now) {
+        return new AuthTokens("test-secret", Duration.ofDays(1), Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,127 @@
+package com.home.knowledge.cache;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvalidationBusTests {
+
+    private final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:invalidations;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @BeforeEach
+    void setUp() {
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate.update("DELETE FROM cache_invalidations");
+    }
+
+    @Test
+    void writesOnOneInstanceInvalidateTheOthers() {
+        InProcessInvalidationBus bus = new InProcessInvalidationBus();
+        ContentVersions first = new ContentVersions(bus, "", Duration.ZERO);
+        ContentVersions second = new ContentVersions(bus, "", Duration.ZERO);
+        List<Long> evicted = new ArrayList<>();
+        second.addPostListener(evicted::add);
+        String postTag = second.postTag(1, "yuhei");
+        String timelineTag = second.timelineTag("yuhei");
+
+        first.postChanged(1);
+        first.userChanged("yuhei");
+
+        assertEquals(List.of(1L), evicted);
+        assertNotEquals(postTag, second.postTag(1, "yuhei"));
+        assertNotEquals(timelineTag, second.timelineTag("yuhei"));
+    }
+
+    @Test
+    void changesInsideATransactionApplyOnCommit() {
+        ContentVersions versions = new ContentVersions();
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        transaction.executeWithoutResult(status -> {
+            versions.postChanged(1);
+            assertEquals(0, versions.postVersion(1));
+        });
+        long committed = versions.postVersion(1);
+        transaction.executeWithoutResult(status -> {
+            versions.postChanged(1);
+            status.setRollbackOnly();
+        });
+
+        assertNotEquals(0, committed);
+        assertEquals(committed, versions.postVersion(1));
+    }
+
+    @Test
+    void aWriteOnlyHoldsBackTheTagsItTouches() {
+        ContentVersions versions = new ContentVersions(new InProcessInvalidationBus(), "jdbc:h2:mem:replica", Duration.ofHours(1));
+
+        versions.postChanged(1);
+        versions.userChanged("yuhei");
+
+        assertFalse(versions.postSettled(1));
+        assertTrue(versions.postSettled(2));
+        assertFalse(versions.postPageSettled(2, "yuhei"));
+        assertTrue(versions.postPageSettled(2, "shiho"));
+        // The timeline shows every post.
+        assertFalse(versions.timelineSettled("shiho"));
+    }
+
+    @Test
+    void appliesEventsInSequenceOrderAndWaitsForGaps() throws Exception {
+        List<Invalidation> received = new ArrayList<>();
+        PostgresInvalidationBus bus = bus(Duration.ofHours(1));
+        bus.subscribe(received::add);
+        insert(1, Invalidation.post("a", 10));
+        insert(2, Invalidation.user("a", "yuhei"));
+        insert(4, Invalidation.feed("b"));
+
+        try (Connection connection = dataSource.getConnection()) {
+            assertEquals(2, bus.poll(connection));
+            assertEquals(List.of(Invalidation.post("a", 10), Invalidation.user("a", "yuhei")), received);
+
+            // Sequence 3 was still in flight; once it commits both are applied in order.
+            insert(3, Invalidation.post("b", 11));
+            assertEquals(2, bus.poll(connection));
+        }
+        assertEquals(List.of(Invalidation.post("a", 10), Invalidation.user("a", "yuhei"),
+                Invalidation.post("b", 11), Invalidation.feed("b")), received);
+    }
+
+    @Test
+    void dropsEverythingWhenAGapNeverCloses() throws Exception {
+        List<Invalidation> received = new ArrayList<>();
+        PostgresInvalidationBus bus = bus(Duration.ZERO);
+        bus.subscribe(received::add);
+        insert(5, Invalidation.post("a", 10));
+
+        try (Connection connection = dataSource.getConnection()) {
+            bus.poll(connection);
+        }
+        assertEquals(List.of(Invalidation.all(PostgresInvalidationBus.GAP_ORIGIN), Invalidation.post("a", 10)), received);
+    }
+
+    private PostgresInvalidationBus bus(Duration gapGrace) {
+        return new PostgresInvalidationBus(jdbcTemplate, new DataSourceTransactionManager(dataSource), dataSource, Duration.ofSeconds(1), gapGrace, Duration.ofHours(1));
+    }
+
+    private void insert(long seq, Invalidation invalidation) {
+        jdbcTemplate.update("INSERT INTO cache_invalidations (seq, origin, kind, post_id, username) VALUES (?, ?, ?, ?, ?)",
+                seq, invalidation.origin(), invalidation.kind().name(), invalidation.postId(), invalidation.username());
+    }
+}
@@ -0,0 +1,80 @@
+package com.home.knowledge.comment;
+
+import com.home.knowledge.cache.ContentVersions;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommentRepositoryTests {
+
+    private final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:comments;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final ContentVersions contentVersions = new ContentVersions();
+    private final CommentRepository repository = new CommentRepository(jdbcTemplate, contentVersions);
+
+    @BeforeEach
+    void seed() {
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate.update("DELETE FROM comments");
+        jdbcTemplate.update("DELETE FROM posts");
+        jdbcTemplate.update("INSERT INTO posts (id, username, title, content, link_url) VALUES (1, 'yuhei', 't', 'c', 'https://example.com')");
+        // Ids 1-3 share a timestamp so the id breaks the tie.
+        for (int id = 1; id <= 5; id++) {
+            jdbcTemplate.update("INSERT INTO comments (id, post_id, username, content, created_at) VALUES (?, 1, 'shiho', ?, ?)",
+                    id, "comment " + id, id <= 3 ? "2026-01-01 00:00:00" : "2026-01-01 00:00:0" + id);
+        }
+    }
+
+    @Test
+    void pagesBackwardsFromTheLatest() {
+        CommentPage latest = repository.findLatest(1, false, 2);
+        assertEquals(List.of(4L, 5L), ids(latest));
+        assertTrue(latest.hasMore());
+
+        CommentPage older = repository.findBefore(1, false, latest.oldest(), 2);
+        assertEquals(List.of(2L, 3L), ids(older));
+        assertTrue(older.hasMore());
+
+        CommentPage oldest = repository.findBefore(1, false, older.oldest(), 2);
+        assertEquals(List.of(1L), ids(oldest));
+        assertFalse(oldest.hasMore());
+    }
+
+    @Test
+    void pagesForwardsAfterACursor() {
+        CommentPage first = repository.findAfter(1, false, CommentCursor.START, 3);
+        assertEquals(List.of(1L, 2L, 3L), ids(first));
+        assertTrue(first.hasMore());
+
+        CommentPage rest = repository.findAfter(1, false, CommentCursor.parse(first.newest().encode()), 3);
+        assertEquals(List.of(4L, 5L), ids(rest));
+        assertFalse(rest.hasMore());
+    }
+
+    @Test
+    void deleteMovesThePostVersionAfterTheRowIsGone() {
+        List<Integer> remainingAtBump = new ArrayList<>();
+        contentVersions.addPostListener(postId -> remainingAtBump.add(
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM comments WHERE id = 5", Integer.class)));
+
+        assertEquals(1, repository.delete(5));
+        assertEquals(0, repository.delete(5));
+
+        assertEquals(List.of(0), remainingAtBump);
+        assertTrue(contentVersions.postVersion(1) > 0);
+    }
+
+    private static List<Long> ids(CommentPage page) {
+        return page.comments().stream().map(Comment::getId).toList();
+    }
+}
@@ -0,0 +1,101 @@
+package com.home.knowledge.dedup;
+
+import com.home.knowledge.cache.ContentVersions;
+import com.home.knowledge.cache.InProcessInvalidationBus;
+import com.home.knowledge.post.PostRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimilarityIndexTests {
+
+    private final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:similarity;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final SignatureRepository signatureRepository = new SignatureRepository(jdbcTemplate);
+
+    @BeforeEach
+    void setUp() {
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate.update("DELETE FROM posts");
+    }
+
+    @Test
+    void aLightlyEditedCopyMatchesAndAnotherArticleDoesNot() {
+        ContentVersions versions = new ContentVersions();
+        SimilarityIndex index = new SimilarityIndex(signatureRepository, versions, 0.8);
+        long postId = new PostRepository(jdbcTemplate, versions).save("yuhei", "t", "c", null, "https://example.com", "s").getId();
+        String original = article(1);
+        index.add(postId, index.signatureOf(original));
+
+        String edited = "【転載】" + original.substring(0, 380) + "（続きは本誌で）";
+        SimilarityIndex.Match match = index.findDuplicate(index.signatureOf(edited)).orElseThrow();
+
+        assertEquals(postId, match.postId());
+        assertTrue(match.similarity() >= 0.8, "similarity " + match.similarity());
+        assertTrue(index.findDuplicate(index.signatureOf(article(2))).isEmpty());
+    }
+
+    @Test
+    void theClosestOfSeveralCandidatesWins() {
+        ContentVersions versions = new ContentVersions();
+        SimilarityIndex index = new SimilarityIndex(signatureRepository, versions, 0.8);
+        PostRepository posts = new PostRepository(jdbcTemplate, versions);
+        String original = article(1);
+        String revised = original.substring(0, 390) + article(3).substring(0, 10);
+        long first = posts.save("yuhei", "t", "c", null, "https://example.com/1", "s").getId();
+        long second = posts.save("yuhei", "t", "c", null, "https://example.com/2", "s").getId();
+        index.add(first, index.signatureOf(original));
+        index.add(second, index.signatureOf(revised));
+
+        assertEquals(second, index.findDuplicate(index.signatureOf(revised)).orElseThrow().postId());
+        assertEquals(first, index.findDuplicate(index.signatureOf(original)).orElseThrow().postId());
+    }
+
+    @Test
+    void textsTooShortToCompareHaveNoSignature() {
+        SimilarityIndex index = new SimilarityIndex(signatureRepository, new ContentVersions(), 0.8);
+
+        assertNull(index.signatureOf("短い告知です。"));
+        assertTrue(index.findDuplicate(null).isEmpty());
+    }
+
+    @Test
+    void postsSavedOnOneInstanceAreFoundOnTheOthers() {
+        InProcessInvalidationBus bus = new InProcessInvalidationBus();
+        ContentVersions first = new ContentVersions(bus, "", Duration.ZERO);
+        ContentVersions second = new ContentVersions(bus, "", Duration.ZERO);
+        SimilarityIndex here = new SimilarityIndex(signatureRepository, first, 0.8);
+        SimilarityIndex there = new SimilarityIndex(signatureRepository, second, 0.8);
+        PostRepository posts = new PostRepository(jdbcTemplate, first);
+        int[] signature = here.signatureOf(article(1));
+
+        long postId = posts.save("yuhei", "t", "c", null, "https://example.com", "s").getId();
+        here.add(postId, signature);
+
+        assertEquals(postId, there.findDuplicate(there.signatureOf("AMP " + article(1))).orElseThrow().postId());
+
+        posts.delete(postId);
+
+        assertEquals(0, there.size());
+        assertTrue(there.findDuplicate(signature).isEmpty());
+    }
+
+    static String article(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 400; i++) {
+            text.append((char) (0x4E00 + random.nextInt(2000)));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,102 @@
+package com.home.knowledge.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DomainEventBusTests {
+
+    private final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:events;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    private final List<List<DomainEvent>> batches = new CopyOnWriteArrayList<>();
+    private DomainEventBus bus;
+
+    @AfterEach
+    void tearDown() {
+        if (bus != null) {
+            bus.shutdown();
+        }
+    }
+
+    @Test
+    void publishesOnlyAfterCommit() throws Exception {
+        bus = new DomainEventBus(List.of(batches::add), new SimpleMeterRegistry(), 100, 100, Duration.ofSeconds(1));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            bus.publish(new DomainEvent.Liked(1, "yuhei"));
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status -> bus.publish(new DomainEvent.Liked(2, "yuhei")));
+        bus.start();
+        bus.publish(new DomainEvent.PostRead(3, "shiho"));
+
+        assertEquals(List.of(new DomainEvent.Liked(2, "yuhei"), new DomainEvent.PostRead(3, "shiho")), awaitEvents(2));
+    }
+
+    @Test
+    void deliversQueuedEventsInOrderInBatches() throws Exception {
+        bus = new DomainEventBus(List.of(batches::add), new SimpleMeterRegistry(), 100, 3, Duration.ofSeconds(1));
+        List<DomainEvent> published = new ArrayList<>();
+        for (long id = 1; id <= 7; id++) {
+            published.add(new DomainEvent.PostRead(id, "yuhei"));
+            bus.publish(published.get(published.size() - 1));
+        }
+
+        bus.start();
+
+        assertEquals(published, awaitEvents(7));
+        assertEquals(List.of(3, 3, 1), batches.stream().map(List::size).toList());
+    }
+
+    @Test
+    void deliversOnTheCallerWhenTheQueueStaysFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        bus = new DomainEventBus(List.of(events -> {
+            threads.add(Thread.currentThread().getName());
+            batches.add(events);
+            if (Thread.currentThread().getName().equals("domain-events")) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }), new SimpleMeterRegistry(), 1, 1, Duration.ofMillis(10));
+        bus.start();
+        bus.publish(new DomainEvent.Liked(1, "yuhei"));
+        while (threads.isEmpty()) {
+            Thread.sleep(5);
+        }
+        bus.publish(new DomainEvent.Liked(2, "yuhei"));
+
+        // The worker is stuck on the first event and the second fills the queue, so the third runs here.
+        bus.publish(new DomainEvent.Liked(3, "yuhei"));
+        release.countDown();
+
+        assertEquals(3, awaitEvents(3).size());
+        assertTrue(threads.contains(Thread.currentThread().getName()));
+    }
+
+    private List<DomainEvent> awaitEvents(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (batches.stream().mapToInt(List::size).sum() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        return batches.stream().flatMap(List::stream).toList();
+    }
+}
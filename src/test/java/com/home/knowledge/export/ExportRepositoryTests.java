@@ -0,0 +1,73 @@
+package com.home.knowledge.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExportRepositoryTests {
+
+    private final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:export;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final ExportRepository repository = new ExportRepository(jdbcTemplate);
+
+    @BeforeEach
+    void seed() {
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate.update("DELETE FROM posts");
+        jdbcTemplate.update("INSERT INTO posts (id, username, title, content, link_url, summary, created_at) "
+                + "VALUES (1, 'shiho', 'a, \"quoted\" title', 'line 1\nline 2', 'https://example.com', NULL, TIMESTAMP '2026-01-02 03:04:05')");
+        jdbcTemplate.update("INSERT INTO posts (id, username, title, content, link_url, summary) "
+                + "VALUES (2, 'yuhei', '補聴器', 'body', 'https://example.com/2', 'summary')");
+    }
+
+    @Test
+    void writesNdjsonOneObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(2, repository.export(ExportTable.POSTS, ExportFormat.NDJSON, out));
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = new ObjectMapper().readTree(lines[0]);
+        assertEquals(1, first.get("id").asLong());
+        assertEquals("line 1\nline 2", first.get("content").asText());
+        assertTrue(first.get("summary").isNull());
+        assertEquals("2026-01-02T03:04:05", first.get("created_at").asText());
+        assertEquals("補聴器", new ObjectMapper().readTree(lines[1]).get("title").asText());
+    }
+
+    @Test
+    void writesCsvWithHeaderAndQuoting() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        repository.export(ExportTable.POSTS, ExportFormat.CSV, out);
+
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertTrue(csv.startsWith("id,username,title,content,image_url,link_url,summary,created_at\r\n"));
+        assertTrue(csv.contains("1,shiho,\"a, \"\"quoted\"\" title\",\"line 1\nline 2\",,https://example.com,,2026-01-02T03:04:05\r\n"));
+    }
+
+    @Test
+    void keepsFractionalNumbersInNdjson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (RowWriter writer = RowWriter.open(ExportFormat.NDJSON, out, List.of("price", "score", "count"))) {
+            writer.write(new Object[]{new BigDecimal("12.50"), 0.25, 3L});
+        }
+
+        assertEquals("{\"price\":12.50,\"score\":0.25,\"count\":3}\n", out.toString(StandardCharsets.UTF_8));
+    }
+}
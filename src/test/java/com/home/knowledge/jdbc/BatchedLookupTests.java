@@ -0,0 +1,48 @@
+package com.home.knowledge.jdbc;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BatchedLookupTests {
+
+    private final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:batched;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final BatchedLookup lookup = new BatchedLookup(jdbcTemplate, 2);
+
+    @BeforeEach
+    void seed() {
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate.update("DELETE FROM posts");
+        for (long id = 1; id <= 5; id++) {
+            jdbcTemplate.update("INSERT INTO posts (id, username, title, content, link_url) VALUES (?, ?, 't', 'c', 'https://example.com')",
+                    id, id % 2 == 0 ? "shiho" : "yuhei");
+        }
+    }
+
+    @Test
+    void bindsIdsAsOneArrayAcrossChunks() {
+        List<Long> ids = lookup.query("SELECT id FROM posts WHERE id = ANY(?) AND username = ? ORDER BY id",
+                List.of(5L, 1L, 3L, 3L, 4L, 99L), (rs, i) -> rs.getLong(1), "yuhei");
+
+        assertEquals(List.of(1L, 5L, 3L), ids);
+    }
+
+    @Test
+    void updatesEveryChunk() {
+        assertEquals(4, lookup.update("DELETE FROM posts WHERE id = ANY(?)", List.of(1L, 2L, 3L, 4L)));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM posts", Integer.class));
+    }
+
+    @Test
+    void skipsEmptySets() {
+        assertEquals(List.of(), lookup.query("SELECT id FROM posts WHERE id = ANY(?)", List.of(), (rs, i) -> rs.getLong(1)));
+    }
+}
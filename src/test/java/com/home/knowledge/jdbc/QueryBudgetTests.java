@@ -0,0 +1,82 @@
+package com.home.knowledge.jdbc;
+
+import com.home.knowledge.auth.AuthTokens;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static com.home.knowledge.jdbc.QueryCountAssertions.maxQueries;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pins the number of SQL statements issued by the main pages for three posts with one comment each.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-budget;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+@AutoConfigureMockMvc
+class QueryBudgetTests {
+
+    private static final String USER = "yuhei";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AuthTokens authTokens;
+
+    private long firstPostId;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM posts");
+        jdbcTemplate.update("DELETE FROM user_last_seen");
+        jdbcTemplate.update("INSERT INTO user_last_seen (username, last_seen) VALUES (?, ?)", USER, Timestamp.from(Instant.EPOCH));
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.update("INSERT INTO posts (username, title, content, link_url, summary) VALUES ('shiho', ?, 'body', 'https://example.com', 'summary')",
+                    "title " + i);
+        }
+        firstPostId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM posts", Long.class);
+        jdbcTemplate.update("INSERT INTO comments (post_id, username, content) SELECT id, 'shiho', 'comment' FROM posts");
+    }
+
+    @Test
+    void timeline() throws Exception {
+        // list queries + 2 for the notification header; post cards add 2 batched queries on a cache miss
+        mockMvc.perform(get("/").cookie(login(USER)))
+                .andExpect(status().isOk())
+                .andExpect(maxQueries(14));
+    }
+
+    @Test
+    void search() throws Exception {
+        mockMvc.perform(get("/search").cookie(login(USER)))
+                .andExpect(status().isOk())
+                .andExpect(maxQueries(14));
+    }
+
+    @Test
+    void detail() throws Exception {
+        mockMvc.perform(get("/posts/" + firstPostId).cookie(login(USER)))
+                .andExpect(status().isOk())
+                .andExpect(maxQueries(11));
+    }
+
+    private Cookie login(String user) {
+        return new Cookie(AuthTokens.COOKIE, authTokens.issue(user));
+    }
+}
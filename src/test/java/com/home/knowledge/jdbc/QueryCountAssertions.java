@@ -0,0 +1,37 @@
+package com.home.knowledge.jdbc;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MockMvc matchers over the {@link QueryStats} that {@link QueryAccountingFilter} attaches to each request.
+ * <pre>
+ * mockMvc.perform(get("/")).andExpect(QueryCountAssertions.maxQueries(14));
+ * </pre>
+ */
+public final class QueryCountAssertions {
+
+    private QueryCountAssertions() {
+    }
+
+    public static ResultMatcher maxQueries(int max) {
+        return result -> {
+            QueryStats stats = (QueryStats) result.getRequest().getAttribute(QueryStats.REQUEST_ATTRIBUTE);
+            assertNotNull(stats, "QueryAccountingFilter did not run for this request");
+            assertTrue(stats.getQueryCount() <= max,
+                    () -> "Expected at most " + max + " SQL statements but was " + stats.describe());
+        };
+    }
+
+    public static ResultMatcher maxRepeatedStatement(int max) {
+        return result -> {
+            QueryStats stats = (QueryStats) result.getRequest().getAttribute(QueryStats.REQUEST_ATTRIBUTE);
+            assertNotNull(stats, "QueryAccountingFilter did not run for this request");
+            var repeated = stats.mostRepeated();
+            assertTrue(repeated == null || repeated.getValue() <= max,
+                    () -> "Statement repeated " + repeated.getValue() + " times (max " + max + "): " + repeated.getKey());
+        };
+    }
+}
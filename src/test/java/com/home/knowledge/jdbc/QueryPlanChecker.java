@@ -0,0 +1,115 @@
+package com.home.knowledge.jdbc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs {@code EXPLAIN} on captured statements and reports full scans of tables larger than a row
+ * threshold. Understands PostgreSQL JSON plans ({@code Seq Scan}) and H2 plans ({@code tableScan}).
+ */
+public class QueryPlanChecker {
+    private static final Pattern H2_TABLE_SCAN = Pattern.compile("/\\*\\s*(?:\\w+\\.)?(\\w+)\\.tableScan");
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long maxScannedRows;
+    private final Map<String, Long> tableRows = new HashMap<>();
+
+    public QueryPlanChecker(DataSource dataSource, long maxScannedRows) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.maxScannedRows = maxScannedRows;
+    }
+
+    public List<Violation> check(Map<String, List<Object>> statements) {
+        boolean postgres = isPostgres();
+        List<Violation> violations = new ArrayList<>();
+        statements.forEach((sql, parameters) -> {
+            if (!isExplainable(sql)) {
+                return;
+            }
+            String plan = postgres
+                    ? String.join("\n", jdbcTemplate.queryForList("EXPLAIN (FORMAT JSON) " + sql, String.class, parameters.toArray()))
+                    : String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parameters.toArray()));
+            for (String table : postgres ? postgresSeqScans(plan) : h2TableScans(plan)) {
+                long rows = rowsOf(table);
+                if (rows > maxScannedRows) {
+                    violations.add(new Violation(sql, table, rows, plan));
+                }
+            }
+        });
+        return violations;
+    }
+
+    private static boolean isExplainable(String sql) {
+        String head = sql.stripLeading().toUpperCase(Locale.ROOT);
+        // Plain INSERT ... VALUES cannot scan; DDL and session commands cannot be explained.
+        return head.startsWith("SELECT") || head.startsWith("WITH") || head.startsWith("UPDATE") || head.startsWith("DELETE");
+    }
+
+    private boolean isPostgres() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((Connection c) -> {
+            try {
+                return c.getMetaData().getDatabaseProductName().equals("PostgreSQL");
+            } catch (SQLException e) {
+                return false;
+            }
+        }));
+    }
+
+    private static List<String> h2TableScans(String plan) {
+        List<String> tables = new ArrayList<>();
+        Matcher m = H2_TABLE_SCAN.matcher(plan);
+        while (m.find()) {
+            tables.add(m.group(1).toLowerCase(Locale.ROOT));
+        }
+        return tables;
+    }
+
+    private static List<String> postgresSeqScans(String plan) {
+        List<String> tables = new ArrayList<>();
+        try {
+            collectSeqScans(JSON.readTree(plan), tables);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable plan: " + plan, e);
+        }
+        return tables;
+    }
+
+    private static void collectSeqScans(JsonNode node, List<String> tables) {
+        if (node.isArray()) {
+            node.forEach(child -> collectSeqScans(child, tables));
+            return;
+        }
+        if (!node.isObject()) {
+            return;
+        }
+        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+            tables.add(node.path("Relation Name").asText());
+        }
+        collectSeqScans(node.path("Plan"), tables);
+        collectSeqScans(node.path("Plans"), tables);
+    }
+
+    private long rowsOf(String table) {
+        return tableRows.computeIfAbsent(table, t -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + t, Long.class));
+    }
+
+    public record Violation(String sql, String table, long rows, String plan) {
+        @Override
+        public String toString() {
+            return "full scan of " + table + " (" + rows + " rows): " + sql + "\n" + plan;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.home.knowledge.jdbc;
+
+import com.home.knowledge.archive.ArchiveRepository;
+import com.home.knowledge.auth.UserRepository;
+import com.home.knowledge.comment.Comment;
+import com.home.knowledge.comment.CommentCursor;
+import com.home.knowledge.comment.CommentRepository;
+import com.home.knowledge.dedup.MinHasher;
+import com.home.knowledge.dedup.SignatureRepository;
+import com.home.knowledge.like.LikeRepository;
+import com.home.knowledge.notify.NotificationRepository;
+import com.home.knowledge.post.Post;
+import com.home.knowledge.post.PostRepository;
+import com.home.knowledge.read.ReadRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Calls every repository method against a seeded database, then runs {@code EXPLAIN} on each distinct
+ * statement and fails on full scans of tables above {@code plancheck.max-scan-rows} (default 500).
+ * <p>
+ * Runs on H2 in PostgreSQL mode by default; point {@code spring.datasource.*} at a PostgreSQL database
+ * to check the real planner. New repository methods should be called from {@link #exerciseRepositories()}.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-plan;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+@Import(QueryPlanTests.CaptureConfig.class)
+class QueryPlanTests {
+
+    private static final String USER = "yuhei";
+    private static final String[] USERS = {"yuhei", "shiho", "aki", "ken", "mio", "ren", "sora", "yui", "haru", "nao",
+            "kai", "rio", "emi", "jun", "tomo", "yuki", "saki", "riku", "mei", "sho"};
+    private static final int POSTS = 1500;
+
+    // Statements that read a whole table on purpose.
+    private static final Set<String> FULL_READS = Set.of(
+            // timeline and search still render every post; search includes the archive
+            "SELECT id, username, title, content, image_url, link_url, summary, created_at, FALSE AS archived FROM posts ORDER BY created_at DESC, id DESC",
+            "SELECT id, username, title, content, image_url, link_url, summary, created_at, FALSE AS archived FROM posts"
+                    + " UNION ALL"
+                    + " SELECT id, username, title, content, image_url, link_url, summary, created_at, TRUE AS archived FROM posts_archive"
+                    + " ORDER BY created_at DESC, id DESC",
+            // similarity index warm-up at startup
+            "SELECT post_id, signature FROM post_signatures");
+
+    @Autowired
+    private CapturePostProcessor capturePostProcessor;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private ArchiveRepository archiveRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private LikeRepository likeRepository;
+    @Autowired
+    private ReadRepository readRepository;
+    @Autowired
+    private NotificationRepository notificationRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private SignatureRepository signatureRepository;
+
+    @Test
+    void repositoryStatementsUseIndexes() {
+        seed();
+        StatementCapture capture = capturePostProcessor.capture;
+        capture.clear();
+        exerciseRepositories();
+        Map<String, List<Object>> statements = capture.statements();
+        statements.keySet().removeAll(FULL_READS);
+
+        long maxRows = Long.getLong("plancheck.max-scan-rows", 500);
+        List<QueryPlanChecker.Violation> violations = new QueryPlanChecker(dataSource, maxRows).check(statements);
+        assertTrue(violations.isEmpty(), () -> violations.size() + " statement(s) scan a whole table:\n"
+                + violations.stream().map(Object::toString).collect(Collectors.joining("\n\n")));
+    }
+
+    private void exerciseRepositories() {
+        Post post = postRepository.save("shiho", "plan", "body", null, "https://example.com/plan", "summary");
+        postRepository.saveAll("shiho", List.of(new PostRepository.NewPost("plan 2", "body", "https://example.com/plan2", "summary")));
+        postRepository.findAll();
+        postRepository.findAllIncludingArchive();
+        postRepository.findByUsername("shiho");
+        postRepository.findById(post.getId());
+        postRepository.update(post.getId(), "plan", "edited", null, "https://example.com/plan");
+
+        Comment comment = commentRepository.save(post.getId(), USER, "comment");
+        commentRepository.findByPostIds(List.of(post.getId(), 1L, 2L));
+        var comments = commentRepository.findLatest(post.getId(), false, 30);
+        commentRepository.findBefore(post.getId(), false, comments.oldest(), 30);
+        commentRepository.findAfter(post.getId(), false, CommentCursor.START, 30);
+        commentRepository.findById(comment.getId());
+        commentRepository.updateContent(comment.getId(), "edited");
+        commentRepository.countByPostIds(List.of(post.getId(), 1L, 2L), false);
+
+        likeRepository.like(post.getId(), USER);
+        likeRepository.countByPostId(post.getId());
+        likeRepository.likedByUser(post.getId(), USER);
+        likeRepository.findPostIdsByUser(USER);
+        likeRepository.unlike(post.getId(), USER);
+
+        readRepository.markRead(post.getId(), USER);
+        readRepository.findReadPostIds(USER);
+        readRepository.findReadersByPostId(post.getId(), false);
+        readRepository.findReaderSummaries(List.of(post.getId(), 1L, 2L), false, 5);
+
+        notificationRepository.getLastSeen(USER);
+        notificationRepository.countUnread(USER);
+        notificationRepository.listUnread(USER, 20);
+        notificationRepository.markSeen(USER, "POST", post.getId());
+        notificationRepository.markSeenAll(USER, "POST", List.of(post.getId()));
+        notificationRepository.markCommentsSeen(USER, Set.of(comment.getId()));
+        notificationRepository.upsertLastSeen(USER, Timestamp.from(Instant.now()));
+        notificationRepository.findUsersWithSeenState();
+        notificationRepository.compactSeenItems(USER, "POST", Timestamp.from(Instant.now()));
+        notificationRepository.compactSeenItems(USER, "COMMENT", Timestamp.from(Instant.now()));
+
+        userRepository.validate(USER, USER);
+
+        signatureRepository.save(post.getId(), new int[MinHasher.NUM_HASHES]);
+        signatureRepository.forEach((id, signature) -> { });
+        signatureRepository.exists(post.getId());
+
+        archiveRepository.archiveBatch(Timestamp.from(Instant.EPOCH), 200);
+
+        commentRepository.delete(comment.getId());
+        postRepository.delete(post.getId());
+    }
+
+    private void seed() {
+        jdbcTemplate.update("DELETE FROM posts");
+        jdbcTemplate.update("DELETE FROM user_seen_items");
+        jdbcTemplate.update("DELETE FROM user_last_seen");
+        Instant now = Instant.now();
+        List<Object[]> posts = new ArrayList<>();
+        for (int i = 0; i < POSTS; i++) {
+            posts.add(new Object[]{USERS[i % USERS.length], "title " + i, Timestamp.from(now.minus(Duration.ofHours(POSTS - i)))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO posts (username, title, content, link_url, summary, created_at) VALUES (?, ?, 'body', 'https://example.com', 'summary', ?)", posts);
+        jdbcTemplate.update("INSERT INTO comments (post_id, username, content, created_at) SELECT id, username, 'comment', created_at FROM posts");
+        for (String user : USERS) {
+            jdbcTemplate.update("INSERT INTO likes (post_id, username) SELECT id, ? FROM posts WHERE MOD(id, 3) = 0", user);
+            jdbcTemplate.update("INSERT INTO reads (post_id, username) SELECT id, ? FROM posts WHERE MOD(id, 2) = 0", user);
+        }
+        jdbcTemplate.update("INSERT INTO user_seen_items (username, kind, ref_id) SELECT ?, 'POST', id FROM posts", USER);
+        jdbcTemplate.update("INSERT INTO user_last_seen (username, last_seen) VALUES (?, ?)", USER,
+                Timestamp.from(now.minus(Duration.ofHours(2))));
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @TestConfiguration
+    static class CaptureConfig {
+        @Bean
+        static CapturePostProcessor capturePostProcessor() {
+            return new CapturePostProcessor();
+        }
+    }
+
+    static class CapturePostProcessor implements BeanPostProcessor {
+        private StatementCapture capture;
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && capture == null) {
+                capture = new StatementCapture(dataSource);
+                return capture;
+            }
+            return bean;
+        }
+    }
+}
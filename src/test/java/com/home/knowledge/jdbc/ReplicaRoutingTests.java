@@ -0,0 +1,121 @@
+package com.home.knowledge.jdbc;
+
+import com.home.knowledge.post.Post;
+import com.home.knowledge.post.PostRepository;
+import com.home.knowledge.read.ReadRepository;
+import jakarta.servlet.http.Cookie;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Two embedded databases stand in for a primary and a replica that never catches up, so every read
+ * shows which one served it.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingTests.PRIMARY_URL,
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "app.datasource.replica.urls=" + ReplicaRoutingTests.REPLICA_URL,
+        "app.datasource.replica.max-lag=1m"
+})
+class ReplicaRoutingTests {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+    private static final DriverManagerDataSource REPLICA = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+
+    static {
+        // Before the context starts: the related-posts index reads the replica on startup.
+        Flyway.configure().dataSource(REPLICA).load().migrate();
+    }
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private ReadRepository readRepository;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate replica = new JdbcTemplate(REPLICA);
+        replica.update("DELETE FROM posts");
+        replica.update("INSERT INTO posts (username, title, content, link_url, summary) VALUES ('shiho', 'on replica', 'body', 'https://example.com', 'summary')");
+    }
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readsGoToTheReplicaAndWritesToThePrimary() {
+        startRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+        postRepository.save("shiho", "on primary", "body", null, "https://example.com", "summary");
+
+        // Another client, so the write above does not pin the read to the primary.
+        startRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+        assertEquals(List.of("on replica"), titles(postRepository.findAll()));
+        assertEquals(1, new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""))
+                .queryForObject("SELECT COUNT(*) FROM posts WHERE title = 'on primary'", Integer.class));
+    }
+
+    @Test
+    void readsFollowTheClientsOwnWriteToThePrimary() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        startRequest(new MockHttpServletRequest(), response);
+        postRepository.save("yuhei", "mine", "body", null, "https://example.com", "summary");
+
+        assertEquals("mine", titles(postRepository.findAll()).get(0));
+
+        // The next request of the same client carries the deadline cookie.
+        Cookie deadline = response.getCookie(ReadYourWrites.COOKIE);
+        assertNotNull(deadline);
+        MockHttpServletRequest next = new MockHttpServletRequest();
+        next.setCookies(deadline);
+        startRequest(next, new MockHttpServletResponse());
+        assertEquals("mine", titles(postRepository.findAll()).get(0));
+
+        // Other clients keep reading from the replica.
+        startRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+        assertEquals(List.of("on replica"), titles(postRepository.findAll()));
+    }
+
+    @Test
+    void statementsThatChangeNothingDoNotPin() {
+        startRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+        long postId = postRepository.save("shiho", "read twice", "body", null, "https://example.com", "summary").getId();
+        readRepository.markRead(postId, "yuhei");
+
+        // Already read: the insert hits the conflict and changes nothing.
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        startRequest(new MockHttpServletRequest(), response);
+        readRepository.markRead(postId, "yuhei");
+
+        assertNull(response.getCookie(ReadYourWrites.COOKIE));
+        assertEquals(List.of("on replica"), titles(postRepository.findAll()));
+    }
+
+    private static void startRequest(MockHttpServletRequest request, MockHttpServletResponse response) {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+    }
+
+    private static List<String> titles(List<Post> posts) {
+        return posts.stream().map(Post::getTitle).toList();
+    }
+}
@@ -0,0 +1,98 @@
+package com.home.knowledge.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Test-only {@link DataSource} wrapper that remembers every distinct SQL string together with the
+ * parameters of its first execution, so the statement can be re-run under {@code EXPLAIN}.
+ */
+public class StatementCapture extends DelegatingDataSource {
+
+    private final Map<String, List<Object>> statements = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    public StatementCapture(DataSource target) {
+        super(target);
+    }
+
+    public Map<String, List<Object>> statements() {
+        synchronized (statements) {
+            return new LinkedHashMap<>(statements);
+        }
+    }
+
+    public void clear() {
+        statements.clear();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof PreparedStatement statement && method.getName().startsWith("prepare")
+                            && args[0] instanceof String sql) {
+                        return wrapPrepared(statement, sql);
+                    }
+                    if (result instanceof Statement statement && method.getName().equals("createStatement")) {
+                        return wrapPlain(statement);
+                    }
+                    return result;
+                });
+    }
+
+    private PreparedStatement wrapPrepared(PreparedStatement statement, String sql) {
+        Map<Integer, Object> parameters = new TreeMap<>();
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                        parameters.put(index, name.equals("setNull") ? null : args[1]);
+                    } else if (name.startsWith("execute") || name.equals("addBatch")) {
+                        statements.putIfAbsent(sql, new ArrayList<>(parameters.values()));
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private Statement wrapPlain(Statement statement) {
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Statement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("execute") && args != null && args.length > 0 && args[0] instanceof String sql) {
+                        statements.putIfAbsent(sql, List.of());
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
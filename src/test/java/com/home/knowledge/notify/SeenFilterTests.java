@@ -0,0 +1,42 @@
+package com.home.knowledge.notify;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeenFilterTests {
+
+    @Test
+    void remembersIdsAboveTheWatermark() {
+        SeenFilter filter = new SeenFilter(10, user -> Map.of("POST", 100L));
+
+        filter.add("yuhei", "POST", 900_000);
+        filter.add("yuhei", "POST", 150);
+
+        assertTrue(filter.contains("yuhei", "POST", 100));
+        assertTrue(filter.contains("yuhei", "POST", 150));
+        assertTrue(filter.contains("yuhei", "POST", 900_000));
+        assertFalse(filter.contains("yuhei", "POST", 151));
+        assertFalse(filter.contains("yuhei", "COMMENT", 150));
+    }
+
+    @Test
+    void dropsTheLowestIdsWhenFull() {
+        SeenFilter filter = new SeenFilter(10, user -> Map.of());
+        for (long id = 1; id <= SeenFilter.MAX_IDS + 2; id++) {
+            filter.add("yuhei", "POST", id * 2);
+        }
+
+        assertFalse(filter.contains("yuhei", "POST", 2));
+        assertFalse(filter.contains("yuhei", "POST", 4));
+        assertTrue(filter.contains("yuhei", "POST", 6));
+        assertTrue(filter.contains("yuhei", "POST", (SeenFilter.MAX_IDS + 2) * 2L));
+
+        // Older than everything kept: not worth an entry.
+        filter.add("yuhei", "POST", 3);
+        assertFalse(filter.contains("yuhei", "POST", 3));
+    }
+}
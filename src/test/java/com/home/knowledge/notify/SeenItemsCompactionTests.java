@@ -0,0 +1,100 @@
+package com.home.knowledge.notify;
+
+import com.home.knowledge.cache.ContentVersions;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SeenItemsCompactionTests {
+
+    private final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:seen;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final NotificationRepository repository = new NotificationRepository(jdbcTemplate, new ContentVersions(), 100);
+    private final SeenItemsCompactor compactor = new SeenItemsCompactor(repository, Duration.ZERO, Duration.ofMinutes(10));
+
+    @BeforeEach
+    void seed() {
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate.update("DELETE FROM user_seen_watermarks");
+        jdbcTemplate.update("DELETE FROM user_seen_items");
+        jdbcTemplate.update("DELETE FROM user_last_seen");
+        jdbcTemplate.update("DELETE FROM posts");
+        repository.resetSeenFilter();
+        Instant old = Instant.now().minus(Duration.ofDays(1));
+        for (long id = 1; id <= 6; id++) {
+            // Post 6 is too recent to compact past.
+            Instant createdAt = id == 6 ? Instant.now() : old.plusSeconds(id);
+            jdbcTemplate.update("INSERT INTO posts (id, username, title, content, link_url, created_at) VALUES (?, 'yuhei', 't', 'c', 'https://example.com', ?)",
+                    id, Timestamp.from(createdAt));
+        }
+        jdbcTemplate.update("INSERT INTO user_last_seen (username, last_seen) VALUES ('shiho', ?)", Timestamp.from(Instant.EPOCH));
+    }
+
+    @Test
+    void foldsContiguousSeenItemsIntoTheWatermark() {
+        for (long id : List.of(1L, 2L, 4L, 5L, 6L)) {
+            repository.markSeen("shiho", "POST", id);
+        }
+        assertEquals(List.of(3L), unreadPostIds());
+
+        assertEquals(2, compactor.compact());
+
+        assertEquals(2L, watermark());
+        assertEquals(List.of(4L, 5L, 6L), seenItemIds());
+        assertEquals(List.of(3L), unreadPostIds());
+
+        repository.markSeen("shiho", "POST", 3);
+        assertEquals(3, compactor.compact());
+
+        // Stops before post 6 even though it was seen, since it is within the settle window.
+        assertEquals(5L, watermark());
+        assertEquals(List.of(6L), seenItemIds());
+        assertEquals(List.of(), unreadPostIds());
+    }
+
+    @Test
+    void treatsItemsBeforeTheLastVisitAsSeen() {
+        jdbcTemplate.update("UPDATE user_last_seen SET last_seen = ? WHERE username = 'shiho'",
+                Timestamp.from(Instant.now().minus(Duration.ofHours(1))));
+
+        compactor.compact();
+
+        assertEquals(5L, watermark());
+        assertEquals(List.of(6L), unreadPostIds());
+    }
+
+    @Test
+    void firstVisitSeesEverythingWithoutWriting() {
+        assertEquals(Timestamp.from(Instant.EPOCH), repository.getLastSeen("mio"));
+        assertEquals(6, repository.countUnread("mio"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_last_seen WHERE username = 'mio'", Integer.class));
+    }
+
+    private long watermark() {
+        return jdbcTemplate.queryForObject(
+                "SELECT seen_through FROM user_seen_watermarks WHERE username = 'shiho' AND kind = 'POST'", Long.class);
+    }
+
+    private List<Long> seenItemIds() {
+        return jdbcTemplate.queryForList(
+                "SELECT ref_id FROM user_seen_items WHERE username = 'shiho' AND kind = 'POST' ORDER BY ref_id", Long.class);
+    }
+
+    private List<Long> unreadPostIds() {
+        return repository.listUnread("shiho", 10).stream()
+                .filter(row -> row.kind.equals("POST"))
+                .map(row -> row.refId)
+                .sorted()
+                .toList();
+    }
+}
@@ -0,0 +1,221 @@
+package com.home.knowledge.post;
+
+import com.home.knowledge.cache.ContentVersions;
+import com.home.knowledge.dedup.SignatureRepository;
+import com.home.knowledge.dedup.SimilarityIndex;
+import com.home.knowledge.event.DomainEventBus;
+import com.home.knowledge.notify.NotificationRepository;
+import com.home.knowledge.ratelimit.RateLimiter;
+import com.home.knowledge.summary.ArticleAiService;
+import com.home.knowledge.summary.DraftMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs imports against an embedded database with a stub in place of fetching and drafting, so the
+ * article text of every URL is whatever {@link #articles} says.
+ */
+class BulkImporterTests {
+
+    private final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:bulk-import;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Map<String, String> articles = new ConcurrentHashMap<>();
+    private final StubArticles summaryService = new StubArticles(articles, new DraftMetrics(registry, 8000));
+    private final DomainEventBus eventBus = new DomainEventBus(List.of(), registry, 1000, 100, Duration.ofSeconds(1));
+    private final ContentVersions versions = new ContentVersions();
+    private final SimilarityIndex similarityIndex = new SimilarityIndex(new SignatureRepository(jdbcTemplate), versions, 0.8);
+    private final RecordingPosts posts = new RecordingPosts(jdbcTemplate, versions);
+    private BulkImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate.update("DELETE FROM posts");
+    }
+
+    @AfterEach
+    void tearDown() {
+        importer.shutdown();
+    }
+
+    @Test
+    void aJobOverItsRateLimitDoesNotHoldUpOtherUsers() throws Exception {
+        importer = importer("1/1h", 20);
+        articles.put("https://a.example.com/1", article("one"));
+        articles.put("https://a.example.com/2", article("two"));
+        articles.put("https://b.example.com/1", article("three"));
+
+        BulkImporter.ImportJob limited = importer.start("yuhei", List.of("https://a.example.com/1", "https://a.example.com/2"));
+        BulkImporter.ImportJob other = importer.start("shiho", List.of("https://b.example.com/1"));
+
+        awaitDone(other);
+        assertEquals(1, other.getImported());
+        assertFalse(limited.isDone());
+        assertEquals(1, limited.getProcessed());
+    }
+
+    @Test
+    void copiesOfOneStoryInTheSameListAreImportedOnce() throws Exception {
+        importer = importer("0", 20);
+        articles.put("https://news.example.com/story", article("story"));
+        articles.put("https://news.example.com/amp/story", "AMP " + article("story"));
+
+        BulkImporter.ImportJob job = importer.start("yuhei", List.of("https://news.example.com/story", "https://news.example.com/amp/story"));
+
+        awaitDone(job);
+        assertEquals(1, job.getImported());
+        assertEquals(1, job.getFailures().size());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM posts", Integer.class));
+    }
+
+    @Test
+    void postsAreSavedInBatchesOfTheConfiguredSize() throws Exception {
+        importer = importer("0", 2);
+        List<String> urls = List.of("https://a.example.com/1", "https://a.example.com/2", "https://a.example.com/3",
+                "https://a.example.com/4", "https://a.example.com/5");
+        urls.forEach(url -> articles.put(url, article(url)));
+
+        BulkImporter.ImportJob job = importer.start("yuhei", urls);
+
+        awaitDone(job);
+        assertEquals(List.of(2, 2, 1), posts.batches);
+        assertEquals(5, job.getImported());
+        assertEquals(5, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM posts", Integer.class));
+    }
+
+    @Test
+    void everyUrlIsEitherImportedOrReportedOnce() throws Exception {
+        importer = importer("0", 20);
+        articles.put("https://a.example.com/ok", article("ok"));
+        articles.put("https://a.example.com/empty", "");
+
+        BulkImporter.ImportJob job = importer.start("yuhei", List.of("https://a.example.com/ok", "not a url",
+                "https://a.example.com/ok", "https://a.example.com/missing", "https://a.example.com/empty"));
+
+        awaitDone(job);
+        assertEquals(3, job.getTotal());
+        assertEquals(3, job.getProcessed());
+        assertEquals(1, job.getImported());
+        assertEquals(Map.of(
+                        "not a url", "URLの形式が正しくありません",
+                        "https://a.example.com/ok", "重複したURLです",
+                        "https://a.example.com/missing", "取得に失敗しました: no such article",
+                        "https://a.example.com/empty", "本文を取得できませんでした"),
+                failures(job));
+    }
+
+    @Test
+    void aBatchThatFailsToSaveReportsEachOfItsUrls() throws Exception {
+        importer = importer("0", 2);
+        posts.failing = true;
+        articles.put("https://a.example.com/1", article("one"));
+        articles.put("https://a.example.com/2", article("two"));
+
+        BulkImporter.ImportJob job = importer.start("yuhei", List.of("https://a.example.com/1", "https://a.example.com/2"));
+
+        awaitDone(job);
+        assertEquals(0, job.getImported());
+        assertEquals(Map.of("https://a.example.com/1", "保存に失敗しました", "https://a.example.com/2", "保存に失敗しました"),
+                failures(job));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM posts", Integer.class));
+    }
+
+    private static Map<String, String> failures(BulkImporter.ImportJob job) {
+        Map<String, String> reasons = new HashMap<>();
+        job.getFailures().forEach(f -> reasons.put(f.url(), f.reason()));
+        assertEquals(job.getFailures().size(), reasons.size(), "a URL was reported twice");
+        return reasons;
+    }
+
+    private BulkImporter importer(String createPerUser, int batchSize) {
+        return new BulkImporter(summaryService, posts, similarityIndex, eventBus,
+                new NotificationRepository(jdbcTemplate, versions, 100),
+                new RateLimiter(registry, "0", "0", createPerUser, "0"),
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                1, 1, 0, batchSize, 100);
+    }
+
+    private static void awaitDone(BulkImporter.ImportJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!job.isDone() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.isDone(), "job did not finish");
+    }
+
+    /** Text no other topic shares, long enough to get a MinHash signature. */
+    private static String article(String topic) {
+        SplittableRandom random = new SplittableRandom(topic.hashCode());
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 400; i++) {
+            text.append((char) (0x4E00 + random.nextInt(2000)));
+        }
+        return text.toString();
+    }
+
+    /** Records the size of every batch, or fails them all when {@link #failing}. */
+    private static final class RecordingPosts extends PostRepository {
+        private final List<Integer> batches = new CopyOnWriteArrayList<>();
+        private volatile boolean failing;
+
+        RecordingPosts(JdbcTemplate jdbcTemplate, ContentVersions contentVersions) {
+            super(jdbcTemplate, contentVersions);
+        }
+
+        @Override
+        public List<Long> saveAll(String username, List<NewPost> posts) {
+            if (failing) {
+                throw new IllegalStateException("database is down");
+            }
+            batches.add(posts.size());
+            return super.saveAll(username, posts);
+        }
+    }
+
+    private static final class StubArticles extends ArticleAiService {
+        private final Map<String, String> articles;
+
+        StubArticles(Map<String, String> articles, DraftMetrics draftMetrics) {
+            super("", 1, draftMetrics);
+            this.articles = articles;
+        }
+
+        @Override
+        public ArticleSource fetchArticle(String url) {
+            String text = articles.get(url);
+            if (text == null) {
+                throw new IllegalStateException("no such article");
+            }
+            return new ArticleSource(url, "title of " + url, text, null);
+        }
+
+        @Override
+        public ArticleDraft buildDraft(ArticleSource source) {
+            if (source.text().isEmpty()) {
+                return ArticleDraft.of(source.title(), "", "");
+            }
+            return ArticleDraft.of(source.title(), source.text(), "summary of " + source.url());
+        }
+    }
+}
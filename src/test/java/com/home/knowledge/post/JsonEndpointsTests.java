@@ -0,0 +1,117 @@
+package com.home.knowledge.post;
+
+import com.home.knowledge.auth.AuthTokens;
+import com.home.knowledge.comment.CommentRepository;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:json-endpoints;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+@AutoConfigureMockMvc
+class JsonEndpointsTests {
+
+    private static final String USER = "yuhei";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AuthTokens authTokens;
+
+    private long postId;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM posts");
+        postId = postRepository.save("shiho", "title", "body", null, "https://example.com", "summary").getId();
+    }
+
+    @Test
+    void likeAndUnlikeAnswerWithTheNewState() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/posts/" + postId + "/like").cookie(login(USER)).accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.liked").value(true))
+                    .andExpect(jsonPath("$.count").value(1));
+        }
+        mockMvc.perform(post("/posts/" + postId + "/unlike").cookie(login(USER)).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.liked").value(false))
+                .andExpect(jsonPath("$.count").value(0));
+        // Without script the form still posts and redirects to the page.
+        mockMvc.perform(post("/posts/" + postId + "/like").cookie(login(USER)))
+                .andExpect(redirectedUrl("/posts/" + postId));
+    }
+
+    @Test
+    void likingADeletedPostIsNotFound() throws Exception {
+        postRepository.delete(postId);
+
+        mockMvc.perform(post("/posts/" + postId + "/like").cookie(login(USER)).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").exists());
+    }
+
+    @Test
+    void commentFormAnswersWithTheNewComment() throws Exception {
+        mockMvc.perform(post("/comments").param("postId", Long.toString(postId)).param("content", "  参考になりました  ")
+                        .cookie(login(USER)).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.comment.username").value(USER))
+                .andExpect(jsonPath("$.comment.content").value("参考になりました"))
+                .andExpect(jsonPath("$.comment.id").isNumber());
+        mockMvc.perform(post("/comments").param("postId", Long.toString(postId)).param("content", " ")
+                        .cookie(login(USER)).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        postRepository.delete(postId);
+        mockMvc.perform(post("/comments").param("postId", Long.toString(postId)).param("content", "遅れて")
+                        .cookie(login(USER)).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void malformedCommentCursorIsABadRequest() throws Exception {
+        commentRepository.save(postId, "shiho", "first");
+
+        mockMvc.perform(get("/posts/" + postId + "/comments").param("before", "latest").cookie(login(USER))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/posts/" + postId + "/comments").param("after", "12_x").cookie(login(USER))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/posts/" + postId + "/comments").cookie(login(USER))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.comments.length()").value(1));
+    }
+
+    private Cookie login(String user) {
+        return new Cookie(AuthTokens.COOKIE, authTokens.issue(user));
+    }
+}
@@ -0,0 +1,112 @@
+package com.home.knowledge.post;
+
+import com.home.knowledge.auth.AuthTokens;
+import com.home.knowledge.related.RelatedPostIndex;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:page-caching;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+@AutoConfigureMockMvc
+class PageCachingTests {
+
+    private static final String USER = "yuhei";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AuthTokens authTokens;
+
+    @Autowired
+    private RelatedPostIndex relatedPostIndex;
+
+    private long postId;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM posts");
+        postId = postRepository.save("shiho", "title", "body", null, "https://example.com", "summary").getId();
+    }
+
+    @Test
+    void detailIsNotModifiedUntilThePostChanges() throws Exception {
+        // The first view marks the post read, so only the second one is tagged.
+        mockMvc.perform(get("/posts/" + postId).cookie(login(USER))).andExpect(status().isOk());
+        String etag = mockMvc.perform(get("/posts/" + postId).cookie(login(USER)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(etag);
+
+        mockMvc.perform(get("/posts/" + postId).cookie(login(USER)).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/posts/" + postId + "/like").cookie(login("shiho")));
+        mockMvc.perform(get("/posts/" + postId).cookie(login(USER)).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"));
+    }
+
+    @Test
+    void detailIsNotModifiedOnlyUntilItsRelatedPostsChange() throws Exception {
+        relatedPostIndex.postSaved(postRepository.findById(postId).orElseThrow());
+        mockMvc.perform(get("/posts/" + postId).cookie(login(USER))).andExpect(status().isOk());
+        String etag = mockMvc.perform(get("/posts/" + postId).cookie(login(USER)))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(etag);
+
+        // Indexed in the background, after the post versions of the write have already moved.
+        relatedPostIndex.postSaved(new Post(postId + 1, "shiho", "title", "body", null, null, "summary", Instant.now()));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (relatedPostIndex.relatedTo(postId).isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        mockMvc.perform(get("/posts/" + postId).cookie(login(USER)).header("If-None-Match", etag))
+                .andExpect(status().isOk());
+        relatedPostIndex.postDeleted(postId + 1);
+    }
+
+    @Test
+    void timelineIsNotModifiedUntilAnythingChanges() throws Exception {
+        mockMvc.perform(get("/").cookie(login(USER)));
+        String etag = mockMvc.perform(get("/").cookie(login(USER)))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(etag);
+
+        mockMvc.perform(get("/").cookie(login(USER)).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/comments").cookie(login("shiho"))
+                .param("postId", Long.toString(postId)).param("content", "new comment"));
+        mockMvc.perform(get("/").cookie(login(USER)).header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+
+    private Cookie login(String user) {
+        return new Cookie(AuthTokens.COOKIE, authTokens.issue(user));
+    }
+}
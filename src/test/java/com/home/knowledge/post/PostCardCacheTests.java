@@ -0,0 +1,115 @@
+package com.home.knowledge.post;
+
+import com.home.knowledge.cache.ContentVersions;
+import com.home.knowledge.comment.CommentRepository;
+import com.home.knowledge.read.ReadRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostCardCacheTests {
+
+    private final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:post-cards;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ContentVersions versions = new ContentVersions();
+    private final CountingComments comments = new CountingComments(jdbcTemplate, versions);
+    private final List<Post> posts = List.of(post(1), post(2), post(3));
+
+    @BeforeEach
+    void setUp() {
+        Flyway.configure().dataSource(dataSource).load().migrate();
+    }
+
+    @Test
+    void eachViewerGetsTheirOwnFlagsOnTheSharedHtml() {
+        PostCardCache cache = cache(1 << 20, new SimpleMeterRegistry());
+
+        List<String> first = cache.render(posts, false, Set.of(1L), Set.of(1L), Set.of(2L));
+        List<String> second = cache.render(posts, false, Set.of(), Set.of(), Set.of());
+
+        assertEquals(1, comments.calls.get());
+        first.forEach(card -> assertFalse(card.contains("<!--card:"), card));
+        assertTrue(first.get(0).contains("保存済み") && first.get(0).contains("新記事"));
+        assertTrue(first.get(1).contains("未保存") && first.get(1).contains("新コメント"));
+        assertTrue(second.get(0).contains("未保存") && !second.get(0).contains("新記事"));
+        assertFalse(second.get(1).contains("新コメント"));
+    }
+
+    @Test
+    void aChangedPostIsRenderedAgain() {
+        PostCardCache cache = cache(1 << 20, new SimpleMeterRegistry());
+        cache.render(posts, false, Set.of(), Set.of(), Set.of());
+
+        versions.postChanged(2);
+        cache.render(posts, false, Set.of(), Set.of(), Set.of());
+
+        assertEquals(2, comments.calls.get());
+        assertEquals(List.of(2L), comments.lastIds);
+    }
+
+    @Test
+    void theLeastRecentlyUsedCardsAreEvictedBeyondTheByteLimit() {
+        int cardBytes = 2 * cache(1 << 20, new SimpleMeterRegistry()).render(List.of(post(1)), false, Set.of(), Set.of(), Set.of()).get(0).length();
+        PostCardCache cache = cache(2L * cardBytes + 400, registry);
+        comments.calls.set(0);
+
+        cache.render(posts, false, Set.of(), Set.of(), Set.of());
+        cache.render(List.of(post(3)), false, Set.of(), Set.of(), Set.of());
+        cache.render(List.of(post(1)), false, Set.of(), Set.of(), Set.of());
+
+        assertEquals(2, comments.calls.get());
+        assertEquals(List.of(1L), comments.lastIds);
+        assertTrue(registry.get("post.cards.cache.bytes").gauge().value() <= 2L * cardBytes + 400);
+    }
+
+    private PostCardCache cache(long maxBytes, SimpleMeterRegistry meters) {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setCharacterEncoding("UTF-8");
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+        return new PostCardCache(templateEngine, comments, new ReadRepository(jdbcTemplate, versions), versions,
+                meters, maxBytes);
+    }
+
+    private static Post post(long id) {
+        return new Post(id, "yuhei", "title " + id, "content", null, "https://example.com/" + id, "summary " + id,
+                Instant.parse("2026-01-01T00:00:00Z"));
+    }
+
+    /** Counts the queries made for posts that were not cached. */
+    private static final class CountingComments extends CommentRepository {
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile List<Long> lastIds = List.of();
+
+        CountingComments(JdbcTemplate jdbcTemplate, ContentVersions contentVersions) {
+            super(jdbcTemplate, contentVersions);
+        }
+
+        @Override
+        public Map<Long, Integer> countByPostIds(Collection<Long> postIds, boolean archived) {
+            calls.incrementAndGet();
+            lastIds = List.copyOf(postIds);
+            return super.countByPostIds(postIds, archived);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.home.knowledge.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void allowsABurstThenRefillsOneTokenPerInterval() {
+        RateLimiter limiter = new RateLimiter(registry, "2/1m", "0", "0", "0");
+        long now = System.nanoTime();
+
+        assertEquals(0, limiter.tryAcquire(RateLimiter.Endpoint.PREVIEW, "yuhei", now));
+        assertEquals(0, limiter.tryAcquire(RateLimiter.Endpoint.PREVIEW, "yuhei", now));
+        long wait = limiter.tryAcquire(RateLimiter.Endpoint.PREVIEW, "yuhei", now);
+
+        assertEquals(TimeUnit.SECONDS.toNanos(30), wait);
+        assertEquals(0, limiter.tryAcquire(RateLimiter.Endpoint.PREVIEW, "shiho", now));
+        assertEquals(0, limiter.tryAcquire(RateLimiter.Endpoint.PREVIEW, "yuhei", now + wait));
+        assertEquals(0, limiter.tryAcquire(RateLimiter.Endpoint.CREATE, "yuhei", now));
+        assertEquals(1.0, registry.get("rate.limit.requests").tags("endpoint", "preview", "result", "rejected-user").counter().count());
+    }
+
+    @Test
+    void globalLimitAppliesAcrossUsers() {
+        RateLimiter limiter = new RateLimiter(registry, "1/1m", "1/1m", "0", "0");
+        long now = System.nanoTime();
+
+        assertEquals(0, limiter.tryAcquire(RateLimiter.Endpoint.PREVIEW, "yuhei", now));
+        assertTrue(limiter.tryAcquire(RateLimiter.Endpoint.PREVIEW, "shiho", now) > 0);
+
+        // Refused by the global bucket, not shiho's own; it has refilled a minute later.
+        assertEquals(0, limiter.tryAcquire(RateLimiter.Endpoint.PREVIEW, "shiho", now + TimeUnit.MINUTES.toNanos(1)));
+    }
+
+    @Test
+    void parsesLimits() {
+        assertEquals(new RateLimit(10, Duration.ofMinutes(1)), RateLimit.parse("10/1m"));
+        assertNull(RateLimit.parse("0"));
+        assertNull(RateLimit.parse(""));
+    }
+}
@@ -0,0 +1,48 @@
+package com.home.knowledge.read;
+
+import com.home.knowledge.cache.ContentVersions;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadRepositoryTests {
+
+    private final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:reads;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final ReadRepository repository = new ReadRepository(jdbcTemplate, new ContentVersions());
+
+    @BeforeEach
+    void seed() {
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate.update("DELETE FROM reads");
+        jdbcTemplate.update("DELETE FROM posts");
+        for (long id = 1; id <= 3; id++) {
+            jdbcTemplate.update("INSERT INTO posts (id, username, title, content, link_url) VALUES (?, 'yuhei', 't', 'c', 'https://example.com')", id);
+        }
+        for (String user : List.of("e", "c", "a", "d", "b")) {
+            jdbcTemplate.update("INSERT INTO reads (post_id, username) VALUES (1, ?)", user);
+        }
+        jdbcTemplate.update("INSERT INTO reads (post_id, username) VALUES (2, 'shiho')");
+    }
+
+    @Test
+    void summarizesReadersPerPostInOneQuery() {
+        Map<Long, ReaderSummary> summaries = repository.findReaderSummaries(List.of(1L, 2L, 3L), false, 3);
+
+        assertEquals(new ReaderSummary(5, List.of("a", "b", "c")), summaries.get(1L));
+        assertTrue(summaries.get(1L).hasMore());
+        assertEquals(new ReaderSummary(1, List.of("shiho")), summaries.get(2L));
+        assertFalse(summaries.get(2L).hasMore());
+        assertFalse(summaries.containsKey(3L));
+    }
+}
@@ -0,0 +1,108 @@
+package com.home.knowledge.related;
+
+import com.home.knowledge.cache.ContentVersions;
+import com.home.knowledge.cache.InProcessInvalidationBus;
+import com.home.knowledge.post.Post;
+import com.home.knowledge.post.PostRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RelatedPostIndexTests {
+
+    private final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:related-posts;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final InProcessInvalidationBus bus = new InProcessInvalidationBus();
+    private final ContentVersions here = new ContentVersions(bus, "", Duration.ZERO);
+    private final PostRepository posts = new PostRepository(jdbcTemplate, here);
+
+    @BeforeEach
+    void setUp() {
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate.update("DELETE FROM posts");
+    }
+
+    @Test
+    void anEditedPostLeavesTheListsItNoLongerBelongsIn() throws InterruptedException {
+        RelatedPostIndex index = new RelatedPostIndex(posts, new ContentVersions());
+        index.postSaved(post(1, "補聴器の電池交換", "補聴器の電池は一週間ほどで交換します"));
+        index.postSaved(post(2, "補聴器の電池の選び方", "補聴器の電池は空気亜鉛電池が一般的です"));
+        assertEquals(List.of(2L), await(() -> ids(index.relatedTo(1)), List.of(2L)));
+        long version = index.version(1);
+
+        index.postSaved(post(2, "春の遠足の持ち物", "水筒と帽子とレジャーシートを用意します"));
+
+        assertEquals(List.of(), await(() -> ids(index.relatedTo(1)), List.of()));
+        assertEquals(List.of(), ids(index.relatedTo(2)));
+        assertTrue(await(() -> index.version(1) > version, true));
+    }
+
+    @Test
+    void neighborsShowAnEditedTitle() throws InterruptedException {
+        RelatedPostIndex index = new RelatedPostIndex(posts, new ContentVersions());
+        index.postSaved(post(1, "補聴器の電池交換", "補聴器の電池は一週間ほどで交換します"));
+        index.postSaved(post(2, "補聴器の電池の選び方", "補聴器の電池は空気亜鉛電池が一般的です"));
+        assertEquals(List.of(2L), await(() -> ids(index.relatedTo(1)), List.of(2L)));
+        long version = index.version(1);
+
+        index.postSaved(post(2, "補聴器の電池の選び方と保管", "補聴器の電池は空気亜鉛電池が一般的です"));
+
+        assertEquals("補聴器の電池の選び方と保管",
+                await(() -> index.relatedTo(1).get(0).title(), "補聴器の電池の選び方と保管"));
+        assertTrue(await(() -> index.version(1) > version, true));
+    }
+
+    @Test
+    void aDeletedPostLeavesItsNeighborsLists() throws InterruptedException {
+        RelatedPostIndex index = new RelatedPostIndex(posts, new ContentVersions());
+        index.postSaved(post(1, "補聴器の電池交換", "補聴器の電池は一週間ほどで交換します"));
+        index.postSaved(post(2, "補聴器の電池の選び方", "補聴器の電池は空気亜鉛電池が一般的です"));
+        index.postSaved(post(3, "補聴器の電池の保管", "補聴器の電池は高温多湿を避けて保管します"));
+        assertEquals(2, await(() -> index.relatedTo(1).size(), 2));
+
+        index.postDeleted(2);
+
+        assertEquals(List.of(3L), await(() -> ids(index.relatedTo(1)), List.of(3L)));
+        assertEquals(List.of(), ids(index.relatedTo(2)));
+    }
+
+    @Test
+    void postsChangedOnAnotherInstanceAreIndexed() throws InterruptedException {
+        RelatedPostIndex there = new RelatedPostIndex(posts, new ContentVersions(bus, "", Duration.ZERO));
+        long first = posts.save("yuhei", "PostgreSQL の自動バキューム", "自動バキュームの閾値を調整する", null, "https://example.com", "s").getId();
+        long second = posts.save("shiho", "PostgreSQL の自動バキューム設定", "自動バキュームの閾値とコスト", null, "https://example.com", "s").getId();
+
+        assertEquals(List.of(second), await(() -> ids(there.relatedTo(first)), List.of(second)));
+
+        posts.delete(second);
+
+        assertEquals(List.of(), await(() -> ids(there.relatedTo(first)), List.of()));
+    }
+
+    private static Post post(long id, String title, String content) {
+        return new Post(id, "yuhei", title, content, null, "https://example.com/" + id, "", Instant.now());
+    }
+
+    private static List<Long> ids(List<RelatedPostIndex.RelatedPost> related) {
+        return related.stream().map(RelatedPostIndex.RelatedPost::id).toList();
+    }
+
+    private static <T> T await(Supplier<T> value, T expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!expected.equals(value.get()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return value.get();
+    }
+}
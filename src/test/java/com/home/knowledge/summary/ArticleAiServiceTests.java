@@ -0,0 +1,182 @@
+package com.home.knowledge.summary;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArticleAiServiceTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final DraftMetrics draftMetrics = new DraftMetrics(registry, 8000);
+    private final ArticleAiService service = new ArticleAiService("", 2, draftMetrics);
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void duplicatesFinishTheirTrace() {
+        var existing = ArticleAiService.ArticleDraft.of("t", "c", "s");
+
+        assertSame(existing, service.reuseDraft(source(), existing));
+        service.skipDraft(source());
+
+        assertEquals(1.0, registry.get("article.draft.outcome").tag("outcome", "dedup:reused").counter().count());
+        assertEquals(1.0, registry.get("article.draft.outcome").tag("outcome", "dedup:skipped").counter().count());
+        assertEquals(2, registry.get("article.draft.total").timers().stream().mapToLong(t -> t.count()).sum());
+    }
+
+    @Test
+    void candidateSentencesSkipNavigationFragmentsAndRepeats() {
+        List<String> candidates = service.extractCandidateSentences(
+                "ホーム | ニュース | 暮らし | 教育。人工内耳の手術は一歳前後から受けられます。"
+                        + "関連記事。人工内耳の手術は、一歳前後から受けられます。"
+                        + "術後のリハビリには言語聴覚士が付き添います。");
+
+        assertEquals(List.of("人工内耳の手術は一歳前後から受けられます。", "術後のリハビリには言語聴覚士が付き添います。"),
+                candidates);
+    }
+
+    @Test
+    void compressionKeepsTheBudgetAndTheOriginalOrder() {
+        List<String> sentences = service.extractCandidateSentences(article(60));
+
+        String packed = service.compressToBudget(sentences, 300);
+
+        List<String> kept = List.of(packed.split("\\n"));
+        assertTrue(packed.length() <= 300, packed.length() + " characters");
+        assertFalse(kept.isEmpty());
+        int last = -1;
+        for (String sentence : kept) {
+            int position = sentences.indexOf(sentence);
+            assertTrue(position > last, "out of order: " + sentence);
+            last = position;
+        }
+    }
+
+    @Test
+    void aSentenceOverTheBudgetIsTruncatedRatherThanDropped() {
+        String packed = service.compressToBudget(service.extractCandidateSentences(article(1)), 10);
+
+        assertFalse(packed.isEmpty());
+        assertTrue(packed.length() <= 10, packed);
+    }
+
+    @Test
+    void aHugePageStaysWithinItsChunkBudgetAndPoolShare() {
+        CountingChunks counting = new CountingChunks(6, chunk -> "- 要点");
+        try {
+            String merged = counting.summarizeInChunks(article(3000), draftMetrics.start("https://example.com/long"));
+
+            assertTrue(merged.startsWith("## パート1"));
+            assertTrue(counting.totals.get(0) <= 12, "first round had " + counting.totals.get(0) + " chunks");
+            assertTrue(counting.totals.size() <= 12 + 3, counting.totals.size() + " calls");
+            assertTrue(counting.maxRunning.get() <= 2, counting.maxRunning.get() + " chunks ran at once");
+        } finally {
+            counting.shutdown();
+        }
+    }
+
+    @Test
+    void roundsRepeatUntilTheSummariesFitAndThenStop() {
+        // 12 first-round summaries of 500 tokens need a second round of 4 chunks, whose summaries fit.
+        CountingChunks counting = new CountingChunks(6, chunk -> article(15).substring(0, 500));
+        try {
+            String merged = counting.summarizeInChunks(article(3000), draftMetrics.start("https://example.com/long"));
+
+            assertEquals(12 + 4, counting.totals.size());
+            assertEquals(List.of(12, 4), counting.totals.stream().distinct().toList());
+            assertTrue(merged.contains("## パート4") && !merged.contains("## パート5"), merged);
+        } finally {
+            counting.shutdown();
+        }
+    }
+
+    @Test
+    void summariesThatDoNotShrinkStopAfterOneRound() {
+        CountingChunks counting = new CountingChunks(6, chunk -> chunk);
+        try {
+            String merged = counting.summarizeInChunks(article(300), draftMetrics.start("https://example.com/long"));
+
+            // Cut to what fits into the reduce prompt instead of summarizing again.
+            assertEquals(1, counting.totals.stream().distinct().count());
+            assertTrue(merged.chars().filter(c -> c >= 0x80).count() <= 3000, merged.length() + " characters");
+        } finally {
+            counting.shutdown();
+        }
+    }
+
+    @Test
+    void aFailedChunkFallsBackToItsOwnSentences() {
+        CountingChunks counting = new CountingChunks(6, chunk -> null);
+        try {
+            String text = article(300);
+            String merged = counting.summarizeInChunks(text, draftMetrics.start("https://example.com/long"));
+
+            assertTrue(merged.startsWith("## パート1"));
+            String firstPart = merged.split("\\n")[1];
+            assertTrue(text.contains(firstPart), firstPart);
+        } finally {
+            counting.shutdown();
+        }
+    }
+
+    private static String article(int sentences) {
+        SplittableRandom random = new SplittableRandom(42);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < sentences; i++) {
+            for (int j = 0; j < 40; j++) {
+                text.append((char) (0x4E00 + random.nextInt(2000)));
+            }
+            text.append('。');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Answers every chunk with {@code answer}, recording how many chunks each call was one of and how
+     * many ran at once.
+     */
+    private class CountingChunks extends ArticleAiService {
+        private final List<Integer> totals = new CopyOnWriteArrayList<>();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+        private final UnaryOperator<String> answer;
+
+        CountingChunks(int mapParallelism, UnaryOperator<String> answer) {
+            super("key", mapParallelism, draftMetrics);
+            this.answer = answer;
+        }
+
+        @Override
+        String summarizeChunk(String chunk, int index, int total, DraftTrace trace) {
+            totals.add(total);
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+            return answer.apply(chunk);
+        }
+    }
+
+    private ArticleAiService.ArticleSource source() {
+        String url = "https://example.com/a";
+        return new ArticleAiService.ArticleSource(url, "t", "本文です。", draftMetrics.start(url));
+    }
+}